@@ -0,0 +1,143 @@
+// 동시 스트리밍 응답 수용량 부하 테스트 (k6)
+//
+// 동시 스트림 수(VU)를 단계적으로 늘리면서 단계마다 첫 바이트 시간과 실패율을 기록하고,
+// 실패율 1% 미만이면서 첫 바이트 p95 가 FIRST_BYTE_SLO_MS 이하인 가장 큰 단계를 수용량으로 출력한다.
+//
+// 실행 예:
+//   k6 run -e BASE_URL=http://localhost:8080 -e ENDPOINT=/ai/simple/stream perf/k6/chat-stream-capacity.js
+//
+// 환경 변수:
+//   BASE_URL            대상 서버 (기본 http://localhost:8080)
+//   ENDPOINT            스트리밍 엔드포인트 (기본 /ai/simple/stream, RAG 경로는 /ai/rag/stream)
+//   MODEL               요청 모델 (기본: 서버 기본 채팅 모델)
+//   STEP_VUS            단계별 증가 VU 수 (기본 8)
+//   MAX_VUS             최대 VU 수 (기본 64)
+//   STEP_DURATION       단계 유지 시간 (기본 60s)
+//   FIRST_BYTE_SLO_MS   수용량 판단 기준 첫 바이트 p95 (기본 5000)
+//   REQUEST_TIMEOUT     요청 타임아웃 (기본 180s)
+import http from 'k6/http';
+import exec from 'k6/execution';
+import { check } from 'k6';
+import { Counter, Rate, Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const ENDPOINT = __ENV.ENDPOINT || '/ai/simple/stream';
+const MODEL = __ENV.MODEL || '';
+const STEP_VUS = parseInt(__ENV.STEP_VUS || '8', 10);
+const MAX_VUS = parseInt(__ENV.MAX_VUS || '64', 10);
+const STEP_DURATION = __ENV.STEP_DURATION || '60s';
+const FIRST_BYTE_SLO_MS = parseInt(__ENV.FIRST_BYTE_SLO_MS || '5000', 10);
+const REQUEST_TIMEOUT = __ENV.REQUEST_TIMEOUT || '180s';
+
+const QUESTIONS = [
+    '전자정부 표준프레임워크 개발환경 설치 방법 알려줘',
+    '공통 컴포넌트는 어떻게 추가해?',
+    '배치 작업 실행 환경 구성 방법은?',
+    '화면 처리 레이어에서 사용하는 기술은?',
+];
+
+const steps = [];
+for (let vus = STEP_VUS; vus <= MAX_VUS; vus += STEP_VUS) {
+    steps.push(vus);
+}
+
+// 단계별 하위 지표가 요약에 나오도록 단계 태그마다 임계값 등록 (판단은 handleSummary 에서 수행)
+const thresholds = {};
+for (const vus of steps) {
+    thresholds[`stream_first_byte{step:${vus}}`] = ['p(95)>=0'];
+    thresholds[`stream_failed{step:${vus}}`] = ['rate>=0'];
+    thresholds[`streams_completed{step:${vus}}`] = ['count>=0'];
+}
+
+export const options = {
+    scenarios: {
+        streams: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            // 단계마다 짧게 올린 뒤 STEP_DURATION 동안 유지
+            stages: steps.flatMap((vus) => [
+                { duration: '5s', target: vus },
+                { duration: STEP_DURATION, target: vus },
+            ]),
+            gracefulRampDown: '30s',
+        },
+    },
+    thresholds,
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+const firstByte = new Trend('stream_first_byte', true);
+const failed = new Rate('stream_failed');
+const completed = new Counter('streams_completed');
+const rejected = new Counter('streams_rejected');
+
+// VU 마다 하나의 세션 사용 (모듈 변수는 VU 별로 유지됨)
+let sessionId = null;
+
+function currentStep() {
+    const active = exec.instance.vusActive;
+    const step = Math.ceil(active / STEP_VUS) * STEP_VUS;
+    return String(Math.min(Math.max(step, STEP_VUS), MAX_VUS));
+}
+
+export default function () {
+    if (sessionId === null) {
+        const created = http.post(`${BASE_URL}/api/chat/sessions`);
+        sessionId = created.status === 200 ? created.json('sessionId') : '';
+    }
+
+    const question = QUESTIONS[exec.scenario.iterationInTest % QUESTIONS.length];
+    const params = [
+        `message=${encodeURIComponent(question)}`,
+        `sessionId=${encodeURIComponent(sessionId)}`,
+    ];
+    if (MODEL) {
+        params.push(`model=${encodeURIComponent(MODEL)}`);
+    }
+
+    const tags = { step: currentStep(), name: ENDPOINT };
+    const res = http.get(`${BASE_URL}${ENDPOINT}?${params.join('&')}`, { timeout: REQUEST_TIMEOUT, tags });
+
+    if (res.status === 429) {
+        // 생성 대기열 초과 거절은 실패로 집계 (수용량 초과 신호)
+        rejected.add(1, tags);
+    }
+    const ok = check(res, {
+        'status 200': (r) => r.status === 200,
+        'body not empty': (r) => r.body && r.body.length > 0,
+    });
+    failed.add(!ok, tags);
+    if (ok) {
+        completed.add(1, tags);
+        firstByte.add(res.timings.waiting, tags);
+    }
+}
+
+export function handleSummary(data) {
+    const lines = [];
+    lines.push(`엔드포인트: ${ENDPOINT}, 모델: ${MODEL || '(기본)'}, 첫 바이트 기준 p95 <= ${FIRST_BYTE_SLO_MS}ms, 실패율 < 1%`);
+    lines.push('| 동시 스트림 | 완료 | 실패율 | 첫 바이트 p50 (ms) | 첫 바이트 p95 (ms) |');
+    lines.push('|-------------|------|--------|--------------------|--------------------|');
+
+    let capacity = 0;
+    for (const vus of steps) {
+        const fb = data.metrics[`stream_first_byte{step:${vus}}`];
+        const fr = data.metrics[`stream_failed{step:${vus}}`];
+        const done = data.metrics[`streams_completed{step:${vus}}`];
+        const p50 = fb ? fb.values['p(50)'] : NaN;
+        const p95 = fb ? fb.values['p(95)'] : NaN;
+        const failRate = fr ? fr.values.rate : 1;
+        const count = done ? done.values.count : 0;
+        lines.push(`| ${vus} | ${count} | ${(failRate * 100).toFixed(2)}% | ${p50.toFixed(0)} | ${p95.toFixed(0)} |`);
+        if (count > 0 && failRate < 0.01 && p95 <= FIRST_BYTE_SLO_MS) {
+            capacity = vus;
+        }
+    }
+    lines.push(`동시 스트림 수용량: ${capacity}`);
+
+    const report = lines.join('\n') + '\n';
+    return {
+        stdout: report,
+        'chat-stream-capacity-summary.json': JSON.stringify(data, null, 2),
+    };
+}
@@ -2,11 +2,22 @@ package com.example.chat.config;
 
 import java.util.concurrent.Executor;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Slf4j
 @Configuration
+@EnableScheduling
 public class EgovAsyncConfig {
 
     @Bean(name = "documentProcessingExecutor")
@@ -19,4 +30,70 @@ public class EgovAsyncConfig {
         executor.initialize();
         return executor;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 채팅 요청의 블로킹 작업(세션 확인/갱신 JDBC, 히스토리 조회/저장, 질문 압축 LLM 호출, 문서 검색)을 실행하는 스케줄러
+     * chat.execution.virtual-threads=true 이고 JDK 21 이상에서 실행 중이면 작업마다 가상 스레드를 사용하여
+     * 동시 스트림 수가 플랫폼 스레드 풀 크기에 묶이지 않도록 함 (JDK 17 에서는 설정을 무시하고 boundedElastic 사용)
+     */
+    @Bean(name = "chatBlockingScheduler", destroyMethod = "dispose")
+    public Scheduler chatBlockingScheduler(@Value("${chat.execution.virtual-threads:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            int javaVersion = Runtime.version().feature();
+            if (javaVersion >= 21) {
+                log.info("채팅 블로킹 작업 실행 모드: 가상 스레드 (Java {})", javaVersion);
+                return Schedulers.fromExecutor(new VirtualThreadTaskExecutor("chat-vt-"));
+            }
+            log.warn("chat.execution.virtual-threads=true 이지만 Java {} 에서는 가상 스레드를 사용할 수 없음 (Java 21 이상 필요)"
+                    + " - boundedElastic 스케줄러 사용", javaVersion);
+        }
+        log.info("채팅 블로킹 작업 실행 모드: boundedElastic");
+        return Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "chat-blocking");
+    }
+
+    /**
+     * RAG 질문 압축 등 검색과 병렬로 실행되는 작업용 Executor
+     */
+    @Bean(name = "ragQueryExecutor")
+    public Executor ragQueryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("rag-query-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 다중 질문 확장 시 하위 질문별 벡터 검색을 병렬 실행하는 Executor
+     * 풀이 가득 차면 호출 스레드에서 실행하여 DB 동시 접속 수를 제한
+     */
+    @Bean(name = "ragRetrievalExecutor")
+    public ThreadPoolTaskExecutor ragRetrievalExecutor(@Value("${rag.multi-query.pool-size:4}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(poolSize * 4);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("rag-retrieval-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 대화 요약 생성(LLM 호출)을 요청 경로 밖에서 실행하는 Executor
+     * 대기열이 가득 차면 요청을 거절하며, 요약기는 해당 요약을 생략함 (다음 응답 완료 시 다시 요청됨)
+     */
+    @Bean(name = "chatSummaryExecutor")
+    public ThreadPoolTaskExecutor chatSummaryExecutor(@Value("${chat.memory.summary.pool-size:1}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("chat-summary-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.chat.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.chat.config.admission.EgovModelResolver;
+import com.example.chat.context.RequestDeadline;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 채팅 스트리밍 응답 기한 설정
+ * 전역 비동기 요청 타임아웃 대신 엔드포인트별 기한을 적용하고, 모델별 기한이 설정된 경우 모델 기한을 우선 적용
+ * - chat.deadline.rag-stream / rag-events / simple-stream: 엔드포인트별 기한
+ * - chat.deadline.models: "모델=기한" 목록 (쉼표 구분, 예: qwen3:8b=180s, HyperCLOVA-3b:Q4_K_MM=90s)
+ */
+@Slf4j
+@Configuration
+public class EgovChatDeadlineConfig {
+
+    public static final String RAG_STREAM_ENDPOINT = "/ai/rag/stream";
+    public static final String RAG_EVENTS_ENDPOINT = "/ai/rag/events";
+    public static final String SIMPLE_STREAM_ENDPOINT = "/ai/simple/stream";
+
+    private final Map<String, Duration> endpointDeadlines = new HashMap<>();
+    private final Map<String, Duration> modelDeadlines = new HashMap<>();
+    private final Duration defaultDeadline;
+    private final String defaultModel;
+    private final Duration heartbeatInterval;
+
+    public EgovChatDeadlineConfig(@Value("${chat.deadline.default:120s}") Duration defaultDeadline,
+                                  @Value("${chat.deadline.rag-stream:${chat.deadline.default:120s}}") Duration ragStreamDeadline,
+                                  @Value("${chat.deadline.rag-events:${chat.deadline.default:120s}}") Duration ragEventsDeadline,
+                                  @Value("${chat.deadline.simple-stream:${chat.deadline.default:120s}}") Duration simpleStreamDeadline,
+                                  @Value("${chat.deadline.models:}") String modelDeadlines,
+                                  @Value("${chat.deadline.heartbeat-interval:15s}") Duration heartbeatInterval,
+                                  @Value("${spring.ai.ollama.chat.model:}") String defaultModel) {
+        this.defaultDeadline = defaultDeadline;
+        this.defaultModel = defaultModel;
+        this.heartbeatInterval = heartbeatInterval;
+        this.endpointDeadlines.put(RAG_STREAM_ENDPOINT, ragStreamDeadline);
+        this.endpointDeadlines.put(RAG_EVENTS_ENDPOINT, ragEventsDeadline);
+        this.endpointDeadlines.put(SIMPLE_STREAM_ENDPOINT, simpleStreamDeadline);
+        parseModelDeadlines(modelDeadlines);
+
+        log.info("채팅 응답 기한 구성 - 엔드포인트: {}, 모델: {}, 하트비트: {}", endpointDeadlines, this.modelDeadlines,
+                heartbeatInterval);
+    }
+
+    /**
+     * 요청 시작 시점 기준 RequestDeadline 생성
+     *
+     * @param endpoint 요청 엔드포인트
+     * @param model 모델 이름 (null이면 기본 채팅 모델)
+     */
+    public RequestDeadline start(String endpoint, String model) {
+        return RequestDeadline.after(resolve(endpoint, model));
+    }
+
+    /**
+     * 적용할 기한: 모델별 기한 > 엔드포인트별 기한 > 기본 기한
+     */
+    public Duration resolve(String endpoint, String model) {
+        String modelName = model != null && !model.isBlank() ? model : defaultModel;
+        Duration modelDeadline = modelDeadlines.get(EgovModelResolver.normalize(modelName));
+        if (modelDeadline != null) {
+            return modelDeadline;
+        }
+        return endpointDeadlines.getOrDefault(endpoint, defaultDeadline);
+    }
+
+    /**
+     * 이벤트 스트림 하트비트 간격 (토큰이 없는 구간에도 연결 종료를 감지하기 위한 주석 이벤트)
+     */
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    private void parseModelDeadlines(String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        // 모델 이름에 ':'가 포함되므로 마지막 '='를 기준으로 분리
+        for (String entry : value.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                log.warn("잘못된 모델별 기한 설정 무시: '{}'", entry.trim());
+                continue;
+            }
+            modelDeadlines.put(EgovModelResolver.normalize(entry.substring(0, separator)),
+                    DurationStyle.detectAndParse(entry.substring(separator + 1).trim()));
+        }
+    }
+}
@@ -1,29 +1,128 @@
 package com.example.chat.config;
 
+import java.time.Duration;
+
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
-import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.chat.config.memory.EgovConversationSummarizer;
+import com.example.chat.config.memory.EgovSummarizingChatMemory;
+import com.example.chat.config.memory.EgovTokenBudgetChatMemory;
+import com.example.chat.config.metrics.EgovChatMetrics;
+import com.example.chat.config.metrics.EgovTimedChatMemoryAdvisor;
+import com.example.chat.config.rag.postprocessors.EgovContextBudgetPostProcessor;
+import com.example.chat.repository.EgovAppendOnlyChatMemoryRepository;
 
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+
+@Slf4j
 @Configuration
 public class EgovChatMemoryConfig {
     
-    @Autowired
-    private JdbcChatMemoryRepository chatMemoryRepository;
-    
+    @Value("${chat.memory.max-messages:10}")
+    private int maxMessages;
+
+    /**
+     * 추가 전용 ChatMemory 저장소 (턴마다 윈도우 전체를 삭제/재저장하지 않고 새 메시지만 INSERT)
+     * 기본 JdbcChatMemoryRepository 빈 대신 사용되며, 테이블 스키마 초기화는 기존 설정을 그대로 따름
+     */
+    @Bean(destroyMethod = "shutdown")
+    public EgovAppendOnlyChatMemoryRepository chatMemoryRepository(JdbcTemplate jdbcTemplate,
+            @Value("${chat.memory.trim-slack:10}") int trimSlack,
+            @Value("${chat.memory.retain-history:false}") boolean retainHistory,
+            @Value("${chat.memory.token-budget.enabled:false}") boolean tokenBudget,
+            @Value("${chat.memory.cache.max-sessions:10000}") long cacheMaxSessions,
+            @Value("${chat.memory.cache.expire-after-access:30m}") Duration cacheExpireAfterAccess,
+            @Value("${chat.memory.write-behind.enabled:true}") boolean writeBehind,
+            @Value("${chat.memory.write-behind.flush-interval:200ms}") Duration flushInterval,
+            @Value("${chat.memory.write-behind.max-attempts:25}") int maxFlushAttempts,
+            @Value("${chat.retention.enabled:false}") boolean retentionEnabled) {
+        if (retainHistory && !retentionEnabled) {
+            log.warn("chat.memory.retain-history=true 이지만 chat.retention.enabled=false - 대화 메모리 테이블이 계속 증가함");
+        }
+        // 토큰 예산 사용 시 RAG 컨텍스트 예산과 같은 토크나이저로 메시지별 토큰 수를 저장
+        return new EgovAppendOnlyChatMemoryRepository(jdbcTemplate, maxMessages, trimSlack, retainHistory,
+                tokenBudget ? new JTokkitTokenCountEstimator() : null,
+                cacheMaxSessions, cacheExpireAfterAccess, writeBehind, flushInterval, maxFlushAttempts);
+    }
+
+    /**
+     * 최근 maxMessages 윈도우 ChatMemory
+     * - chat.memory.token-budget.enabled=true 이면 토큰 예산 안의 최근 메시지만 프롬프트에 사용
+     *   (이력 보존 중이고 요약을 사용하지 않으면 윈도우 이전 보존 이력까지 예산만큼 포함)
+     * - chat.memory.summary.enabled=true 이면 윈도우 밖 대화의 누적 요약을 윈도우 앞에 추가
+     */
     @Bean
-    public ChatMemory chatMemory() {
-        return MessageWindowChatMemory.builder()
+    public ChatMemory chatMemory(EgovAppendOnlyChatMemoryRepository chatMemoryRepository,
+                                 ObjectProvider<EgovConversationSummarizer> conversationSummarizer,
+                                 @Value("${chat.memory.retain-history:false}") boolean retainHistory,
+                                 @Value("${chat.memory.token-budget.enabled:false}") boolean tokenBudget,
+                                 @Value("${chat.memory.token-budget.max-tokens:0}") int tokenBudgetMaxTokens,
+                                 @Value("${chat.memory.token-budget.reserved-tokens:512}") int reservedTokens,
+                                 @Value("${rag.context.enabled:true}") boolean ragContextEnabled,
+                                 @Value("${rag.context.num-ctx:2048}") int numCtx,
+                                 @Value("${rag.context.budget-ratio:0.5}") double ragBudgetRatio,
+                                 @Value("${rag.context.max-tokens:0}") int ragMaxTokens) {
+        ChatMemory memory = MessageWindowChatMemory.builder()
                 .chatMemoryRepository(chatMemoryRepository)
-                .maxMessages(10)
+                .maxMessages(maxMessages)
+                .build();
+
+        EgovConversationSummarizer summarizer = conversationSummarizer.getIfAvailable();
+        if (tokenBudget) {
+            // 예산 = 모델 컨텍스트 크기 - 검색 문서 예산 - 시스템 프롬프트/질문/답변 예약분 (max-tokens 지정 시 해당 값)
+            int ragReservation = ragContextEnabled
+                    ? EgovContextBudgetPostProcessor.contextBudget(numCtx, ragBudgetRatio, ragMaxTokens) : 0;
+            int historyBudget = tokenBudgetMaxTokens > 0
+                    ? tokenBudgetMaxTokens : numCtx - ragReservation - reservedTokens;
+            if (historyBudget <= 0) {
+                log.warn("대화 히스토리 토큰 예산이 없음 (num_ctx: {}, 검색 문서 예산: {}, 예약: {}) - 히스토리 없이 응답",
+                        numCtx, ragReservation, reservedTokens);
+                historyBudget = 0;
+            }
+            log.info("대화 히스토리 토큰 예산: {} 토큰 (num_ctx: {}, 검색 문서 예산: {}, 예약: {})",
+                    historyBudget, numCtx, ragReservation, reservedTokens);
+            // 요약 사용 시 윈도우 이전 대화는 요약으로 들어가므로 보존 이력을 다시 읽지 않음
+            boolean beyondWindow = retainHistory && summarizer == null;
+            if (!retainHistory) {
+                log.warn("토큰 예산 히스토리가 메시지 수 윈도우(chat.memory.max-messages: {})로 먼저 제한됨 - "
+                        + "예산을 채우려면 retain-history 를 사용하거나 max-messages 를 늘림", maxMessages);
+            }
+            memory = new EgovTokenBudgetChatMemory(memory, chatMemoryRepository, historyBudget, beyondWindow);
+        }
+
+        if (summarizer == null) {
+            return memory;
+        }
+        return new EgovSummarizingChatMemory(memory, summarizer);
+    }
+
+    /**
+     * 히스토리 조회/저장(JDBC)은 채팅 블로킹 작업 스케줄러에서 실행
+     */
+    @Bean
+    public MessageChatMemoryAdvisor messageChatMemoryAdvisor(ChatMemory chatMemory,
+                                                             @Qualifier("chatBlockingScheduler") Scheduler chatBlockingScheduler) {
+        return MessageChatMemoryAdvisor.builder(chatMemory)
+                .scheduler(chatBlockingScheduler)
                 .build();
     }
 
+    /**
+     * 히스토리 조회/저장 시간을 측정하는 ChatMemory 어드바이저
+     */
     @Bean
-    public MessageChatMemoryAdvisor messageChatMemoryAdvisor(ChatMemory chatMemory) {
-        return MessageChatMemoryAdvisor.builder(chatMemory).build();
+    public EgovTimedChatMemoryAdvisor timedChatMemoryAdvisor(MessageChatMemoryAdvisor messageChatMemoryAdvisor,
+                                                             EgovChatMetrics chatMetrics) {
+        return new EgovTimedChatMemoryAdvisor(messageChatMemoryAdvisor, chatMetrics);
     }
 }
\ No newline at end of file
@@ -1,24 +1,49 @@
 package com.example.chat.config;
 
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.ai.rag.preretrieval.query.expansion.MultiQueryExpander;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.ollama.OllamaChatModel;
 import org.springframework.ai.rag.Query;
 import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
 import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
 import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
-import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
 import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.chat.config.metrics.EgovChatMetrics;
+import com.example.chat.context.RequestDeadline;
+import com.example.chat.config.rag.joiners.EgovRankFusionDocumentJoiner;
+import com.example.chat.config.rag.postprocessors.EgovContextBudgetPostProcessor;
+import com.example.chat.config.rag.postprocessors.EgovCrossEncoderReranker;
+import com.example.chat.config.rag.postprocessors.EgovSourcesNotifyingPostProcessor;
+import com.example.chat.config.rag.retrievers.EgovHistoryBlendDocumentRetriever;
+import com.example.chat.config.rag.retrievers.EgovPgVectorDocumentRetriever;
+import com.example.chat.config.rag.retrievers.EgovPgVectorDocumentRetriever.MmrOptions;
+import com.example.chat.config.rag.retrievers.EgovPgVectorDocumentRetriever.QuantizationMode;
+import com.example.chat.config.rag.retrievers.EgovSpeculativeDocumentRetriever;
+import com.example.chat.config.rag.retrievers.EgovVectorIndexManager;
 import com.example.chat.config.rag.transformers.EgovCompressionQueryTransformer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 @Slf4j
 @Configuration
@@ -30,6 +55,72 @@ public class EgovRagConfig {
     @Value("${rag.top-k}")
     private int topK;
 
+    @Value("${rag.vector-search.rerank-multiplier:4}")
+    private int rerankMultiplier;
+
+    @Value("${rag.vector-search.ef-search:40}")
+    private int efSearch;
+
+    @Value("${spring.ai.vectorstore.pgvector.dimensions:768}")
+    private int dimensions;
+
+    @Value("${rag.vector-search.iterative-scan:off}")
+    private String iterativeScan;
+
+    @Value("${rag.vector-search.max-scan-tuples:20000}")
+    private int maxScanTuples;
+
+    @Value("${rag.mmr.enabled:false}")
+    private boolean mmrEnabled;
+
+    @Value("${rag.mmr.lambda:0.7}")
+    private double mmrLambda;
+
+    @Value("${rag.mmr.fetch-multiplier:3}")
+    private int mmrFetchMultiplier;
+
+    @Value("${rag.rerank.enabled:false}")
+    private boolean rerankEnabled;
+
+    @Value("${rag.rerank.candidate-count:30}")
+    private int rerankCandidateCount;
+
+    @Value("${rag.enable-query-compression:true}")
+    private boolean enableQueryCompression;
+
+    @Value("${rag.speculative-retrieval.enabled:false}")
+    private boolean speculativeRetrievalEnabled;
+
+    @Value("${rag.speculative-retrieval.reuse-similarity:0.92}")
+    private double speculativeReuseSimilarity;
+
+    @Value("${rag.history-blend.enabled:false}")
+    private boolean historyBlendEnabled;
+
+    @Value("${rag.history-blend.turns:2}")
+    private int historyBlendTurns;
+
+    @Value("${rag.history-blend.query-weight:1.0}")
+    private double historyBlendQueryWeight;
+
+    @Value("${rag.history-blend.decay:0.5}")
+    private double historyBlendDecay;
+
+    @Value("${rag.multi-query.enabled:false}")
+    private boolean multiQueryEnabled;
+
+    @Value("${rag.multi-query.model:}")
+    private String multiQueryModel;
+
+    @Value("${rag.multi-query.number-of-queries:3}")
+    private int multiQueryCount;
+
+    @Value("${rag.multi-query.include-original:true}")
+    private boolean multiQueryIncludeOriginal;
+
+    @Value("${rag.multi-query.rrf-k:60}")
+    private int rrfK;
+
     @Bean
     public ChatClient chatClient(OllamaChatModel chatModel) {
         log.info("ChatClient 구성: 기본 어드바이저 없이 생성 (세션별 동적 추가)");
@@ -38,110 +129,178 @@ public class EgovRagConfig {
                 .build();
     }
 
+    /**
+     * 벡터 검색 DocumentRetriever 빈 생성
+     * 양자화(halfvec/binary), MMR, 추측 검색, 히스토리 혼합 검색, HNSW 반복 스캔 중 하나라도 사용하면
+     * 테이블을 직접 조회하는 EgovPgVectorDocumentRetriever, 모두 사용하지 않으면 Spring AI 기본 VectorStoreDocumentRetriever 사용
+     * 반복 스캔은 설치된 pgvector가 0.8 미만이면 경고 후 사용하지 않음
+     */
     @Bean
-    public VectorStoreDocumentRetriever vectorStoreDocumentRetriever(PgVectorStore pgVectorStore) {
-        log.info("VectorStoreDocumentRetriever 빈 생성 - 유사도 임계값: {}, Top K: {}", similarityThreshold, topK);
+    public DocumentRetriever vectorStoreDocumentRetriever(PgVectorStore pgVectorStore,
+                                                          EgovVectorIndexManager vectorIndexManager,
+                                                          JdbcTemplate jdbcTemplate,
+                                                          TransactionTemplate transactionTemplate,
+                                                          EmbeddingModel embeddingModel,
+                                                          ObjectMapper objectMapper,
+                                                          EgovChatMetrics chatMetrics) {
+        QuantizationMode quantizationMode = vectorIndexManager.getQuantizationMode();
+        // 재정렬 사용 시 cross-encoder가 상위 N개를 고르도록 더 많은 후보를 검색
+        int retrievalTopK = rerankEnabled ? Math.max(topK, rerankCandidateCount) : topK;
+        log.info("DocumentRetriever 빈 생성 - 유사도 임계값: {}, Top K: {}, 양자화: {}", similarityThreshold, retrievalTopK, quantizationMode);
+
+        // 필터 검색의 HNSW 반복 스캔은 직접 SQL을 실행하는 검색기에서만 설정 가능
+        String scanMode = iterativeScan.trim();
+        if (!"off".equalsIgnoreCase(scanMode) && !vectorIndexManager.supportsIterativeScan()) {
+            log.warn("pgvector 0.8 미만이거나 버전 확인 불가 - HNSW 반복 스캔({}) 사용 안 함", scanMode);
+            scanMode = "off";
+        }
+        boolean iterativeScanEnabled = !"off".equalsIgnoreCase(scanMode);
+        if (quantizationMode != QuantizationMode.NONE || mmrEnabled || isSpeculativeRetrieval() || historyBlendEnabled
+                || iterativeScanEnabled) {
+            log.info("EgovPgVectorDocumentRetriever 사용 - 후보 배수: {}, ef_search: {}, MMR: {} (lambda: {}, 배수: {}), 반복 스캔: {}",
+                    rerankMultiplier, efSearch, mmrEnabled, mmrLambda, mmrFetchMultiplier, scanMode);
+            MmrOptions mmrOptions = mmrEnabled
+                    ? new MmrOptions(true, mmrLambda, mmrFetchMultiplier)
+                    : MmrOptions.disabled();
+            return new EgovPgVectorDocumentRetriever(jdbcTemplate, transactionTemplate, embeddingModel, objectMapper,
+                    vectorIndexManager.getQualifiedTableName(), dimensions, quantizationMode,
+                    rerankMultiplier, efSearch, retrievalTopK, similarityThreshold, mmrOptions, chatMetrics,
+                    scanMode, maxScanTuples);
+        }
 
         return VectorStoreDocumentRetriever.builder()
                 .similarityThreshold(similarityThreshold)
-                .topK(topK)
+                .topK(retrievalTopK)
                 .vectorStore(pgVectorStore)
                 .build();
     }
 
     /**
-     * 세션 ID를 직접 전달받아 RAG 어드바이저를 생성하는 정적 메서드
-     * QueryTransformer가 ChatMemory에서 히스토리를 조회하여 질문 압축 수행
-     *
-     * @param sessionId 세션 ID
-     * @param compressionTransformer 히스토리 압축 transformer
-     * @param documentRetriever Bean으로 생성된 DocumentRetriever (application.properties의 rag.similarity.threshold 적용)
-     * @param enableQueryCompression 질문 압축 활성화 여부
+     * 로컬 ONNX cross-encoder 재정렬기 빈 생성 (rag.rerank.enabled=true 인 경우에만)
      */
-    public static Advisor createRagAdvisor(String sessionId,
-                                         EgovCompressionQueryTransformer compressionTransformer,
-                                         VectorStoreDocumentRetriever documentRetriever,
-                                         boolean enableQueryCompression) {
-        log.info("RAG 어드바이저 생성 시작 - 세션: {}, 질문 압축: {}", sessionId, enableQueryCompression);
-
-        // 로깅을 위해 DocumentRetriever를 래핑
-        LoggingDocumentRetriever loggingRetriever = new LoggingDocumentRetriever(documentRetriever);
-
-        if (enableQueryCompression) {
-            // 질문 압축 활성화: QueryTransformer 사용
-            // 세션 ID를 전달받는 커스텀 QueryTransformer 생성
-            // 이 transformer는 내부에서 ChatMemory를 조회하여 히스토리 기반 질문 압축 수행
-            SessionAwareQueryTransformer sessionAwareTransformer = new SessionAwareQueryTransformer(
-                compressionTransformer, sessionId);
-            log.info("질문 압축 활성화 - SessionAwareQueryTransformer 사용");
-
-            // QueryTransformer와 DocumentRetriever를 함께 사용
-            // 흐름: Query → QueryTransformer(히스토리 압축) → DocumentRetriever(벡터 검색)
-            RetrievalAugmentationAdvisor advisor = RetrievalAugmentationAdvisor.builder()
-                    .queryTransformers(sessionAwareTransformer)
-                    .documentRetriever(loggingRetriever)
-                    .build();
-
-            log.info("RAG 어드바이저 생성 완료 - 세션: {}, 압축 모드", sessionId);
-            return advisor;
-        } else {
-            // 질문 압축 비활성화: DocumentRetriever만 사용
-            log.info("질문 압축 비활성화 - 원본 질문으로 검색");
-
-            // QueryTransformer 없이 DocumentRetriever만 사용
-            // 흐름: Query → DocumentRetriever(벡터 검색)
-            RetrievalAugmentationAdvisor advisor = RetrievalAugmentationAdvisor.builder()
-                    .documentRetriever(loggingRetriever)
-                    .build();
-
-            log.info("RAG 어드바이저 생성 완료 - 세션: {}, 비압축 모드", sessionId);
-            return advisor;
-        }
+    @Bean
+    @ConditionalOnProperty(name = "rag.rerank.enabled", havingValue = "true")
+    public EgovCrossEncoderReranker crossEncoderReranker(ResourceLoader resourceLoader,
+            @Value("${rag.rerank.model-uri}") String modelUri,
+            @Value("${rag.rerank.tokenizer-uri}") String tokenizerUri,
+            @Value("${rag.rerank.top-n:3}") int topN,
+            @Value("${rag.rerank.batch-size:8}") int batchSize,
+            @Value("${rag.rerank.threads:2}") int threads,
+            @Value("${rag.rerank.max-length:512}") int maxLength) {
+        log.info("EgovCrossEncoderReranker 빈 생성 - 모델: {}, 후보: {}개 → 상위 {}개", modelUri, rerankCandidateCount, topN);
+
+        return new EgovCrossEncoderReranker(
+                resourceLoader.getResource(modelUri),
+                resourceLoader.getResource(tokenizerUri),
+                topN, batchSize, threads, maxLength);
     }
 
     /**
-     * QueryTransformer 없이 DocumentRetriever만 사용하는 RAG 어드바이저 생성
-     * 히스토리 압축은 이미 완료된 상태이므로 QueryTransformer 불필요
-     *
-     * @param documentRetriever Bean으로 생성된 DocumentRetriever
-     * @return RetrievalAugmentationAdvisor
+     * 토큰 예산 기반 컨텍스트 구성기 빈 생성
+     * 예산 = 모델 컨텍스트 크기(num_ctx) x 컨텍스트 비율 (max-tokens 지정 시 해당 값 사용)
      */
-    public static Advisor createRagAdvisor(VectorStoreDocumentRetriever documentRetriever) {
-
-        // QueryTransformer 없이 DocumentRetriever만 사용
-        RetrievalAugmentationAdvisor advisor = RetrievalAugmentationAdvisor.builder()
-                .documentRetriever(documentRetriever)
-                .build();
-
-        return advisor;
+    @Bean
+    @ConditionalOnProperty(name = "rag.context.enabled", havingValue = "true", matchIfMissing = true)
+    public EgovContextBudgetPostProcessor contextBudgetPostProcessor(
+            @Value("${rag.context.num-ctx:2048}") int numCtx,
+            @Value("${rag.context.budget-ratio:0.5}") double budgetRatio,
+            @Value("${rag.context.max-tokens:0}") int maxTokens,
+            @Value("${rag.context.max-score-gap:0.2}") double maxScoreGap,
+            @Value("${rag.context.min-overlap-chars:30}") int minOverlapChars) {
+        int contextBudget = EgovContextBudgetPostProcessor.contextBudget(numCtx, budgetRatio, maxTokens);
+        log.info("EgovContextBudgetPostProcessor 빈 생성 - num_ctx: {}, 컨텍스트 예산: {} 토큰, 점수 차이 허용: {}",
+                numCtx, contextBudget, maxScoreGap);
+
+        return new EgovContextBudgetPostProcessor(contextBudget, maxScoreGap, minOverlapChars, mmrEnabled);
     }
 
     /**
-     * 세션 ID를 직접 전달받는 커스텀 QueryTransformer
-     * ChatMemory에서 히스토리를 조회하여 CompressionQueryTransformer에 전달
+     * 싱글톤 RAG 어드바이저 빈 생성
+     * 후속 질문 처리 방식: 히스토리 혼합 검색(rag.history-blend.enabled, LLM 호출 없음) 우선,
+     * 그 외에는 질문 압축(rag.enable-query-compression, 추측 검색 선택 가능)
+     * 어드바이저 체인(QueryTransformer → DocumentRetriever → DocumentPostProcessor)은 요청 간 상태가 없으므로
+     * 애플리케이션 시작 시 한 번만 구성하고, 세션 ID와 메타데이터 필터는 요청마다 어드바이저 컨텍스트로 전달
+     * - ChatMemory.CONVERSATION_ID: 질문 압축 시 히스토리를 조회할 세션 ID
+     * - VectorStoreDocumentRetriever.FILTER_EXPRESSION: 벡터 검색 메타데이터 필터
+     *
+     * @param compressionTransformer 히스토리 압축 transformer
+     * @param vectorStoreDocumentRetriever Bean으로 생성된 DocumentRetriever (application.properties의 rag.similarity.threshold 적용)
+     * @param documentPostProcessors 검색 후 문서 후처리기 (재정렬, 컨텍스트 예산 등, 없을 수 있음)
+     * @param ragQueryExecutor 추측 검색 시 질문 압축을 병렬 실행할 Executor
+     * @param ragRetrievalExecutor 다중 질문 확장 시 하위 질문 검색을 병렬 실행할 Executor
+     * @param chatClient 다중 질문 생성용 ChatClient
+     * @param chatMetrics 검색 단계 소요 시간 기록용
+     * @param chatBlockingScheduler 질문 압축/문서 검색 등 블로킹 작업을 실행할 스케줄러
      */
-    private static class SessionAwareQueryTransformer implements QueryTransformer {
-
-        private final EgovCompressionQueryTransformer compressionTransformer;
-        private final String sessionId;
-
-        public SessionAwareQueryTransformer(EgovCompressionQueryTransformer compressionTransformer, String sessionId) {
-            this.compressionTransformer = compressionTransformer;
-            this.sessionId = sessionId;
+    @Bean
+    public RetrievalAugmentationAdvisor ragAdvisor(EgovCompressionQueryTransformer compressionTransformer,
+                                                   DocumentRetriever vectorStoreDocumentRetriever,
+                                                   ObjectProvider<DocumentPostProcessor> documentPostProcessors,
+                                                   @Qualifier("ragQueryExecutor") Executor ragQueryExecutor,
+                                                   @Qualifier("ragRetrievalExecutor") ThreadPoolTaskExecutor ragRetrievalExecutor,
+                                                   ChatClient chatClient,
+                                                   EgovChatMetrics chatMetrics,
+                                                   @Qualifier("chatBlockingScheduler") Scheduler chatBlockingScheduler) {
+        List<DocumentPostProcessor> postProcessors = new ArrayList<>(documentPostProcessors.orderedStream().toList());
+        log.info("RAG 어드바이저 빈 생성 - 히스토리 혼합: {}, 질문 압축: {}, 추측 검색: {}, 다중 질문: {}, 후처리기: {}", historyBlendEnabled,
+                enableQueryCompression, isSpeculativeRetrieval(), multiQueryEnabled,
+                postProcessors.stream().map(p -> p.getClass().getSimpleName()).toList());
+
+        DocumentRetriever documentRetriever = vectorStoreDocumentRetriever;
+        boolean historyBlend = historyBlendEnabled
+                && vectorStoreDocumentRetriever instanceof EgovPgVectorDocumentRetriever;
+        // 다중 질문 확장 시에는 하위 질문마다 압축이 반복되지 않도록 추측 검색 대신 압축 후 확장
+        boolean speculative = !historyBlend && !multiQueryEnabled && isSpeculativeRetrieval()
+                && vectorStoreDocumentRetriever instanceof EgovPgVectorDocumentRetriever;
+        if (historyBlend) {
+            // 흐름: Query → [현재 질문 + 최근 질문 임베딩 가중 합] → 벡터 검색
+            documentRetriever = new EgovHistoryBlendDocumentRetriever(
+                    (EgovPgVectorDocumentRetriever) vectorStoreDocumentRetriever,
+                    historyBlendTurns, historyBlendQueryWeight, historyBlendDecay);
+        } else if (speculative) {
+            // 흐름: Query → [질문 압축 ∥ 원본 질문 벡터 검색] → 재사용 또는 차이분 검색
+            documentRetriever = new EgovSpeculativeDocumentRetriever(compressionTransformer,
+                    (EgovPgVectorDocumentRetriever) vectorStoreDocumentRetriever,
+                    ragQueryExecutor, speculativeReuseSimilarity);
         }
 
-        @Override
-        public Query transform(Query query) {
-            log.info("SessionAwareQueryTransformer 시작 - 세션: {}, 원본 질문: '{}'", sessionId, query.text());
+        // 로깅을 위해 DocumentRetriever를 래핑
+        LoggingDocumentRetriever loggingRetriever = new LoggingDocumentRetriever(documentRetriever, chatMetrics);
 
-            // EgovCompressionQueryTransformer에 세션 ID 전달하여 압축 수행
-            // 내부에서 ChatMemory 조회 → 히스토리 기반 질문 압축
-            Query compressedQuery = compressionTransformer.transformWithSessionId(query, sessionId);
+        // 최종 문서를 이벤트 스트림의 sources 이벤트로 전달 (요청 컨텍스트에 리스너가 있는 경우)
+        postProcessors.add(new EgovSourcesNotifyingPostProcessor());
 
-            log.info("SessionAwareQueryTransformer 완료 - 압축된 질문: '{}'", compressedQuery.text());
+        RetrievalAugmentationAdvisor.Builder builder = RetrievalAugmentationAdvisor.builder()
+                .documentRetriever(loggingRetriever)
+                .documentPostProcessors(postProcessors)
+                .scheduler(chatBlockingScheduler);
 
-            return compressedQuery;
+        if (enableQueryCompression && !speculative && !historyBlend) {
+            // 흐름: Query → QueryTransformer(히스토리 압축) → DocumentRetriever(벡터 검색)
+            builder.queryTransformers(compressionTransformer);
         }
+        // 압축 비활성화 시 흐름: Query → DocumentRetriever(벡터 검색)
+
+        if (multiQueryEnabled) {
+            // 흐름: Query → MultiQueryExpander(LLM 1회, 하위 질문 K개) → 하위 질문별 병렬 검색 → RRF 병합
+            // 전체 검색 시간은 하위 검색 시간의 합이 아니라 가장 느린 하위 검색 시간으로 제한됨
+            OllamaOptions expanderOptions = OllamaOptions.builder()
+                    .model(multiQueryModel == null || multiQueryModel.isBlank() ? null : multiQueryModel)
+                    .build();
+            builder.queryExpander(MultiQueryExpander.builder()
+                            .chatClientBuilder(chatClient.mutate().defaultOptions(expanderOptions))
+                            .numberOfQueries(multiQueryCount)
+                            .includeOriginal(multiQueryIncludeOriginal)
+                            .build())
+                    .documentJoiner(new EgovRankFusionDocumentJoiner(rrfK))
+                    .taskExecutor(ragRetrievalExecutor);
+        }
+
+        return builder.build();
+    }
+
+    private boolean isSpeculativeRetrieval() {
+        return enableQueryCompression && speculativeRetrievalEnabled;
     }
 
     /**
@@ -150,16 +309,27 @@ public class EgovRagConfig {
     private static class LoggingDocumentRetriever implements DocumentRetriever {
 
         private final DocumentRetriever delegate;
+        private final EgovChatMetrics chatMetrics;
 
-        public LoggingDocumentRetriever(DocumentRetriever delegate) {
+        public LoggingDocumentRetriever(DocumentRetriever delegate, EgovChatMetrics chatMetrics) {
             this.delegate = delegate;
+            this.chatMetrics = chatMetrics;
         }
 
         @Override
         public List<Document> retrieve(Query query) {
             log.info("RAG 문서 검색 시작 - 질문: '{}'", query.text());
 
+            // 클라이언트 연결 종료 또는 기한 초과 후에는 DB 검색을 시작하지 않음
+            if (RequestDeadline.isCancelled(query.context())) {
+                log.info("요청 취소됨 - 문서 검색 생략");
+                return List.of();
+            }
+
+            // 임베딩 + 벡터 검색 (추측 검색 모드는 질문 압축 대기 시간 포함)
+            long startNanos = System.nanoTime();
             List<Document> documents = delegate.retrieve(query);
+            chatMetrics.recordStage(EgovChatMetrics.RETRIEVAL, query.context(), startNanos);
 
             if (documents.isEmpty()) {
                 log.warn("RAG 문서 검색 완료 - 검색된 문서 없음 (유사도 임계값 미달 또는 관련 문서 없음)");
@@ -0,0 +1,74 @@
+package com.example.chat.config.admission;
+
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import com.example.chat.config.metrics.EgovChatMetrics;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 채팅 모델 호출 직전에 생성 허가를 획득하는 어드바이저
+ * 어드바이저 체인의 마지막(모델 호출 직전)에 위치하므로 히스토리 조회, 질문 압축, 문서 검색은 허가 없이 진행되고
+ * Ollama 생성 구간만 모델별 동시 실행 수로 제한됨
+ * - 모델: 어드바이저 컨텍스트의 EgovChatMetrics.MODEL_KEY (없으면 기본 채팅 모델)
+ * - 대기 순번 리스너: 어드바이저 컨텍스트의 EgovGenerationAdmission.QUEUE_LISTENER_KEY (선택)
+ */
+@Component
+@RequiredArgsConstructor
+public class EgovAdmissionAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private final EgovGenerationAdmission generationAdmission;
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
+        EgovGenerationAdmission.Permit permit = generationAdmission
+                .acquire(model(chatClientRequest.context()), queueListener(chatClientRequest.context()))
+                .block();
+        try {
+            return callAdvisorChain.nextCall(chatClientRequest);
+        } finally {
+            permit.release();
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+        // 생성 완료, 오류, 구독 취소(연결 종료/기한 초과) 시 허가 반환
+        return Flux.usingWhen(
+                generationAdmission.acquire(model(chatClientRequest.context()), queueListener(chatClientRequest.context())),
+                permit -> streamAdvisorChain.nextStream(chatClientRequest),
+                permit -> Mono.fromRunnable(permit::release));
+    }
+
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // 모델 호출 어드바이저(LOWEST_PRECEDENCE) 바로 앞
+        return Ordered.LOWEST_PRECEDENCE - 100;
+    }
+
+    private static String model(Map<String, Object> context) {
+        Object model = context.get(EgovChatMetrics.MODEL_KEY);
+        return model != null ? model.toString() : null;
+    }
+
+    private static IntConsumer queueListener(Map<String, Object> context) {
+        return context.get(EgovGenerationAdmission.QUEUE_LISTENER_KEY) instanceof IntConsumer listener ? listener : null;
+    }
+}
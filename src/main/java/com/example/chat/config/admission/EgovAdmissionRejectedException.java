@@ -0,0 +1,30 @@
+package com.example.chat.config.admission;
+
+/**
+ * 모델 생성 대기열이 가득 찼거나 최대 대기 시간을 넘겨 요청을 받아들이지 않을 때 발생하는 예외
+ * HTTP 응답 시작 전에는 429 + Retry-After, 이벤트 스트림 중에는 busy 이벤트로 전달
+ */
+public class EgovAdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String model;
+    private final long retryAfterSeconds;
+
+    public EgovAdmissionRejectedException(String model, long retryAfterSeconds, String message) {
+        super(message);
+        this.model = model;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * 재시도 권장 대기 시간 (초)
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
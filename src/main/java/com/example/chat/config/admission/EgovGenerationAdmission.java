@@ -0,0 +1,340 @@
+package com.example.chat.config.admission;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 모델별 생성 동시 실행 수 제한과 FIFO 대기열
+ * - 대기열은 EgovModelResolver 로 확인한 모델 이름별로 만들며, 확인되지 않은 이름은 기본 채팅 모델 대기열 사용
+ *   (별칭으로 허용 수를 우회하거나 요청 파라미터 값마다 대기열/지표가 늘어나지 않음)
+ * - 모델마다 동시 생성 허용 수(permit)만큼만 Ollama 호출을 진행하고, 나머지는 도착 순서대로 대기
+ * - 대기열이 가득 차면 즉시 거절, 최대 대기 시간을 넘기면 대기열에서 제거 후 거절
+ * - 대기 중인 요청에는 순번 변경 시마다 대기 순번(1부터, 허가 시 0)을 알림
+ * - Retry-After: (대기 인원 + 1) / 동시 허용 수 x 최근 생성 시간 평균
+ * 지표: chat.admission.active / chat.admission.queued (Gauge), chat.admission.rejected{reason} (Counter)
+ */
+@Slf4j
+@Component
+public class EgovGenerationAdmission {
+
+    /**
+     * 대기 순번 리스너(IntConsumer)를 전달하는 어드바이저 컨텍스트 키
+     */
+    public static final String QUEUE_LISTENER_KEY = "egov_admission_queue_listener";
+
+    private static final String QUEUE_FULL = "queue_full";
+    private static final String WAIT_TIMEOUT = "wait_timeout";
+
+    private final MeterRegistry meterRegistry;
+    private final EgovModelResolver modelResolver;
+    private final int defaultPermits;
+    private final Map<String, Integer> modelPermits = new HashMap<>();
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final double initialGenerationSeconds;
+    private final Map<String, ModelQueue> queues = new ConcurrentHashMap<>();
+
+    public EgovGenerationAdmission(MeterRegistry meterRegistry, EgovModelResolver modelResolver,
+                                   @Value("${chat.admission.max-concurrent:2}") int defaultPermits,
+                                   @Value("${chat.admission.models:}") String modelPermits,
+                                   @Value("${chat.admission.max-queue:8}") int maxQueue,
+                                   @Value("${chat.admission.max-wait:30s}") Duration maxWait,
+                                   @Value("${chat.admission.initial-generation-time:20s}") Duration initialGenerationTime) {
+        this.meterRegistry = meterRegistry;
+        this.modelResolver = modelResolver;
+        this.defaultPermits = Math.max(1, defaultPermits);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWait = maxWait;
+        this.initialGenerationSeconds = initialGenerationTime.toMillis() / 1000.0;
+        parseModelPermits(modelPermits);
+
+        log.info("생성 요청 동시 실행 제한 구성 - 기본 허용 수: {}, 모델별: {}, 대기열: {}, 최대 대기: {}",
+                this.defaultPermits, this.modelPermits, this.maxQueue, maxWait);
+    }
+
+    /**
+     * 응답 시작 전 빠른 거절 판단: 대기열이 가득 찬 경우 예외
+     */
+    public void checkCapacity(String model) {
+        ModelQueue queue = queueFor(model);
+        if (queue.isFull()) {
+            queue.rejected(QUEUE_FULL);
+            throw queue.rejection("생성 대기열이 가득 찼습니다");
+        }
+    }
+
+    /**
+     * 생성 허가 획득
+     * 허가는 생성이 끝나면 반드시 Permit.release()로 반환해야 함 (중복 반환은 무시)
+     *
+     * @param model 모델 이름 (null이면 기본 채팅 모델)
+     * @param positionListener 대기 순번 리스너 (null 가능)
+     */
+    public Mono<Permit> acquire(String model, IntConsumer positionListener) {
+        ModelQueue queue = queueFor(model);
+        return Mono.create(sink -> queue.enqueue(sink, positionListener));
+    }
+
+    /**
+     * 대기 없이 허가 획득 시도 (대화 요약 등 백그라운드 생성용)
+     * 남은 허가가 있고 대기 중인 요청이 없을 때만 허가하며, 대기열에 들어가지 않으므로 사용자 요청보다 앞서지 않음
+     *
+     * @param model 모델 이름 (null이면 기본 채팅 모델)
+     * @return 허가 (즉시 획득할 수 없으면 empty)
+     */
+    public Optional<Permit> tryAcquire(String model) {
+        return Optional.ofNullable(queueFor(model).tryGrant());
+    }
+
+    private ModelQueue queueFor(String model) {
+        String modelName = modelResolver.knownOrDefault(model);
+        return queues.computeIfAbsent(modelName,
+                name -> new ModelQueue(name, modelPermits.getOrDefault(name, defaultPermits)));
+    }
+
+    private void parseModelPermits(String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        // 모델 이름에 ':'가 포함되므로 마지막 '='를 기준으로 분리
+        for (String entry : value.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                log.warn("잘못된 모델별 동시 실행 수 설정 무시: '{}'", entry.trim());
+                continue;
+            }
+            modelPermits.put(EgovModelResolver.normalize(entry.substring(0, separator)),
+                    Math.max(1, Integer.parseInt(entry.substring(separator + 1).trim())));
+        }
+    }
+
+    /**
+     * 생성 허가
+     */
+    public static final class Permit {
+
+        private final ModelQueue queue;
+        private final long acquiredNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(ModelQueue queue) {
+            this.queue = queue;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                queue.release(System.nanoTime() - acquiredNanos);
+            }
+        }
+    }
+
+    private static final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        private final IntConsumer positionListener;
+        private volatile Disposable timeout;
+        private Permit permit;
+
+        private Waiter(MonoSink<Permit> sink, IntConsumer positionListener) {
+            this.sink = sink;
+            this.positionListener = positionListener;
+        }
+
+        private void notifyPosition(int position) {
+            if (positionListener != null) {
+                positionListener.accept(position);
+            }
+        }
+    }
+
+    /**
+     * 모델별 허가 상태와 대기열 (상태 변경은 모두 이 객체의 락으로 보호)
+     */
+    private final class ModelQueue {
+
+        private final String model;
+        private final int permits;
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+        private int active;
+        private double averageGenerationSeconds = initialGenerationSeconds;
+
+        private ModelQueue(String model, int permits) {
+            this.model = model;
+            this.permits = permits;
+            Gauge.builder("chat.admission.active", this, q -> q.snapshotActive())
+                    .description("모델별 진행 중인 생성 요청 수")
+                    .tag("model", model)
+                    .register(meterRegistry);
+            Gauge.builder("chat.admission.queued", this, q -> q.snapshotQueued())
+                    .description("모델별 생성 대기 중인 요청 수")
+                    .tag("model", model)
+                    .register(meterRegistry);
+        }
+
+        private void enqueue(MonoSink<Permit> sink, IntConsumer positionListener) {
+            Waiter waiter = new Waiter(sink, positionListener);
+            Permit granted = null;
+            boolean full = false;
+            int position = 0;
+            synchronized (this) {
+                if (active < permits && waiters.isEmpty()) {
+                    active++;
+                    granted = new Permit(this);
+                } else if (waiters.size() >= maxQueue) {
+                    full = true;
+                } else {
+                    waiters.addLast(waiter);
+                    position = waiters.size();
+                }
+            }
+
+            if (granted != null) {
+                sink.success(granted);
+                return;
+            }
+            if (full) {
+                rejected(QUEUE_FULL);
+                sink.error(rejection("생성 대기열이 가득 찼습니다"));
+                return;
+            }
+
+            log.info("생성 대기열 진입 - 모델: {}, 순번: {}", model, position);
+            waiter.notifyPosition(position);
+            waiter.timeout = Schedulers.parallel().schedule(() -> expire(waiter), maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            sink.onCancel(() -> cancel(waiter));
+        }
+
+        private synchronized Permit tryGrant() {
+            if (active < permits && waiters.isEmpty()) {
+                active++;
+                return new Permit(this);
+            }
+            return null;
+        }
+
+        private void release(long heldNanos) {
+            Waiter next;
+            List<Waiter> remaining;
+            synchronized (this) {
+                active--;
+                // 최근 생성 시간의 지수 이동 평균 (Retry-After 추정용)
+                averageGenerationSeconds = 0.8 * averageGenerationSeconds + 0.2 * (heldNanos / 1_000_000_000.0);
+                next = waiters.pollFirst();
+                if (next != null) {
+                    active++;
+                    next.permit = new Permit(this);
+                }
+                remaining = new ArrayList<>(waiters);
+            }
+
+            if (next != null) {
+                disposeTimeout(next);
+                next.notifyPosition(0);
+                next.sink.success(next.permit);
+            }
+            notifyPositions(remaining);
+        }
+
+        /**
+         * 최대 대기 시간 초과: 아직 대기 중이면 제거 후 거절
+         */
+        private void expire(Waiter waiter) {
+            List<Waiter> remaining;
+            synchronized (this) {
+                if (!waiters.remove(waiter)) {
+                    return;
+                }
+                remaining = new ArrayList<>(waiters);
+            }
+            log.warn("생성 대기 시간 초과 - 모델: {}, 최대 대기: {}", model, maxWait);
+            rejected(WAIT_TIMEOUT);
+            waiter.sink.error(rejection("생성 대기 시간이 초과되었습니다"));
+            notifyPositions(remaining);
+        }
+
+        /**
+         * 대기 중 구독 취소(클라이언트 연결 종료, 응답 기한 초과): 대기열에서 제거
+         * 허가 직후 취소되어 허가가 전달되지 못한 경우에는 허가를 반환
+         */
+        private void cancel(Waiter waiter) {
+            disposeTimeout(waiter);
+            boolean removed;
+            Permit orphaned;
+            List<Waiter> remaining;
+            synchronized (this) {
+                removed = waiters.remove(waiter);
+                orphaned = removed ? null : waiter.permit;
+                remaining = new ArrayList<>(waiters);
+            }
+            if (orphaned != null) {
+                orphaned.release();
+            } else if (removed) {
+                notifyPositions(remaining);
+            }
+        }
+
+        private synchronized boolean isFull() {
+            return active >= permits && waiters.size() >= maxQueue;
+        }
+
+        private synchronized int snapshotActive() {
+            return active;
+        }
+
+        private synchronized int snapshotQueued() {
+            return waiters.size();
+        }
+
+        private EgovAdmissionRejectedException rejection(String message) {
+            long retryAfter;
+            synchronized (this) {
+                retryAfter = (long) Math.ceil((waiters.size() + 1.0) / permits * averageGenerationSeconds);
+            }
+            return new EgovAdmissionRejectedException(model, Math.max(1L, retryAfter), message);
+        }
+
+        private void rejected(String reason) {
+            Counter.builder("chat.admission.rejected")
+                    .description("동시 실행 제한으로 거절된 생성 요청 수")
+                    .tag("model", model)
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .increment();
+        }
+
+        private void notifyPositions(List<Waiter> remaining) {
+            for (int i = 0; i < remaining.size(); i++) {
+                remaining.get(i).notifyPosition(i + 1);
+            }
+        }
+
+        private void disposeTimeout(Waiter waiter) {
+            Disposable timeout = waiter.timeout;
+            if (timeout != null) {
+                timeout.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.chat.config.admission;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.chat.service.EgovOllamaModelService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 요청 모델 이름 정규화 및 확인
+ * - 태그를 생략한 이름은 Ollama 규칙대로 :latest 를 붙여 같은 모델의 별칭("qwen3", "qwen3:latest")을 하나로 취급
+ * - 기본 채팅 모델과 설치된 모델 목록(EgovOllamaModelService.getModelCatalog)에 있는 모델만 허용
+ * 생성 대기열과 지표의 model 태그는 확인된 이름만 사용하므로 설치된 모델 수 이상으로 늘어나지 않음
+ */
+@Slf4j
+@Component
+public class EgovModelResolver {
+
+    /**
+     * 확인되지 않은 모델의 지표 태그 값
+     */
+    public static final String OTHER = "other";
+
+    private static final String DEFAULT_TAG = ":latest";
+
+    private final EgovOllamaModelService ollamaModelService;
+    private final String defaultModel;
+    private final Set<String> knownModels = ConcurrentHashMap.newKeySet();
+
+    public EgovModelResolver(EgovOllamaModelService ollamaModelService,
+                             @Value("${spring.ai.ollama.chat.model:}") String defaultModel) {
+        this.ollamaModelService = ollamaModelService;
+        this.defaultModel = normalize(defaultModel);
+        if (!this.defaultModel.isEmpty()) {
+            knownModels.add(this.defaultModel);
+        }
+    }
+
+    /**
+     * 모델 이름 정규화 (앞뒤 공백 제거, 태그 생략 시 :latest)
+     *
+     * @return 정규화한 이름 (null 또는 빈 이름이면 빈 문자열)
+     */
+    public static String normalize(String model) {
+        if (model == null || model.isBlank()) {
+            return "";
+        }
+        String name = model.strip();
+        // 네임스페이스(hf.co/org/model)의 ':'는 태그가 아니므로 마지막 '/' 이후에서만 확인
+        return name.indexOf(':', name.lastIndexOf('/') + 1) < 0 ? name + DEFAULT_TAG : name;
+    }
+
+    /**
+     * 요청 모델 확인 (생성 요청 시작 전 호출)
+     *
+     * @param model 요청 모델 이름
+     * @return 정규화한 모델 이름 (미지정이면 null - 기본 채팅 모델 옵션 그대로 사용)
+     * @throws EgovUnknownModelException 기본 채팅 모델이 아니고 설치된 모델 목록에도 없는 경우
+     */
+    public String resolve(String model) {
+        String name = normalize(model);
+        if (name.isEmpty()) {
+            return null;
+        }
+        if (knownModels.contains(name)) {
+            return name;
+        }
+        for (String installed : ollamaModelService.getModelCatalog().models()) {
+            if (normalize(installed).equals(name)) {
+                knownModels.add(name);
+                return name;
+            }
+        }
+        throw new EgovUnknownModelException(model.strip());
+    }
+
+    /**
+     * 확인된 모델 이름, 확인되지 않은 이름은 기본 채팅 모델 (생성 대기열 키)
+     */
+    public String knownOrDefault(String model) {
+        String name = known(model);
+        return name != null ? name : defaultModel;
+    }
+
+    /**
+     * 확인된 모델 이름, 확인되지 않은 이름은 OTHER (지표 태그)
+     */
+    public String knownOrOther(String model) {
+        String name = known(model);
+        return name != null ? name : OTHER;
+    }
+
+    private String known(String model) {
+        if (model == null || model.isBlank()) {
+            return defaultModel;
+        }
+        try {
+            return resolve(model);
+        } catch (EgovUnknownModelException e) {
+            log.debug("확인되지 않은 모델 이름: {}", e.getModel());
+            return null;
+        }
+    }
+}
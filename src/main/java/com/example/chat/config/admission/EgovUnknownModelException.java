@@ -0,0 +1,21 @@
+package com.example.chat.config.admission;
+
+/**
+ * 설치되지 않은 모델 이름으로 생성을 요청할 때 발생하는 예외
+ * HTTP 응답 시작 전에 400 으로 전달
+ */
+public class EgovUnknownModelException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String model;
+
+    public EgovUnknownModelException(String model) {
+        super("설치되지 않은 모델입니다: " + model);
+        this.model = model;
+    }
+
+    public String getModel() {
+        return model;
+    }
+}
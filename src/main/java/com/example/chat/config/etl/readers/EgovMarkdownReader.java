@@ -6,6 +6,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -71,6 +73,9 @@ public class EgovMarkdownReader implements DocumentReader {
         }
 
         Map<String, Object> metadata = createEnhancedMetadata(filename, content);
+        // 날짜 범위 검색 필터용 최종 수정일 (yyyy-MM-dd)
+        metadata.put("last_modified", Instant.ofEpochMilli(resource.lastModified())
+                .atZone(ZoneId.systemDefault()).toLocalDate().toString());
         String docId = "doc-" + filename
                 .replaceAll("[\\/:*?\"<>|]", "")
                 .replaceAll("\\s+", "-");
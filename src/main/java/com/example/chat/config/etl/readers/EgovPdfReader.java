@@ -1,5 +1,7 @@
 package com.example.chat.config.etl.readers;
 
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -76,8 +78,12 @@ public class EgovPdfReader implements DocumentReader {
                     }
 
                     // Document ID를 파일명과 페이지 기반으로 재생성
+                    // 날짜 범위 검색 필터용 최종 수정일 (yyyy-MM-dd)
+                    String lastModified = Instant.ofEpochMilli(resource.lastModified())
+                        .atZone(ZoneId.systemDefault()).toLocalDate().toString();
+
                     List<Document> documentsWithCustomIds = createDocumentsWithCustomIds(
-                        documents, resource.getFilename());
+                        documents, resource.getFilename(), lastModified);
 
                     log.info("PDF 파일 '{}'에서 {}개의 문서를 커스텀 ID로 변환했습니다.",
                         resource.getFilename(), documentsWithCustomIds.size());
@@ -102,7 +108,7 @@ public class EgovPdfReader implements DocumentReader {
     /**
      * Document ID를 파일명과 페이지 기반으로 재생성
      */
-    private List<Document> createDocumentsWithCustomIds(List<Document> documents, String filename) {
+    private List<Document> createDocumentsWithCustomIds(List<Document> documents, String filename, String lastModified) {
         List<Document> documentsWithCustomIds = new ArrayList<>();
 
         for (int i = 0; i < documents.size(); i++) {
@@ -132,6 +138,7 @@ public class EgovPdfReader implements DocumentReader {
             document.getMetadata().put("source", filename);
             document.getMetadata().put("type", "pdf");
             document.getMetadata().put("content_length", content.length());
+            document.getMetadata().put("last_modified", lastModified);
 
             log.debug("PDF Document ID 변경: {} -> {} (길이: {})", document.getId(), customId, content.length());
 
@@ -0,0 +1,259 @@
+package com.example.chat.config.memory;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.example.chat.config.admission.EgovGenerationAdmission;
+import com.example.chat.config.metrics.EgovChatMetrics;
+import com.example.chat.entity.ChatMemorySummaryEntity;
+import com.example.chat.repository.ChatMemorySummaryRepository;
+import com.example.chat.repository.EgovAppendOnlyChatMemoryRepository;
+import com.example.chat.repository.EgovAppendOnlyChatMemoryRepository.HistoryEntry;
+import com.example.chat.repository.EgovAppendOnlyChatMemoryRepository.HistoryPosition;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 대화 누적 요약 생성기
+ * 윈도우(chat.memory.max-messages) 밖으로 밀려난 메시지를 기존 요약과 합쳐 새 요약으로 갱신하고
+ * egov_chat_memory_summary 테이블에 세션당 1행으로 저장
+ * - 요약은 응답 완료 후 chatSummaryExecutor 에서 실행되며 요청 경로에서는 캐시된 요약만 조회
+ * - 요약되지 않은 메시지가 minBatch 개 이상 쌓였을 때만 LLM 호출 (한 번에 최대 maxBatch 개)
+ * - LLM 호출은 생성 동시 실행 제한(EgovGenerationAdmission)의 남은 허가가 있을 때만 실행하며,
+ *   대기열에 들어가지 않으므로 사용자 요청의 순서를 빼앗거나 요약 스레드가 대기하지 않음 (허가가 없으면 다음 턴에 재시도)
+ * - 요약 대상은 실제 프롬프트에 포함된 메시지(토큰 예산 적용 시 예산 안의 메시지)보다 앞선 메시지
+ * 윈도우 밖 메시지를 읽어야 하므로 chat.memory.retain-history=true 가 필요 (false 이면 시작 시 오류)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "chat.memory.summary.enabled", havingValue = "true")
+public class EgovConversationSummarizer {
+
+    /**
+     * 요약 프롬프트
+     * /no_think: Qwen3 등 하이브리드 추론 모델의 추론 출력 비활성화 지시어
+     */
+    private static final PromptTemplate SUMMARY_PROMPT = new PromptTemplate("""
+            /no_think
+            You maintain a running summary of a conversation between a user and an assistant.
+            Update the existing summary with the new messages below.
+            Keep facts, decisions, names, numbers and open questions the user may refer to later,
+            and drop greetings and repetition.
+            Answer with the updated summary only, as plain prose in the same language as the conversation,
+            without any explanation or reasoning.
+
+            Existing summary:
+            {summary}
+
+            New messages:
+            {messages}
+
+            Updated summary:
+            """);
+
+    private static final Pattern THINK_TAG_PATTERN = Pattern.compile("<think>.*?</think>",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+
+    private final EgovAppendOnlyChatMemoryRepository memoryRepository;
+    private final ChatMemorySummaryRepository summaryRepository;
+    private final ChatClient summaryClient;
+    private final EgovGenerationAdmission generationAdmission;
+    private final EgovChatMetrics chatMetrics;
+    private final ThreadPoolTaskExecutor executor;
+    private final String model;
+    private final int maxMessages;
+    private final int minBatch;
+    private final int maxBatch;
+    private final Cache<String, Optional<Summary>> summaries;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public EgovConversationSummarizer(EgovAppendOnlyChatMemoryRepository memoryRepository,
+                                      ChatMemorySummaryRepository summaryRepository,
+                                      ChatClient chatClient,
+                                      EgovGenerationAdmission generationAdmission,
+                                      EgovChatMetrics chatMetrics,
+                                      @Qualifier("chatSummaryExecutor") ThreadPoolTaskExecutor executor,
+                                      @Value("${chat.memory.max-messages:10}") int maxMessages,
+                                      @Value("${chat.memory.retain-history:false}") boolean retainHistory,
+                                      @Value("${chat.memory.summary.model:}") String model,
+                                      @Value("${chat.memory.summary.num-predict:384}") int numPredict,
+                                      @Value("${chat.memory.summary.min-batch:4}") int minBatch,
+                                      @Value("${chat.memory.summary.max-batch:40}") int maxBatch,
+                                      @Value("${chat.memory.cache.max-sessions:10000}") long cacheMaxSessions,
+                                      @Value("${chat.memory.cache.expire-after-access:30m}") Duration cacheExpireAfterAccess) {
+        if (!retainHistory) {
+            // 윈도우 밖 행이 요약 전에 삭제되어 요약할 메시지를 읽을 수 없음
+            throw new IllegalStateException(
+                    "chat.memory.summary.enabled=true 는 chat.memory.retain-history=true 가 필요합니다");
+        }
+        this.memoryRepository = memoryRepository;
+        this.summaryRepository = summaryRepository;
+        this.generationAdmission = generationAdmission;
+        this.chatMetrics = chatMetrics;
+        this.executor = executor;
+        this.model = model == null || model.isBlank() ? null : model;
+        this.maxMessages = maxMessages;
+        this.minBatch = Math.max(1, minBatch);
+        this.maxBatch = Math.max(this.minBatch, maxBatch);
+
+        // 모델 미지정 시 기본 채팅 모델 사용, 출력 토큰 수를 제한하여 요약 길이(= 프롬프트 증가분)를 고정
+        OllamaOptions summaryOptions = OllamaOptions.builder()
+                .model(this.model)
+                .temperature(0.0)
+                .numPredict(numPredict)
+                .build();
+        this.summaryClient = chatClient.mutate().defaultOptions(summaryOptions).build();
+
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSessions)
+                .expireAfterAccess(cacheExpireAfterAccess)
+                .build();
+
+        log.info("대화 요약 구성 - 모델: {}, 최대 출력 토큰: {}, 요약 단위: {}~{}개 메시지",
+                this.model != null ? this.model : "기본 채팅 모델", numPredict, this.minBatch, this.maxBatch);
+    }
+
+    /**
+     * 저장된 요약 조회 (요청 경로, 캐시 우선)
+     *
+     * @return 요약이 없거나 조회에 실패하면 null
+     */
+    public String getSummary(String conversationId) {
+        try {
+            return summaries.get(conversationId, this::loadSummary).map(Summary::text).orElse(null);
+        } catch (Exception e) {
+            log.warn("세션 {} 대화 요약 조회 실패 - 요약 없이 진행: {}", conversationId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 요약 갱신 요청 (비동기)
+     * 같은 세션의 요약이 이미 진행 중이거나 대기열이 가득 차면 무시 (다음 응답 완료 시 다시 요청됨)
+     *
+     * @param promptMessages 다음 프롬프트에 포함될 최근 사용자/어시스턴트 메시지 수 (이보다 앞선 메시지가 요약 대상)
+     */
+    public void requestSummary(String conversationId, int promptMessages) {
+        if (!inFlight.add(conversationId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    summarize(conversationId, Math.min(promptMessages, maxMessages));
+                } catch (Exception e) {
+                    log.error("세션 {} 대화 요약 중 오류 발생", conversationId, e);
+                } finally {
+                    inFlight.remove(conversationId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(conversationId);
+            log.debug("대화 요약 대기열이 가득 참 - 세션 {} 요약 생략", conversationId);
+        }
+    }
+
+    /**
+     * 세션 요약 삭제
+     */
+    public void deleteSummary(String conversationId) {
+        summaryRepository.deleteById(conversationId);
+        summaries.invalidate(conversationId);
+    }
+
+    /**
+     * 일괄 삭제/보관된 세션의 캐시된 요약 제거 (요약 행은 호출 측에서 삭제)
+     */
+    public void evict(Collection<String> conversationIds) {
+        summaries.invalidateAll(conversationIds);
+    }
+
+    private void summarize(String conversationId, int promptMessages) {
+        // 프롬프트에 포함된 메시지보다 앞선 메시지가 없으면 요약할 대상이 없음
+        List<HistoryEntry> recent = memoryRepository.findHistory(conversationId, null, promptMessages + 1);
+        if (recent.size() <= promptMessages) {
+            return;
+        }
+        HistoryPosition windowStart = promptMessages > 0
+                ? recent.get(promptMessages - 1).position()
+                : HistoryPosition.endOf(recent.get(0).timestamp());
+
+        Summary current = summaries.get(conversationId, this::loadSummary).orElse(null);
+        HistoryPosition coveredUntil = current != null ? current.coveredUntil() : HistoryPosition.startOf(0L);
+        List<HistoryEntry> pending = memoryRepository.findHistoryBetween(conversationId, coveredUntil, windowStart,
+                maxBatch);
+        if (pending.size() < minBatch) {
+            return;
+        }
+
+        Optional<EgovGenerationAdmission.Permit> acquired = generationAdmission.tryAcquire(model);
+        if (acquired.isEmpty()) {
+            log.info("생성 허가 여유 없음 - 세션 {} 요약 생략 (다음 응답 완료 시 재시도)", conversationId);
+            return;
+        }
+        EgovGenerationAdmission.Permit permit = acquired.get();
+
+        long startNanos = System.nanoTime();
+        String text;
+        try {
+            String prompt = SUMMARY_PROMPT.render(Map.<String, Object>of(
+                    "summary", current != null ? current.text() : "(none)",
+                    "messages", pending.stream()
+                            .map(entry -> entry.messageType().name() + ": " + entry.content())
+                            .collect(Collectors.joining("\n"))));
+            text = summaryClient.prompt().user(prompt).call().content();
+        } finally {
+            permit.release();
+        }
+        chatMetrics.recordStage(EgovChatMetrics.MEMORY_SUMMARY, EgovChatMetrics.BACKGROUND_ENDPOINT, model, startNanos);
+
+        text = text == null ? "" : THINK_TAG_PATTERN.matcher(text).replaceAll("").trim();
+        if (text.isEmpty()) {
+            log.warn("세션 {} 요약 결과가 비어 있음 - 기존 요약 유지", conversationId);
+            return;
+        }
+
+        HistoryPosition summarizedUntil = pending.get(pending.size() - 1).position();
+        summaryRepository.save(new ChatMemorySummaryEntity(conversationId, text,
+                new Timestamp(summarizedUntil.timestamp()).toLocalDateTime(), summarizedUntil.id(), LocalDateTime.now()));
+        summaries.put(conversationId, Optional.of(new Summary(text, summarizedUntil)));
+        log.info("세션 {} 대화 요약 갱신 - 반영 메시지: {}개, 요약 길이: {}자", conversationId, pending.size(), text.length());
+    }
+
+    private Optional<Summary> loadSummary(String conversationId) {
+        return summaryRepository.findById(conversationId)
+                .map(entity -> {
+                    long coveredTimestamp = Timestamp.valueOf(entity.getCoveredUntil()).getTime();
+                    return new Summary(entity.getSummary(), entity.getCoveredUntilId() != null
+                            ? new HistoryPosition(coveredTimestamp, entity.getCoveredUntilId())
+                            : HistoryPosition.endOf(coveredTimestamp));
+                });
+    }
+
+    /**
+     * @param coveredUntil 요약에 반영된 마지막 메시지의 위치
+     */
+    private record Summary(String text, HistoryPosition coveredUntil) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.chat.config.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.lang.NonNull;
+
+/**
+ * 누적 요약 + 최근 윈도우 ChatMemory
+ * 조회 시 저장된 대화 요약을 시스템 메시지로 윈도우 앞에 추가하고,
+ * 어시스턴트 응답이 저장되면 프롬프트 윈도우 밖으로 밀려난 메시지의 요약 갱신을 비동기로 요청
+ * (프롬프트 윈도우는 delegate 조회 결과 기준이므로 토큰 예산으로 제외된 메시지도 요약 대상)
+ * 요약 메시지는 조회 결과에만 추가되며 대화 저장소에는 저장되지 않음
+ */
+public class EgovSummarizingChatMemory implements ChatMemory {
+
+    private static final String SUMMARY_HEADER = "이전 대화 요약:\n";
+
+    private final ChatMemory delegate;
+    private final EgovConversationSummarizer summarizer;
+
+    public EgovSummarizingChatMemory(ChatMemory delegate, EgovConversationSummarizer summarizer) {
+        this.delegate = delegate;
+        this.summarizer = summarizer;
+    }
+
+    @Override
+    public void add(@NonNull String conversationId, @NonNull List<Message> messages) {
+        delegate.add(conversationId, messages);
+        // 턴이 끝난 시점(어시스턴트 응답 저장)에만 요약 필요 여부 확인
+        if (messages.stream().anyMatch(message -> message.getMessageType() == MessageType.ASSISTANT)) {
+            summarizer.requestSummary(conversationId, promptMessageCount(conversationId));
+        }
+    }
+
+    @Override
+    @NonNull
+    public List<Message> get(@NonNull String conversationId) {
+        List<Message> window = delegate.get(conversationId);
+        String summary = summarizer.getSummary(conversationId);
+        if (summary == null) {
+            return window;
+        }
+        List<Message> messages = new ArrayList<>(window.size() + 1);
+        messages.add(new SystemMessage(SUMMARY_HEADER + summary));
+        messages.addAll(window);
+        return messages;
+    }
+
+    /**
+     * 다음 프롬프트에 실제로 포함될 사용자/어시스턴트 메시지 수 (캐시된 윈도우에서 계산)
+     */
+    private int promptMessageCount(String conversationId) {
+        return (int) delegate.get(conversationId).stream()
+                .filter(message -> message.getMessageType() == MessageType.USER
+                        || message.getMessageType() == MessageType.ASSISTANT)
+                .count();
+    }
+
+    @Override
+    public void clear(@NonNull String conversationId) {
+        delegate.clear(conversationId);
+        summarizer.deleteSummary(conversationId);
+    }
+}
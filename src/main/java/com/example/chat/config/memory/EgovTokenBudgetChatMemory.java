@@ -0,0 +1,51 @@
+package com.example.chat.config.memory;
+
+import java.util.List;
+
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.lang.NonNull;
+
+import com.example.chat.repository.EgovAppendOnlyChatMemoryRepository;
+
+/**
+ * 토큰 예산 기반 ChatMemory
+ * 저장은 메시지 수 윈도우(delegate)를 그대로 따르고, 조회 시에는 저장 시점에 계산해 둔 메시지별 토큰 수로
+ * 예산(maxTokens) 안에 들어가는 최근 메시지만 반환하여 세션마다 프롬프트 길이(prefill 시간)를 일정하게 유지
+ * 이력 보존(chat.memory.retain-history) 중이면 윈도우 이전 보존 이력까지 읽어 예산을 채우고,
+ * 보존하지 않으면 메시지 수 윈도우(chat.memory.max-messages)가 예산과 별개의 상한으로 동작
+ */
+public class EgovTokenBudgetChatMemory implements ChatMemory {
+
+    private final ChatMemory delegate;
+    private final EgovAppendOnlyChatMemoryRepository chatMemoryRepository;
+    private final int maxTokens;
+    private final boolean beyondWindow;
+
+    /**
+     * @param beyondWindow 윈도우 이전 보존 이력까지 예산으로 채울지 여부
+     */
+    public EgovTokenBudgetChatMemory(ChatMemory delegate, EgovAppendOnlyChatMemoryRepository chatMemoryRepository,
+                                     int maxTokens, boolean beyondWindow) {
+        this.delegate = delegate;
+        this.chatMemoryRepository = chatMemoryRepository;
+        this.maxTokens = maxTokens;
+        this.beyondWindow = beyondWindow;
+    }
+
+    @Override
+    public void add(@NonNull String conversationId, @NonNull List<Message> messages) {
+        delegate.add(conversationId, messages);
+    }
+
+    @Override
+    @NonNull
+    public List<Message> get(@NonNull String conversationId) {
+        return chatMemoryRepository.findByConversationIdWithinBudget(conversationId, maxTokens, beyondWindow);
+    }
+
+    @Override
+    public void clear(@NonNull String conversationId) {
+        delegate.clear(conversationId);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.chat.config.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.example.chat.config.admission.EgovModelResolver;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 채팅 요청 처리 단계별 지연 시간 지표
+ * - chat.stage.duration{stage, endpoint, model}: 단계별 소요 시간 (Timer)
+ * - chat.generation.tokens.per.second{endpoint, model}: 생성 속도 (DistributionSummary)
+ * - chat.requests.cancelled{endpoint, model, reason}: 클라이언트 연결 종료/기한 초과로 중단된 요청 수
+ * 단계 내부(어드바이저, QueryTransformer, DocumentRetriever)에서는 어드바이저 컨텍스트의
+ * ENDPOINT_KEY / MODEL_KEY 값으로 태그를 구성
+ * model 태그는 EgovModelResolver 로 확인한 모델 이름 (확인되지 않은 이름은 "other") - 요청 파라미터 값마다 지표가 늘어나지 않음
+ * 백분위수(p50/p99)와 히스토그램은 management.metrics.distribution 설정으로 활성화
+ */
+@Component
+public class EgovChatMetrics {
+
+    public static final String ENDPOINT_KEY = "egov_metrics_endpoint";
+    public static final String MODEL_KEY = "egov_metrics_model";
+
+    public static final String STAGE_TIMER = "chat.stage.duration";
+    public static final String TOKENS_PER_SECOND = "chat.generation.tokens.per.second";
+    public static final String CANCELLED_REQUESTS = "chat.requests.cancelled";
+
+    // 중단 사유
+    public static final String CLIENT_DISCONNECT = "client_disconnect";
+    public static final String DEADLINE_EXCEEDED = "deadline_exceeded";
+
+    // 단계 이름
+    public static final String SESSION_BOOKKEEPING = "session_bookkeeping";
+    public static final String MEMORY_LOAD = "memory_load";
+    public static final String QUERY_COMPRESSION = "query_compression";
+    public static final String QUERY_EMBEDDING = "query_embedding";
+    public static final String VECTOR_SEARCH = "vector_search";
+    public static final String RETRIEVAL = "retrieval";
+    public static final String TIME_TO_FIRST_TOKEN = "time_to_first_token";
+    public static final String TOTAL = "total";
+    public static final String MEMORY_WRITE = "memory_write";
+    public static final String MEMORY_SUMMARY = "memory_summary";
+
+    // 요청 경로 밖에서 실행되는 작업의 엔드포인트 태그
+    public static final String BACKGROUND_ENDPOINT = "background";
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final EgovModelResolver modelResolver;
+
+    public EgovChatMetrics(MeterRegistry meterRegistry, EgovModelResolver modelResolver) {
+        this.meterRegistry = meterRegistry;
+        this.modelResolver = modelResolver;
+    }
+
+    /**
+     * 지표 태그용 모델 이름 (미지정 시 기본 채팅 모델, 확인되지 않은 이름은 "other")
+     */
+    public String resolveModel(String model) {
+        String name = modelResolver.knownOrOther(model);
+        return name.isEmpty() ? UNKNOWN : name;
+    }
+
+    /**
+     * 단계 소요 시간 기록
+     *
+     * @param startNanos System.nanoTime() 기준 시작 시각
+     */
+    public void recordStage(String stage, String endpoint, String model, long startNanos) {
+        Timer.builder(STAGE_TIMER)
+                .description("채팅 요청 처리 단계별 소요 시간")
+                .tag("stage", stage)
+                .tag("endpoint", endpoint != null ? endpoint : UNKNOWN)
+                .tag("model", resolveModel(model))
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 어드바이저 컨텍스트의 엔드포인트/모델 태그로 단계 소요 시간 기록
+     */
+    public void recordStage(String stage, Map<String, Object> context, long startNanos) {
+        recordStage(stage, stringValue(context.get(ENDPOINT_KEY)), stringValue(context.get(MODEL_KEY)), startNanos);
+    }
+
+    /**
+     * 생성 속도(초당 토큰 수) 기록
+     */
+    public void recordTokensPerSecond(String endpoint, String model, double tokensPerSecond) {
+        DistributionSummary.builder(TOKENS_PER_SECOND)
+                .description("LLM 응답 생성 속도 (초당 토큰 수)")
+                .baseUnit("tokens/s")
+                .tag("endpoint", endpoint != null ? endpoint : UNKNOWN)
+                .tag("model", resolveModel(model))
+                .register(meterRegistry)
+                .record(tokensPerSecond);
+    }
+
+    /**
+     * 중단된 요청 수 기록
+     *
+     * @param reason CLIENT_DISCONNECT 또는 DEADLINE_EXCEEDED
+     */
+    public void recordCancellation(String endpoint, String model, String reason) {
+        Counter.builder(CANCELLED_REQUESTS)
+                .description("클라이언트 연결 종료 또는 응답 기한 초과로 중단된 채팅 요청 수")
+                .tag("endpoint", endpoint != null ? endpoint : UNKNOWN)
+                .tag("model", resolveModel(model))
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String stringValue(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.chat.config.metrics;
+
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * MessageChatMemoryAdvisor의 히스토리 조회(before)와 응답 저장(after) 시간을 측정하는 어드바이저
+ * 스트리밍 응답은 MessageChatMemoryAdvisor와 동일하게 전체 응답을 모은 뒤 저장
+ */
+public class EgovTimedChatMemoryAdvisor implements BaseChatMemoryAdvisor {
+
+    private final MessageChatMemoryAdvisor delegate;
+    private final EgovChatMetrics chatMetrics;
+
+    public EgovTimedChatMemoryAdvisor(MessageChatMemoryAdvisor delegate, EgovChatMetrics chatMetrics) {
+        this.delegate = delegate;
+        this.chatMetrics = chatMetrics;
+    }
+
+    @Override
+    public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+        long startNanos = System.nanoTime();
+        try {
+            return delegate.before(chatClientRequest, advisorChain);
+        } finally {
+            chatMetrics.recordStage(EgovChatMetrics.MEMORY_LOAD, chatClientRequest.context(), startNanos);
+        }
+    }
+
+    @Override
+    public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+        long startNanos = System.nanoTime();
+        try {
+            return delegate.after(chatClientResponse, advisorChain);
+        } finally {
+            chatMetrics.recordStage(EgovChatMetrics.MEMORY_WRITE, chatClientResponse.context(), startNanos);
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+        return Mono.just(chatClientRequest)
+                .publishOn(getScheduler())
+                .map(request -> this.before(request, streamAdvisorChain))
+                .flatMapMany(streamAdvisorChain::nextStream)
+                .transform(flux -> new ChatClientMessageAggregator().aggregateChatClientResponse(flux,
+                        response -> this.after(response, streamAdvisorChain)));
+    }
+
+    @Override
+    public Scheduler getScheduler() {
+        return delegate.getScheduler();
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate.getOrder();
+    }
+}
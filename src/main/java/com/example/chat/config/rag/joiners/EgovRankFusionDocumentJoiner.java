@@ -0,0 +1,62 @@
+package com.example.chat.config.rag.joiners;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.join.DocumentJoiner;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 여러 하위 질문의 검색 결과를 RRF(Reciprocal Rank Fusion)로 합치는 DocumentJoiner
+ * score(d) = Σ 1 / (k + rank_q(d)), rank는 각 하위 질문 결과 내 1부터 시작하는 순위
+ * 같은 청크 ID는 하나로 합치며, 여러 하위 질문에서 상위에 나온 청크일수록 앞에 위치
+ */
+@Slf4j
+public class EgovRankFusionDocumentJoiner implements DocumentJoiner {
+
+    public static final String RRF_SCORE_KEY = "rrf_score";
+
+    private final int k;
+
+    public EgovRankFusionDocumentJoiner(int k) {
+        this.k = Math.max(1, k);
+    }
+
+    @Override
+    public List<Document> join(Map<Query, List<List<Document>>> documentsForQuery) {
+        Map<String, Document> documentsById = new LinkedHashMap<>();
+        Map<String, Double> fusedScores = new HashMap<>();
+        int resultLists = 0;
+
+        for (List<List<Document>> documentLists : documentsForQuery.values()) {
+            for (List<Document> documents : documentLists) {
+                resultLists++;
+                for (int rank = 0; rank < documents.size(); rank++) {
+                    Document document = documents.get(rank);
+                    documentsById.putIfAbsent(document.getId(), document);
+                    fusedScores.merge(document.getId(), 1.0 / (k + rank + 1), Double::sum);
+                }
+            }
+        }
+
+        List<Document> fused = new ArrayList<>(documentsById.size());
+        for (Document document : documentsById.values()) {
+            double score = fusedScores.get(document.getId());
+            Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+            metadata.put(RRF_SCORE_KEY, score);
+            fused.add(document.mutate().metadata(metadata).score(score).build());
+        }
+        fused.sort(Comparator.comparing(Document::getScore, Comparator.reverseOrder()));
+
+        log.info("RRF 결과 병합 - 하위 질문: {}개, 결과 목록: {}개, 병합 문서: {}개",
+                documentsForQuery.size(), resultLists, fused.size());
+        return fused;
+    }
+}
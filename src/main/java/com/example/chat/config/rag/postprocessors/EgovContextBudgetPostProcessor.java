@@ -0,0 +1,274 @@
+package com.example.chat.config.rag.postprocessors;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.core.Ordered;
+
+import com.example.chat.config.rag.joiners.EgovRankFusionDocumentJoiner;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 토큰 예산 안에서 LLM 컨텍스트를 구성하는 DocumentPostProcessor
+ * 1. 최고 점수 대비 점수 차이가 큰 하위 문서 제거 (점수 출처에 따라 0~1 범위로 정규화한 점수 사용)
+ * 2. 같은 원본의 겹치는/인접한 청크 병합
+ * 3. 점수 순(MMR 사용 시 입력 순서)으로 예산까지 채우고, 넘치는 문서는 문장 경계에서 잘라냄
+ */
+@Slf4j
+public class EgovContextBudgetPostProcessor implements DocumentPostProcessor, Ordered {
+
+    public static final String MERGED_IDS_KEY = "merged_ids";
+    public static final String TRIMMED_KEY = "context_trimmed";
+
+    // 잘라낸 문서가 이보다 적은 토큰만 남길 수 있다면 추가하지 않음
+    private static final int MIN_TRIMMED_TOKENS = 32;
+
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    private final int maxContextTokens;
+    private final double maxScoreGap;
+    private final int minOverlapChars;
+    private final boolean preserveInputOrder;
+
+    /**
+     * @param preserveInputOrder 입력 순서 유지 여부 (MMR 다양성 순서를 점수 순으로 되돌리지 않도록 MMR 사용 시 true)
+     */
+    public EgovContextBudgetPostProcessor(int maxContextTokens, double maxScoreGap, int minOverlapChars,
+                                          boolean preserveInputOrder) {
+        this.maxContextTokens = maxContextTokens;
+        this.maxScoreGap = maxScoreGap;
+        this.minOverlapChars = minOverlapChars;
+        this.preserveInputOrder = preserveInputOrder;
+    }
+
+    /**
+     * 검색 문서 토큰 예산 = 모델 컨텍스트 크기(num_ctx) x 컨텍스트 비율 (maxTokens 지정 시 해당 값)
+     */
+    public static int contextBudget(int numCtx, double budgetRatio, int maxTokens) {
+        return maxTokens > 0 ? maxTokens : (int) (numCtx * budgetRatio);
+    }
+
+    @Override
+    public List<Document> process(Query query, List<Document> documents) {
+        if (documents.isEmpty()) {
+            return documents;
+        }
+
+        List<Document> ordered = preserveInputOrder ? documents : documents.stream()
+                .sorted(Comparator.comparing(EgovContextBudgetPostProcessor::scoreOf).reversed())
+                .toList();
+
+        // 1단계: 하위 점수 문서 제거
+        Document top = ordered.stream()
+                .max(Comparator.comparing(EgovContextBudgetPostProcessor::scoreOf))
+                .orElseThrow();
+        double topScore = scoreOf(top);
+        double topNormalized = normalizedScore(top, topScore);
+        List<Document> relevant = ordered.stream()
+                .filter(doc -> topNormalized - normalizedScore(doc, topScore) <= maxScoreGap)
+                .toList();
+
+        // 2단계: 겹치는/인접한 청크 병합
+        List<Document> merged = mergeNeighbors(relevant);
+
+        // 3단계: 토큰 예산 적용
+        List<Document> packed = new ArrayList<>();
+        int usedTokens = 0;
+        int originalTokens = 0;
+        for (Document doc : merged) {
+            int tokens = tokenCountEstimator.estimate(doc.getText());
+            originalTokens += tokens;
+            int remaining = maxContextTokens - usedTokens;
+
+            if (tokens <= remaining) {
+                packed.add(doc);
+                usedTokens += tokens;
+                continue;
+            }
+
+            if (remaining >= MIN_TRIMMED_TOKENS) {
+                String trimmed = trimToSentences(doc.getText(), remaining);
+                if (!trimmed.isEmpty()) {
+                    Map<String, Object> metadata = new HashMap<>(doc.getMetadata());
+                    metadata.put(TRIMMED_KEY, true);
+                    packed.add(doc.mutate().text(trimmed).metadata(metadata).build());
+                    usedTokens += tokenCountEstimator.estimate(trimmed);
+                }
+            }
+            break;
+        }
+
+        log.info("컨텍스트 예산 적용 - 문서: {}개 → 점수 필터 {}개 → 병합 {}개 → 최종 {}개, 토큰: {} → {} (예산: {})",
+                documents.size(), relevant.size(), merged.size(), packed.size(), originalTokens, usedTokens, maxContextTokens);
+        return packed;
+    }
+
+    /**
+     * 같은 원본(source)의 청크 중 내용이 겹치거나 PDF 페이지가 연속된 청크를 하나로 병합
+     * 병합된 문서는 그룹 내 최고 점수를 가지며, 결과는 점수 순서(입력 순서 유지 시 그룹 내 가장 앞선 청크의 위치)로 정렬
+     */
+    private List<Document> mergeNeighbors(List<Document> documents) {
+        Map<String, Integer> inputPositions = new HashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            inputPositions.putIfAbsent(documents.get(i).getId(), i);
+        }
+
+        Map<Object, List<Document>> bySource = new LinkedHashMap<>();
+        for (Document doc : documents) {
+            Object source = doc.getMetadata().getOrDefault("source", doc.getId());
+            bySource.computeIfAbsent(source, key -> new ArrayList<>()).add(doc);
+        }
+
+        List<Document> merged = new ArrayList<>();
+        for (List<Document> group : bySource.values()) {
+            if (group.size() == 1) {
+                merged.add(group.get(0));
+                continue;
+            }
+
+            // 페이지 번호가 있으면 문서 내 순서대로 정렬해야 인접 여부를 판단할 수 있음
+            List<Document> ordered = new ArrayList<>(group);
+            ordered.sort(Comparator.comparingInt(EgovContextBudgetPostProcessor::pageOf));
+
+            Document current = ordered.get(0);
+            int lastPage = pageOf(current);
+            for (int i = 1; i < ordered.size(); i++) {
+                Document next = ordered.get(i);
+                int overlap = overlapLength(current.getText(), next.getText());
+                boolean adjacentPage = lastPage > 0 && pageOf(next) - lastPage <= 1;
+
+                if (overlap >= minOverlapChars || adjacentPage) {
+                    current = merge(current, next, overlap);
+                } else {
+                    merged.add(current);
+                    current = next;
+                }
+                lastPage = pageOf(next);
+            }
+            merged.add(current);
+        }
+
+        if (preserveInputOrder) {
+            merged.sort(Comparator.comparingInt(doc -> inputPosition(doc, inputPositions)));
+        } else {
+            merged.sort(Comparator.comparing(EgovContextBudgetPostProcessor::scoreOf).reversed());
+        }
+        return merged;
+    }
+
+    /**
+     * 병합된 청크 중 입력 목록에서 가장 앞선 위치
+     */
+    private static int inputPosition(Document document, Map<String, Integer> inputPositions) {
+        int position = inputPositions.getOrDefault(document.getId(), Integer.MAX_VALUE);
+        if (document.getMetadata().get(MERGED_IDS_KEY) instanceof List<?> ids) {
+            for (Object id : ids) {
+                position = Math.min(position, inputPositions.getOrDefault(String.valueOf(id), Integer.MAX_VALUE));
+            }
+        }
+        return position;
+    }
+
+    private Document merge(Document first, Document second, int overlap) {
+        String text = first.getText() + (overlap > 0 ? "" : "\n") + second.getText().substring(overlap);
+
+        Map<String, Object> metadata = new HashMap<>(first.getMetadata());
+        List<Object> mergedIds = new ArrayList<>();
+        Object existing = first.getMetadata().get(MERGED_IDS_KEY);
+        if (existing instanceof List<?> ids) {
+            mergedIds.addAll(ids);
+        } else {
+            mergedIds.add(first.getId());
+        }
+        mergedIds.add(second.getId());
+        metadata.put(MERGED_IDS_KEY, mergedIds);
+
+        return first.mutate()
+                .text(text)
+                .metadata(metadata)
+                .score(Math.max(scoreOf(first), scoreOf(second)))
+                .build();
+    }
+
+    /**
+     * first의 끝과 second의 시작이 겹치는 최대 길이
+     */
+    private int overlapLength(String first, String second) {
+        int max = Math.min(first.length(), second.length());
+        for (int length = max; length >= minOverlapChars; length--) {
+            if (first.regionMatches(first.length() - length, second, 0, length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 토큰 예산 안에 들어가는 앞쪽 문장들만 남김
+     */
+    private String trimToSentences(String text, int tokenBudget) {
+        BreakIterator iterator = BreakIterator.getSentenceInstance(Locale.KOREAN);
+        iterator.setText(text);
+
+        int end = 0;
+        int usedTokens = 0;
+        int start = iterator.first();
+        for (int boundary = iterator.next(); boundary != BreakIterator.DONE; start = boundary, boundary = iterator.next()) {
+            usedTokens += tokenCountEstimator.estimate(text.substring(start, boundary));
+            if (usedTokens > tokenBudget) {
+                break;
+            }
+            end = boundary;
+        }
+        return text.substring(0, end).trim();
+    }
+
+    /**
+     * 점수 차이 필터용 0~1 범위 점수
+     * - 코사인 유사도, cross-encoder(sigmoid) 점수: 이미 0~1 이므로 그대로 사용
+     * - RRF 점수(1/(k+rank)의 합, 순위 기반): 절대값 차이가 의미 없으므로 최고 점수 대비 비율로 변환
+     */
+    private static double normalizedScore(Document document, double topScore) {
+        double score = scoreOf(document);
+        if (isRankFusionScore(document)) {
+            return topScore > 0 ? score / topScore : 0.0;
+        }
+        return Math.max(0.0, Math.min(1.0, score));
+    }
+
+    /**
+     * 현재 점수가 RRF 병합 점수인지 여부 (RRF 이후 cross-encoder가 점수를 다시 매긴 경우 제외)
+     */
+    private static boolean isRankFusionScore(Document document) {
+        Map<String, Object> metadata = document.getMetadata();
+        return metadata.containsKey(EgovRankFusionDocumentJoiner.RRF_SCORE_KEY)
+                && !metadata.containsKey(EgovCrossEncoderReranker.RERANK_SCORE_KEY);
+    }
+
+    private static double scoreOf(Document document) {
+        return document.getScore() != null ? document.getScore() : 0.0;
+    }
+
+    private static int pageOf(Document document) {
+        Object page = document.getMetadata().get("page_number");
+        return page instanceof Number number ? number.intValue() : 0;
+    }
+
+    @Override
+    public int getOrder() {
+        // 재정렬 등 다른 후처리가 끝난 뒤 마지막에 적용
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
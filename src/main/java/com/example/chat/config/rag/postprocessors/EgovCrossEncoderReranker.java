@@ -0,0 +1,196 @@
+package com.example.chat.config.rag.postprocessors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.Resource;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.djl.util.PairList;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 로컬 ONNX cross-encoder 모델로 검색 후보를 재정렬하는 DocumentPostProcessor
+ * 임베딩 모델과 동일하게 classpath의 model.onnx / tokenizer.json 을 로드하며,
+ * (질문, 문서) 쌍을 배치 단위로 나눠 스레드 풀에서 점수를 계산한 뒤 상위 N개만 남김
+ * Document.score 는 다른 단계(출처 이벤트, 컨텍스트 예산 필터)와 같이 0~1 범위를 유지하도록 logit에 sigmoid를 적용하고,
+ * 원본 logit은 메타데이터(rerank_logit)에 보관
+ */
+@Slf4j
+public class EgovCrossEncoderReranker implements DocumentPostProcessor, DisposableBean, Ordered {
+
+    public static final String RERANK_SCORE_KEY = "rerank_score";
+    public static final String RERANK_LOGIT_KEY = "rerank_logit";
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final HuggingFaceTokenizer tokenizer;
+    private final ExecutorService executor;
+    private final boolean useTokenTypeIds;
+    private final int topN;
+    private final int batchSize;
+
+    public EgovCrossEncoderReranker(Resource modelResource, Resource tokenizerResource,
+                                    int topN, int batchSize, int threads, int maxLength) {
+        this.topN = topN;
+        this.batchSize = Math.max(1, batchSize);
+
+        try (InputStream tokenizerStream = tokenizerResource.getInputStream()) {
+            this.tokenizer = HuggingFaceTokenizer.newInstance(tokenizerStream, Map.of(
+                    "padding", "true",
+                    "truncation", "true",
+                    "maxLength", String.valueOf(maxLength)));
+
+            this.environment = OrtEnvironment.getEnvironment();
+            OrtSession.SessionOptions sessionOptions = new OrtSession.SessionOptions();
+            // 배치 간 병렬 처리는 스레드 풀이 담당하므로 세션 내부 스레드는 1개로 제한
+            sessionOptions.setIntraOpNumThreads(1);
+            try (InputStream modelStream = modelResource.getInputStream()) {
+                this.session = environment.createSession(modelStream.readAllBytes(), sessionOptions);
+            }
+            this.useTokenTypeIds = session.getInputNames().contains("token_type_ids");
+        } catch (IOException | OrtException e) {
+            throw new IllegalStateException("Cross-encoder 모델 로드 실패: " + modelResource, e);
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "reranker-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        log.info("Cross-encoder 재정렬 모델 로드 완료 - 모델: {}, 입력: {}, 상위 N: {}, 배치: {}, 스레드: {}",
+                modelResource.getFilename(), session.getInputNames(), topN, this.batchSize, threads);
+    }
+
+    @Override
+    public List<Document> process(Query query, List<Document> documents) {
+        if (documents.isEmpty()) {
+            return documents;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            // 배치별로 나눠 병렬 추론
+            List<Future<float[]>> futures = new ArrayList<>();
+            for (int start = 0; start < documents.size(); start += batchSize) {
+                List<Document> batch = documents.subList(start, Math.min(start + batchSize, documents.size()));
+                futures.add(executor.submit(() -> score(query.text(), batch)));
+            }
+
+            List<Document> scored = new ArrayList<>(documents.size());
+            int index = 0;
+            for (Future<float[]> future : futures) {
+                for (float logit : future.get()) {
+                    Document document = documents.get(index++);
+                    double score = sigmoid(logit);
+                    Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+                    metadata.put(RERANK_SCORE_KEY, score);
+                    metadata.put(RERANK_LOGIT_KEY, logit);
+                    scored.add(document.mutate().metadata(metadata).score(score).build());
+                }
+            }
+
+            List<Document> reranked = scored.stream()
+                    .sorted(Comparator.comparing(Document::getScore, Comparator.reverseOrder()))
+                    .limit(topN)
+                    .toList();
+
+            log.info("Cross-encoder 재정렬 완료 - 후보: {}개 → {}개, 소요: {}ms",
+                    documents.size(), reranked.size(), System.currentTimeMillis() - startTime);
+            return reranked;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Cross-encoder 재정렬 중단 - 원본 순서 사용");
+            return documents;
+        } catch (Exception e) {
+            log.error("Cross-encoder 재정렬 실패 - 원본 순서 사용", e);
+            return documents;
+        }
+    }
+
+    /**
+     * (질문, 문서) 쌍 배치의 관련도 logit 계산
+     */
+    private float[] score(String queryText, List<Document> batch) throws OrtException {
+        List<String> queries = new ArrayList<>(batch.size());
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Document document : batch) {
+            queries.add(queryText);
+            texts.add(document.getText());
+        }
+
+        Encoding[] encodings = tokenizer.batchEncode(new PairList<>(queries, texts));
+        int sequenceLength = encodings[0].getIds().length;
+        long[][] inputIds = new long[encodings.length][sequenceLength];
+        long[][] attentionMask = new long[encodings.length][sequenceLength];
+        long[][] tokenTypeIds = new long[encodings.length][sequenceLength];
+        for (int i = 0; i < encodings.length; i++) {
+            inputIds[i] = encodings[i].getIds();
+            attentionMask[i] = encodings[i].getAttentionMask();
+            tokenTypeIds[i] = encodings[i].getTypeIds();
+        }
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put("input_ids", OnnxTensor.createTensor(environment, inputIds));
+            inputs.put("attention_mask", OnnxTensor.createTensor(environment, attentionMask));
+            if (useTokenTypeIds) {
+                inputs.put("token_type_ids", OnnxTensor.createTensor(environment, tokenTypeIds));
+            }
+
+            try (OrtSession.Result result = session.run(inputs)) {
+                float[][] logits = (float[][]) result.get(0).getValue();
+                float[] scores = new float[logits.length];
+                for (int i = 0; i < logits.length; i++) {
+                    // 단일 logit 모델은 [0], 2-클래스 모델은 관련(positive) 클래스 logit 사용
+                    scores[i] = logits[i][logits[i].length - 1];
+                }
+                return scores;
+            }
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    /**
+     * 관련도 logit을 0~1 확률로 변환 (순서는 logit과 동일)
+     */
+    static double sigmoid(double logit) {
+        return 1.0 / (1.0 + Math.exp(-logit));
+    }
+
+    @Override
+    public int getOrder() {
+        // 컨텍스트 예산 적용 전에 관련도 순서를 먼저 확정
+        return 0;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        executor.shutdownNow();
+        session.close();
+        tokenizer.close();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.chat.config.rag.postprocessors;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 최종 검색 문서를 요청별 리스너에 전달하는 DocumentPostProcessor
+ * 리스너는 어드바이저 컨텍스트(SOURCES_LISTENER_KEY)로 전달되며, 없으면 아무 작업도 하지 않음
+ * LLM 호출 전에 실행되므로 첫 토큰보다 먼저 출처 정보를 클라이언트에 보낼 수 있음
+ * 다른 후처리가 모두 끝난 목록을 전달해야 하므로 어드바이저 체인의 마지막에 추가
+ */
+@Slf4j
+public class EgovSourcesNotifyingPostProcessor implements DocumentPostProcessor {
+
+    public static final String SOURCES_LISTENER_KEY = "egov_rag_sources_listener";
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Document> process(Query query, List<Document> documents) {
+        Object listener = query.context().get(SOURCES_LISTENER_KEY);
+        if (listener instanceof Consumer<?> consumer) {
+            try {
+                ((Consumer<List<Document>>) consumer).accept(documents);
+            } catch (Exception e) {
+                log.warn("검색 문서 리스너 호출 실패: {}", e.getMessage());
+            }
+        }
+        return documents;
+    }
+}
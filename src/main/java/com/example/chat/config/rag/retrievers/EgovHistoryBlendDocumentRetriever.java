@@ -0,0 +1,101 @@
+package com.example.chat.config.rag.retrievers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LLM 호출 없이 대화 히스토리를 반영하는 DocumentRetriever
+ * 현재 질문 임베딩과 최근 N개 사용자 질문 임베딩을 감쇠 가중치로 합산한 벡터로 검색
+ * vector = queryWeight x q + Σ decay^i x h_i (i = 1: 직전 질문, 각 임베딩은 단위 벡터로 정규화)
+ * 히스토리는 RAG 어드바이저가 전달하는 Query 히스토리(ChatMemory 어드바이저가 구성한 메시지)를 사용
+ */
+@Slf4j
+public class EgovHistoryBlendDocumentRetriever implements DocumentRetriever {
+
+    private final EgovPgVectorDocumentRetriever vectorRetriever;
+    private final int turns;
+    private final double queryWeight;
+    private final double decay;
+
+    public EgovHistoryBlendDocumentRetriever(EgovPgVectorDocumentRetriever vectorRetriever,
+                                             int turns, double queryWeight, double decay) {
+        this.vectorRetriever = vectorRetriever;
+        this.turns = Math.max(0, turns);
+        this.queryWeight = queryWeight;
+        this.decay = decay;
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        List<String> texts = new ArrayList<>(turns + 1);
+        texts.add(query.text());
+        texts.addAll(recentUserQuestions(query));
+
+        // 현재 질문과 히스토리를 한 번의 배치로 임베딩
+        List<float[]> embeddings = vectorRetriever.embed(texts, query.context());
+        float[] blended = new float[embeddings.get(0).length];
+        addWeighted(blended, embeddings.get(0), queryWeight);
+        double weight = 1.0;
+        for (int i = 1; i < embeddings.size(); i++) {
+            weight *= decay;
+            addWeighted(blended, embeddings.get(i), weight);
+        }
+
+        log.info("히스토리 혼합 검색 - 반영 질문: {}개 (질문 가중치: {}, 감쇠: {}), 원본 질문: '{}'",
+                texts.size() - 1, queryWeight, decay, query.text());
+
+        long startNanos = System.nanoTime();
+        List<Document> documents = vectorRetriever.search(blended, vectorRetriever.getTopK(),
+                vectorRetriever.getSimilarityThreshold(), EgovPgVectorDocumentRetriever.resolveFilterExpression(query));
+        vectorRetriever.recordVectorSearch(query.context(), startNanos);
+        return documents;
+    }
+
+    /**
+     * 현재 질문을 제외한 최근 사용자 질문 (최신순)
+     */
+    private List<String> recentUserQuestions(Query query) {
+        List<String> questions = new ArrayList<>(turns);
+        List<Message> history = query.history();
+        boolean currentSkipped = false;
+        for (int i = history.size() - 1; i >= 0 && questions.size() < turns; i--) {
+            Message message = history.get(i);
+            if (message.getMessageType() != MessageType.USER || message.getText() == null || message.getText().isBlank()) {
+                continue;
+            }
+            // 히스토리 끝에 포함된 현재 질문은 한 번만 제외
+            if (!currentSkipped && message.getText().equals(query.text())) {
+                currentSkipped = true;
+                continue;
+            }
+            currentSkipped = true;
+            questions.add(message.getText());
+        }
+        return questions;
+    }
+
+    /**
+     * 단위 벡터로 정규화한 임베딩을 가중치만큼 누적
+     */
+    private static void addWeighted(float[] target, float[] embedding, double weight) {
+        double norm = 0.0;
+        for (float value : embedding) {
+            norm += value * value;
+        }
+        if (norm == 0.0) {
+            return;
+        }
+        double scale = weight / Math.sqrt(norm);
+        for (int i = 0; i < target.length; i++) {
+            target[i] += (float) (embedding[i] * scale);
+        }
+    }
+}
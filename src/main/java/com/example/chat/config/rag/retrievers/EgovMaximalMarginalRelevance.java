@@ -0,0 +1,74 @@
+package com.example.chat.config.rag.retrievers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.document.Document;
+
+import com.example.chat.config.rag.retrievers.EgovPgVectorDocumentRetriever.Candidate;
+
+/**
+ * MMR(Maximal Marginal Relevance) 선택
+ * score = lambda x 질의 유사도 - (1 - lambda) x 이미 선택된 문서와의 최대 유사도
+ * 같은 PDF 페이지 범위의 인접 청크처럼 거의 같은 내용이 Top K를 채우는 것을 방지
+ */
+public final class EgovMaximalMarginalRelevance {
+
+    private EgovMaximalMarginalRelevance() {
+    }
+
+    /**
+     * 후보 목록에서 MMR 순서로 문서 선택
+     *
+     * @param candidates 질의 유사도(score)와 임베딩이 채워진 후보 목록
+     * @param limit 선택할 문서 수
+     * @param lambda 관련도 가중치 (0.0 ~ 1.0)
+     * @return MMR 선택 순서의 문서 목록
+     */
+    public static List<Document> select(List<Candidate> candidates, int limit, double lambda) {
+        List<Candidate> remaining = new ArrayList<>(candidates);
+        List<Candidate> selected = new ArrayList<>(Math.min(limit, candidates.size()));
+
+        while (selected.size() < limit && !remaining.isEmpty()) {
+            Candidate best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+
+            for (Candidate candidate : remaining) {
+                double relevance = candidate.document().getScore() != null ? candidate.document().getScore() : 0.0;
+                double redundancy = 0.0;
+                for (Candidate chosen : selected) {
+                    redundancy = Math.max(redundancy, cosineSimilarity(candidate.embedding(), chosen.embedding()));
+                }
+
+                double mmrScore = lambda * relevance - (1.0 - lambda) * redundancy;
+                if (mmrScore > bestScore) {
+                    bestScore = mmrScore;
+                    best = candidate;
+                }
+            }
+
+            selected.add(best);
+            remaining.remove(best);
+        }
+
+        return selected.stream().map(Candidate::document).toList();
+    }
+
+    /**
+     * 두 임베딩의 코사인 유사도
+     */
+    public static double cosineSimilarity(float[] a, float[] b) {
+        double dot = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0.0 || normB == 0.0) {
+            return 0.0;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
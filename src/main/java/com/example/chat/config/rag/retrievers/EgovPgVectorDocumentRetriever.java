@@ -0,0 +1,420 @@
+package com.example.chat.config.rag.retrievers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.chat.config.metrics.EgovChatMetrics;
+import com.example.chat.util.EgovRagFilterUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * PgVector 테이블을 직접 조회하는 DocumentRetriever
+ * - NONE: 전체 정밀도(vector) 인덱스로 검색
+ * - HALFVEC / BINARY: 양자화된 표현식 인덱스로 후보 N개를 찾은 뒤 원본 vector로 재정렬하여 Top K 반환
+ * 메타데이터 필터는 VectorStoreDocumentRetriever와 동일하게 Query 컨텍스트의 FILTER_EXPRESSION에서 읽어
+ * PgVectorStore와 같은 jsonpath 조건(metadata::jsonb @@ ...)으로 SQL에 포함
+ * - 최종 수정일 범위 조건은 B-tree 표현식 인덱스(metadata->>'last_modified')를 사용할 수 있도록 비교식으로 분리
+ * - 필터가 있으면 HNSW 반복 스캔(hnsw.iterative_scan, pgvector 0.8 이상)으로 필터 통과 행이 limit개가 될 때까지 후보 확장
+ * MMR이 활성화되면 후보의 임베딩을 함께 조회해 추가 임베딩 호출 없이 다양성 선택을 수행
+ */
+@Slf4j
+public class EgovPgVectorDocumentRetriever implements DocumentRetriever {
+
+    /**
+     * ANN 검색에 사용할 벡터 표현 방식
+     */
+    public enum QuantizationMode {
+        NONE, HALFVEC, BINARY
+    }
+
+    /**
+     * MMR(Maximal Marginal Relevance) 선택 설정
+     *
+     * @param enabled 활성화 여부
+     * @param lambda 관련도 가중치 (1.0: 관련도만, 0.0: 다양성만)
+     * @param fetchMultiplier 선택 대상 후보 배수 (후보 수 = 반환 수 x 배수)
+     */
+    public record MmrOptions(boolean enabled, double lambda, int fetchMultiplier) {
+
+        public static MmrOptions disabled() {
+            return new MmrOptions(false, 1.0, 1);
+        }
+    }
+
+    /**
+     * 검색 후보 (문서 + 조회된 임베딩, 임베딩 미조회 시 null)
+     */
+    public record Candidate(Document document, float[] embedding) {
+    }
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    private static final String ITERATIVE_SCAN_OFF = "off";
+
+    private final PgVectorFilterExpressionConverter filterExpressionConverter = new PgVectorFilterExpressionConverter();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmbeddingModel embeddingModel;
+    private final ObjectMapper objectMapper;
+    private final String tableName;
+    private final int dimensions;
+    private final QuantizationMode quantizationMode;
+    private final int rerankMultiplier;
+    private final int efSearch;
+    private final int topK;
+    private final double similarityThreshold;
+    private final MmrOptions mmrOptions;
+    private final EgovChatMetrics chatMetrics;
+    private final String iterativeScan;
+    private final int maxScanTuples;
+
+    /**
+     * @param iterativeScan 필터 검색 시 HNSW 반복 스캔 모드 (off, relaxed_order, strict_order)
+     * @param maxScanTuples 반복 스캔 시 최대 방문 튜플 수
+     */
+    public EgovPgVectorDocumentRetriever(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                         EmbeddingModel embeddingModel, ObjectMapper objectMapper,
+                                         String tableName, int dimensions, QuantizationMode quantizationMode,
+                                         int rerankMultiplier, int efSearch, int topK, double similarityThreshold,
+                                         MmrOptions mmrOptions, EgovChatMetrics chatMetrics,
+                                         String iterativeScan, int maxScanTuples) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.embeddingModel = embeddingModel;
+        this.objectMapper = objectMapper;
+        this.tableName = tableName;
+        this.dimensions = dimensions;
+        this.quantizationMode = quantizationMode;
+        this.rerankMultiplier = Math.max(1, rerankMultiplier);
+        this.efSearch = efSearch;
+        this.topK = topK;
+        this.similarityThreshold = similarityThreshold;
+        this.mmrOptions = mmrOptions;
+        this.chatMetrics = chatMetrics;
+        String scanMode = iterativeScan == null ? ITERATIVE_SCAN_OFF : iterativeScan.trim().toLowerCase();
+        if (!List.of(ITERATIVE_SCAN_OFF, "relaxed_order", "strict_order").contains(scanMode)) {
+            throw new IllegalArgumentException("지원하지 않는 HNSW 반복 스캔 모드: " + iterativeScan
+                    + " (off, relaxed_order, strict_order)");
+        }
+        this.iterativeScan = scanMode;
+        this.maxScanTuples = Math.max(1, maxScanTuples);
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        float[] queryEmbedding = embed(query.text(), query.context());
+        long startNanos = System.nanoTime();
+        List<Document> documents = search(queryEmbedding, topK, similarityThreshold, resolveFilterExpression(query));
+        recordVectorSearch(query.context(), startNanos);
+        return documents;
+    }
+
+    /**
+     * 벡터 검색 소요 시간 기록 (search/searchCandidates를 직접 호출하는 검색기에서 사용)
+     */
+    public void recordVectorSearch(Map<String, Object> context, long startNanos) {
+        chatMetrics.recordStage(EgovChatMetrics.VECTOR_SEARCH, context, startNanos);
+    }
+
+    /**
+     * 질의 임베딩 (소요 시간은 어드바이저 컨텍스트의 엔드포인트/모델 태그로 기록)
+     */
+    public float[] embed(String text, Map<String, Object> context) {
+        long startNanos = System.nanoTime();
+        float[] embedding = embeddingModel.embed(text);
+        chatMetrics.recordStage(EgovChatMetrics.QUERY_EMBEDDING, context, startNanos);
+        return embedding;
+    }
+
+    /**
+     * 여러 질의를 한 번의 배치로 임베딩
+     */
+    public List<float[]> embed(List<String> texts, Map<String, Object> context) {
+        long startNanos = System.nanoTime();
+        List<float[]> embeddings = embeddingModel.embed(texts);
+        chatMetrics.recordStage(EgovChatMetrics.QUERY_EMBEDDING, context, startNanos);
+        return embeddings;
+    }
+
+    /**
+     * Query 컨텍스트에 전달된 메타데이터 필터 조회 (Filter.Expression 또는 텍스트 표현식)
+     */
+    public static Filter.Expression resolveFilterExpression(Query query) {
+        Object filter = query.context().get(VectorStoreDocumentRetriever.FILTER_EXPRESSION);
+        if (filter instanceof Filter.Expression expression) {
+            return expression;
+        }
+        if (filter != null && !filter.toString().isBlank()) {
+            return new FilterExpressionTextParser().parse(filter.toString());
+        }
+        return null;
+    }
+
+    /**
+     * 임베딩 벡터로 유사 문서 검색
+     *
+     * @param queryEmbedding 질의 임베딩
+     * @param limit 반환할 문서 수
+     * @param threshold 유사도 임계값 (0.0 ~ 1.0)
+     * @param filterExpression 메타데이터 필터 (null 가능)
+     * @return 코사인 거리 오름차순(MMR 사용 시 MMR 선택 순서)으로 정렬된 문서 목록
+     */
+    public List<Document> search(float[] queryEmbedding, int limit, double threshold, Filter.Expression filterExpression) {
+        // MMR: 후보를 넉넉히 가져와 이미 조회된 임베딩으로 관련도와 다양성을 함께 고려해 선택
+        List<Candidate> candidates = searchCandidates(queryEmbedding, candidateLimit(limit), threshold,
+                filterExpression, mmrOptions.enabled());
+        return selectDocuments(candidates, limit);
+    }
+
+    /**
+     * 최종 선택에 필요한 후보 수 (MMR 사용 시 반환 수 x 배수)
+     */
+    public int candidateLimit(int limit) {
+        return mmrOptions.enabled() ? limit * Math.max(1, mmrOptions.fetchMultiplier()) : limit;
+    }
+
+    /**
+     * 점수 내림차순으로 정렬된 후보에서 최종 문서 선택 (MMR 사용 시 MMR 선택, 아니면 상위 limit개)
+     * MMR 사용 시 후보에 임베딩이 포함되어 있어야 함
+     */
+    public List<Document> selectDocuments(List<Candidate> candidates, int limit) {
+        if (!mmrOptions.enabled()) {
+            return candidates.stream()
+                    .limit(limit)
+                    .map(Candidate::document)
+                    .toList();
+        }
+
+        List<Document> selected = EgovMaximalMarginalRelevance.select(candidates, limit, mmrOptions.lambda());
+        log.debug("MMR 선택 완료 - 후보: {}개 → {}개 (lambda: {})", candidates.size(), selected.size(), mmrOptions.lambda());
+        return selected;
+    }
+
+    /**
+     * 검색 후보 조회
+     *
+     * @param includeEmbedding 후보의 원본 임베딩 포함 여부
+     */
+    public List<Candidate> searchCandidates(float[] queryEmbedding, int limit, double threshold,
+                                            Filter.Expression filterExpression, boolean includeEmbedding) {
+        return searchCandidates(queryEmbedding, limit, threshold, filterExpression, includeEmbedding, List.of());
+    }
+
+    /**
+     * 이미 조회한 문서를 제외하고 검색 후보 조회
+     *
+     * @param includeEmbedding 후보의 원본 임베딩 포함 여부
+     * @param excludeIds 결과에서 제외할 문서 ID 목록
+     */
+    public List<Candidate> searchCandidates(float[] queryEmbedding, int limit, double threshold,
+                                            Filter.Expression filterExpression, boolean includeEmbedding,
+                                            Collection<String> excludeIds) {
+        PGvector vector = new PGvector(queryEmbedding);
+        double maxDistance = 1.0 - threshold;
+        String embeddingColumn = includeEmbedding ? ", embedding::text AS embedding_text" : "";
+
+        // 필터는 후보 추출 단계에 포함해야 Top K 이후 후처리 필터링이 되지 않음
+        List<String> conditions = new ArrayList<>();
+        List<Object> conditionArgs = new ArrayList<>();
+        if (filterExpression != null) {
+            addFilterConditions(filterExpression, conditions, conditionArgs);
+        }
+        // 필터가 있으면 ef_search 후보 중 필터를 통과한 행만 남아 limit보다 적게 반환되지 않도록 반복 스캔 사용
+        boolean iterative = !conditions.isEmpty() && !ITERATIVE_SCAN_OFF.equals(iterativeScan);
+        if (!excludeIds.isEmpty()) {
+            conditions.add("id::text <> ALL (?::text[])");
+            conditionArgs.add("{" + String.join(",", excludeIds) + "}");
+        }
+
+        if (quantizationMode == QuantizationMode.NONE) {
+            String sql = "SELECT id, content, metadata" + embeddingColumn + ", embedding <=> ? AS distance FROM " + tableName
+                    + " WHERE embedding <=> ? <= ?"
+                    + conditions.stream().map(condition -> " AND " + condition).reduce("", String::concat)
+                    + " ORDER BY distance LIMIT ?";
+            List<Object> args = new ArrayList<>(List.of(vector, vector, maxDistance));
+            args.addAll(conditionArgs);
+            args.add(limit);
+            if (!iterative) {
+                return jdbcTemplate.query(sql, candidateRowMapper(includeEmbedding), args.toArray());
+            }
+
+            // relaxed_order는 인덱스 결과 순서가 거리순과 조금 다를 수 있으므로 바깥에서 다시 정렬
+            String relaxedSql = "SELECT * FROM (" + sql + ") relaxed ORDER BY distance";
+            List<Candidate> candidates = transactionTemplate.execute(status -> {
+                enableIterativeScan();
+                return jdbcTemplate.query(relaxedSql, candidateRowMapper(includeEmbedding), args.toArray());
+            });
+            return candidates == null ? List.of() : candidates;
+        }
+
+        // 양자화 인덱스로 후보를 넉넉히 가져온 뒤 원본 vector로 정확한 거리 재계산
+        int candidateCount = limit * rerankMultiplier;
+        String sql = "SELECT id, content, metadata" + embeddingColumn + ", distance FROM ("
+                + " SELECT id, content, metadata, embedding, embedding <=> ? AS distance FROM ("
+                + "  SELECT id, content, metadata, embedding FROM " + tableName
+                + (conditions.isEmpty() ? "" : "  WHERE " + String.join(" AND ", conditions))
+                + "  ORDER BY " + quantizedDistanceExpression()
+                + "  LIMIT ?"
+                + " ) candidates"
+                + ") reranked WHERE distance <= ? ORDER BY distance LIMIT ?";
+
+        List<Object> args = new ArrayList<>(List.of(vector));
+        args.addAll(conditionArgs);
+        args.addAll(List.of(vector, candidateCount, maxDistance, limit));
+
+        List<Candidate> candidates = transactionTemplate.execute(status -> {
+            // HNSW는 ef_search보다 많은 후보를 반환하지 않으므로 후보 수 이상으로 조정
+            jdbcTemplate.execute("SET LOCAL hnsw.ef_search = " + Math.max(efSearch, candidateCount));
+            if (iterative) {
+                enableIterativeScan();
+            }
+            return jdbcTemplate.query(sql, candidateRowMapper(includeEmbedding), args.toArray());
+        });
+
+        log.debug("양자화 검색 완료 - 모드: {}, 후보: {}개, 반환: {}개", quantizationMode, candidateCount,
+                candidates == null ? 0 : candidates.size());
+        return candidates == null ? List.of() : candidates;
+    }
+
+    /**
+     * 필터 표현식을 SQL 조건으로 변환
+     * 최상위 AND 조건 중 최종 수정일 범위 비교는 표현식 인덱스와 같은 식(metadata->>'last_modified')으로,
+     * 나머지는 하나의 jsonpath 조건으로 변환
+     */
+    private void addFilterConditions(Filter.Expression filterExpression, List<String> conditions,
+                                     List<Object> conditionArgs) {
+        Filter.Expression remaining = null;
+        for (Filter.Expression term : conjuncts(filterExpression)) {
+            String operator = lastModifiedRangeOperator(term);
+            if (operator != null) {
+                conditions.add("metadata->>'" + EgovRagFilterUtil.LAST_MODIFIED_KEY + "' " + operator + " ?");
+                conditionArgs.add(String.valueOf(((Filter.Value) term.right()).value()));
+            } else {
+                remaining = remaining == null ? term : new Filter.Expression(Filter.ExpressionType.AND, remaining, term);
+            }
+        }
+        if (remaining != null) {
+            conditions.add("metadata::jsonb @@ ?::jsonpath");
+            conditionArgs.add(filterExpressionConverter.convertExpression(remaining));
+        }
+    }
+
+    private static List<Filter.Expression> conjuncts(Filter.Expression expression) {
+        List<Filter.Expression> terms = new ArrayList<>();
+        if (expression.type() == Filter.ExpressionType.AND
+                && unwrap(expression.left()) instanceof Filter.Expression left
+                && unwrap(expression.right()) instanceof Filter.Expression right) {
+            terms.addAll(conjuncts(left));
+            terms.addAll(conjuncts(right));
+        } else {
+            terms.add(expression);
+        }
+        return terms;
+    }
+
+    private static Filter.Operand unwrap(Filter.Operand operand) {
+        return operand instanceof Filter.Group group ? group.content() : operand;
+    }
+
+    /**
+     * last_modified 범위 비교이면 SQL 비교 연산자, 아니면 null
+     */
+    private static String lastModifiedRangeOperator(Filter.Expression term) {
+        if (!(term.left() instanceof Filter.Key key) || !(term.right() instanceof Filter.Value value)
+                || value.value() == null
+                || !EgovRagFilterUtil.LAST_MODIFIED_KEY.equals(key.key().replace("\"", "").replace("'", ""))) {
+            return null;
+        }
+        return switch (term.type()) {
+            case GT -> ">";
+            case GTE -> ">=";
+            case LT -> "<";
+            case LTE -> "<=";
+            default -> null;
+        };
+    }
+
+    private void enableIterativeScan() {
+        jdbcTemplate.execute("SET LOCAL hnsw.iterative_scan = " + iterativeScan);
+        jdbcTemplate.execute("SET LOCAL hnsw.max_scan_tuples = " + maxScanTuples);
+    }
+
+    /**
+     * 양자화 인덱스와 동일한 표현식을 사용해야 플래너가 해당 인덱스를 선택함
+     */
+    private String quantizedDistanceExpression() {
+        return switch (quantizationMode) {
+            case HALFVEC -> "embedding::halfvec(" + dimensions + ") <=> ?::halfvec(" + dimensions + ")";
+            case BINARY -> "binary_quantize(embedding)::bit(" + dimensions + ") <~> binary_quantize(?)";
+            default -> throw new IllegalStateException("양자화 모드가 아닙니다: " + quantizationMode);
+        };
+    }
+
+    private RowMapper<Candidate> candidateRowMapper(boolean includeEmbedding) {
+        return (ResultSet rs, int rowNum) -> {
+            double distance = rs.getDouble("distance");
+            Map<String, Object> metadata = parseMetadata(rs.getString("metadata"));
+            metadata.put("distance", distance);
+
+            Document document = Document.builder()
+                    .id(rs.getString("id"))
+                    .text(rs.getString("content"))
+                    .metadata(metadata)
+                    .score(1.0 - distance)
+                    .build();
+
+            float[] embedding = null;
+            if (includeEmbedding) {
+                PGvector vector = new PGvector();
+                vector.setValue(rs.getString("embedding_text"));
+                embedding = vector.toArray();
+            }
+            return new Candidate(document, embedding);
+        };
+    }
+
+    private Map<String, Object> parseMetadata(String json) throws SQLException {
+        if (json == null || json.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return new HashMap<>(objectMapper.readValue(json, METADATA_TYPE));
+        } catch (Exception e) {
+            throw new SQLException("메타데이터 JSON 파싱 실패: " + e.getMessage(), e);
+        }
+    }
+
+    public QuantizationMode getQuantizationMode() {
+        return quantizationMode;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.chat.config.rag.retrievers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import com.example.chat.config.rag.retrievers.EgovPgVectorDocumentRetriever.Candidate;
+import com.example.chat.context.RequestDeadline;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 질문 압축과 벡터 검색을 병렬로 수행하는 추측(speculative) DocumentRetriever
+ * 1. 질문 압축(LLM 호출)을 별도 스레드에서 시작하고, 동시에 원본 질문으로 검색
+ * 2. 압축된 질문의 임베딩이 원본과 충분히 가까우면 추측 검색 결과를 그대로 사용
+ * 3. 그렇지 않으면 이미 조회한 문서를 제외한 차이분만 추가 조회하고,
+ *    추측 검색 후보는 조회된 임베딩으로 압축 질문 기준 점수를 다시 계산하여 합침
+ * 압축 실패 또는 응답 기한 내 압축이 끝나지 않으면 추측 검색 결과를 그대로 사용
+ */
+@Slf4j
+public class EgovSpeculativeDocumentRetriever implements DocumentRetriever {
+
+    private final QueryTransformer queryTransformer;
+    private final EgovPgVectorDocumentRetriever vectorRetriever;
+    private final Executor executor;
+    private final double reuseSimilarity;
+
+    public EgovSpeculativeDocumentRetriever(QueryTransformer queryTransformer,
+                                            EgovPgVectorDocumentRetriever vectorRetriever,
+                                            Executor executor, double reuseSimilarity) {
+        this.queryTransformer = queryTransformer;
+        this.vectorRetriever = vectorRetriever;
+        this.executor = executor;
+        this.reuseSimilarity = reuseSimilarity;
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        long startTime = System.currentTimeMillis();
+
+        // 질문 압축을 먼저 시작하여 LLM 호출 시간을 검색 시간 뒤에 숨김
+        CompletableFuture<Query> compression = CompletableFuture.supplyAsync(() -> queryTransformer.transform(query), executor);
+
+        int topK = vectorRetriever.getTopK();
+        double threshold = vectorRetriever.getSimilarityThreshold();
+        int candidateLimit = vectorRetriever.candidateLimit(topK);
+        Filter.Expression filterExpression = EgovPgVectorDocumentRetriever.resolveFilterExpression(query);
+
+        float[] rawEmbedding = vectorRetriever.embed(query.text(), query.context());
+        long searchStartNanos = System.nanoTime();
+        List<Candidate> speculative = vectorRetriever.searchCandidates(rawEmbedding, candidateLimit, threshold,
+                filterExpression, true);
+        vectorRetriever.recordVectorSearch(query.context(), searchStartNanos);
+        long speculativeTime = System.currentTimeMillis() - startTime;
+
+        String compressedText;
+        try {
+            compressedText = awaitCompression(compression, query).text();
+        } catch (TimeoutException e) {
+            compression.cancel(false);
+            log.warn("응답 기한 내 질문 압축 미완료 - 추측 검색 결과 사용");
+            return vectorRetriever.selectDocuments(speculative, topK);
+        } catch (Exception e) {
+            log.warn("질문 압축 실패 - 추측 검색 결과 사용: {}", e.getMessage());
+            return vectorRetriever.selectDocuments(speculative, topK);
+        }
+
+        if (compressedText.equals(query.text())) {
+            log.info("추측 검색 결과 재사용 - 압축 생략 또는 동일 질문 (검색: {}ms, 전체: {}ms)",
+                    speculativeTime, System.currentTimeMillis() - startTime);
+            return vectorRetriever.selectDocuments(speculative, topK);
+        }
+
+        float[] compressedEmbedding = vectorRetriever.embed(compressedText, query.context());
+        double similarity = EgovMaximalMarginalRelevance.cosineSimilarity(rawEmbedding, compressedEmbedding);
+        if (similarity >= reuseSimilarity) {
+            log.info("추측 검색 결과 재사용 - 임베딩 유사도: {} (기준: {}), 압축 질문: '{}', 전체: {}ms",
+                    String.format("%.4f", similarity), reuseSimilarity, compressedText, System.currentTimeMillis() - startTime);
+            return vectorRetriever.selectDocuments(speculative, topK);
+        }
+
+        // 추측 후보 밖의 문서만 추가 조회 (추측 후보 + 차이분 상위 N개 안에 압축 질문의 실제 상위 N개가 모두 포함됨)
+        Set<String> knownIds = speculative.stream()
+                .map(candidate -> candidate.document().getId())
+                .collect(Collectors.toSet());
+        long deltaStartNanos = System.nanoTime();
+        List<Candidate> delta = vectorRetriever.searchCandidates(compressedEmbedding, candidateLimit, threshold,
+                filterExpression, true, knownIds);
+        vectorRetriever.recordVectorSearch(query.context(), deltaStartNanos);
+
+        List<Candidate> merged = new ArrayList<>(speculative.size() + delta.size());
+        for (Candidate candidate : speculative) {
+            Candidate rescored = rescore(candidate, compressedEmbedding);
+            if (rescored.document().getScore() >= threshold) {
+                merged.add(rescored);
+            }
+        }
+        merged.addAll(delta);
+        merged.sort(Comparator.comparing((Candidate candidate) -> candidate.document().getScore()).reversed());
+
+        List<Candidate> topCandidates = merged.subList(0, Math.min(candidateLimit, merged.size()));
+        log.info("추측 검색 보정 - 임베딩 유사도: {} (기준: {}), 추측 후보: {}개, 추가 조회: {}개, 압축 질문: '{}', 전체: {}ms",
+                String.format("%.4f", similarity), reuseSimilarity, speculative.size(), delta.size(), compressedText,
+                System.currentTimeMillis() - startTime);
+        return vectorRetriever.selectDocuments(topCandidates, topK);
+    }
+
+    /**
+     * 질문 압축 결과 대기 (어드바이저 컨텍스트에 응답 기한이 있으면 남은 시간까지만 대기)
+     */
+    private Query awaitCompression(CompletableFuture<Query> compression, Query query) throws Exception {
+        RequestDeadline deadline = RequestDeadline.from(query.context());
+        if (deadline == null) {
+            return compression.join();
+        }
+        return compression.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 조회된 임베딩으로 압축 질문 기준 코사인 거리/점수 재계산
+     */
+    private Candidate rescore(Candidate candidate, float[] queryEmbedding) {
+        double distance = 1.0 - EgovMaximalMarginalRelevance.cosineSimilarity(queryEmbedding, candidate.embedding());
+        Document document = candidate.document();
+        Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+        metadata.put("distance", distance);
+        return new Candidate(document.mutate().metadata(metadata).score(1.0 - distance).build(), candidate.embedding());
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.chat.config.rag.retrievers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.chat.config.rag.retrievers.EgovPgVectorDocumentRetriever.QuantizationMode;
+import com.pgvector.PGvector;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 메타데이터 필터 및 양자화 검색용 인덱스 생성, 인덱스 크기/재현율 측정
+ * PgVectorStore가 vector_store 테이블을 만든 뒤 실행되어야 하므로 PgVectorStore를 주입받음
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EgovVectorIndexManager implements SmartInitializingSingleton {
+
+    /**
+     * 재현율 측정 샘플 질의 수 상한 (샘플마다 인덱스를 사용하지 않는 정확 검색을 실행)
+     */
+    public static final int MAX_RECALL_SAMPLES = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PgVectorStore pgVectorStore;
+
+    @Value("${spring.ai.vectorstore.pgvector.schema-name:public}")
+    private String schemaName;
+
+    @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}")
+    private String tableName;
+
+    @Value("${spring.ai.vectorstore.pgvector.dimensions:768}")
+    private int dimensions;
+
+    @Value("${rag.vector-search.quantization:none}")
+    private String quantization;
+
+    @Value("${rag.vector-search.drop-full-precision-index:true}")
+    private boolean dropFullPrecisionIndex;
+
+    @Value("${spring.ai.vectorstore.pgvector.index-type:HNSW}")
+    private String indexType;
+
+    @Value("${rag.vector-search.metadata-index:true}")
+    private boolean metadataIndex;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (metadataIndex) {
+            // 메타데이터 필터(metadata::jsonb @@ jsonpath)를 인덱스로 처리하기 위한 GIN 표현식 인덱스
+            log.info("메타데이터 필터 인덱스 생성 확인 - 테이블: {}", getQualifiedTableName());
+            jdbcTemplate.execute(String.format(
+                    "CREATE INDEX IF NOT EXISTS %s_metadata_path_idx ON %s USING gin ((metadata::jsonb) jsonb_path_ops)",
+                    tableName, getQualifiedTableName()));
+            // 최종 수정일 범위 조건(metadata->>'last_modified' >= ?)은 jsonpath GIN 인덱스로 처리되지 않으므로 B-tree 표현식 인덱스 사용
+            jdbcTemplate.execute(String.format(
+                    "CREATE INDEX IF NOT EXISTS %s_last_modified_idx ON %s ((metadata->>'last_modified'))",
+                    tableName, getQualifiedTableName()));
+        }
+        backfillLastModified();
+
+        QuantizationMode mode = getQuantizationMode();
+        if (mode == QuantizationMode.NONE) {
+            log.info("벡터 양자화 비활성화 - 전체 정밀도 인덱스 사용");
+            return;
+        }
+
+        if (dropFullPrecisionIndex && !"NONE".equalsIgnoreCase(indexType.trim())) {
+            // PgVectorStore가 시작할 때마다 전체 정밀도 인덱스를 다시 만들므로 양자화 인덱스와 함께 유지되어 인덱스 메모리가 오히려 늘어남
+            throw new IllegalStateException("rag.vector-search.quantization=" + quantization
+                    + " 은 spring.ai.vectorstore.pgvector.index-type=NONE 이 필요합니다 (현재: " + indexType
+                    + ", 두 인덱스를 함께 유지하려면 rag.vector-search.drop-full-precision-index=false)");
+        }
+
+        String qualifiedTable = getQualifiedTableName();
+        String ddl = switch (mode) {
+            case HALFVEC -> String.format(
+                    "CREATE INDEX IF NOT EXISTS %s_halfvec_idx ON %s USING hnsw ((embedding::halfvec(%d)) halfvec_cosine_ops)",
+                    tableName, qualifiedTable, dimensions);
+            case BINARY -> String.format(
+                    "CREATE INDEX IF NOT EXISTS %s_bit_idx ON %s USING hnsw ((binary_quantize(embedding)::bit(%d)) bit_hamming_ops)",
+                    tableName, qualifiedTable, dimensions);
+            default -> throw new IllegalStateException("지원하지 않는 양자화 모드: " + mode);
+        };
+
+        log.info("양자화 인덱스 생성 확인 - 모드: {}, 테이블: {}", mode, qualifiedTable);
+        jdbcTemplate.execute(ddl);
+
+        if (dropFullPrecisionIndex) {
+            // 양자화 검색은 전체 정밀도 인덱스를 사용하지 않음 (재정렬은 후보 행의 원본 vector로 계산)
+            log.info("전체 정밀도 HNSW 인덱스 삭제: spring_ai_vector_index");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS " + schemaName + ".spring_ai_vector_index");
+        } else {
+            // 양자화 검색은 전체 정밀도 인덱스를 사용하지 않으므로 두 인덱스를 모두 유지하면 인덱스 메모리가 오히려 늘어남
+            log.warn("양자화 인덱스와 전체 정밀도 HNSW 인덱스(spring_ai_vector_index)를 함께 유지 - "
+                    + "rag.vector-search.drop-full-precision-index=false 설정으로 인덱스 메모리가 늘어남");
+        }
+    }
+
+    /**
+     * last_modified 메타데이터가 없는 청크(날짜 필터 도입 전 인덱싱)에 원본 문서의 인덱싱 일자를 기록
+     * 내용이 바뀌지 않은 문서는 다시 인덱싱되지 않으므로, 채우지 않으면 날짜 필터 검색에서 항상 제외됨
+     * 인덱싱 일자는 실제 수정일 이후이므로 근사값
+     */
+    private void backfillLastModified() {
+        int updated = jdbcTemplate.update(String.format("""
+                UPDATE %s v
+                   SET metadata = (v.metadata::jsonb
+                           || jsonb_build_object('last_modified', to_char(d.indexed_at, 'YYYY-MM-DD')))::json
+                  FROM document_metadata d
+                 WHERE d.filename = v.metadata->>'source'
+                   AND d.chunk_index = 0
+                   AND v.metadata->>'last_modified' IS NULL
+                """, getQualifiedTableName()));
+        if (updated > 0) {
+            log.info("최종 수정일 메타데이터 보정 완료: {}개 청크 (문서 인덱싱 일자 사용)", updated);
+        }
+
+        Integer missing = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM " + getQualifiedTableName() + " WHERE metadata->>'last_modified' IS NULL",
+                Integer.class);
+        if (missing != null && missing > 0) {
+            log.warn("최종 수정일 메타데이터가 없는 청크 {}개 - 날짜 범위 검색에서 제외됨 (재인덱싱 필요)", missing);
+        }
+    }
+
+    /**
+     * 벡터 테이블 인덱스 크기(바이트) 조회
+     */
+    public Map<String, Long> getIndexSizes() {
+        Map<String, Long> sizes = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT indexrelname, pg_relation_size(indexrelid) AS size FROM pg_stat_user_indexes"
+                        + " WHERE schemaname = ? AND relname = ?",
+                rs -> {
+                    sizes.put(rs.getString("indexrelname"), rs.getLong("size"));
+                },
+                schemaName, tableName);
+        return sizes;
+    }
+
+    /**
+     * 저장된 청크 임베딩을 질의로 사용해 Recall@K 측정
+     * 정답은 인덱스를 사용하지 않는 전체 정밀도 정확 검색 결과
+     *
+     * @param retriever 측정 대상 검색기
+     * @param sampleSize 샘플 질의 수 (1 ~ MAX_RECALL_SAMPLES)
+     * @param k 비교할 상위 문서 수
+     * @return 평균 재현율 (0.0 ~ 1.0), 샘플이 없으면 -1
+     */
+    public double measureRecall(EgovPgVectorDocumentRetriever retriever, int sampleSize, int k) {
+        int limit = clampRecallSamples(sampleSize);
+        // ORDER BY random() 은 테이블 전체를 읽으므로 통계상 행 수로 비율을 정해 일부 블록만 읽음 (필요 행의 4배)
+        Long estimatedRows = jdbcTemplate.queryForObject(
+                "SELECT reltuples::bigint FROM pg_class WHERE oid = ?::regclass", Long.class, getQualifiedTableName());
+        double percent = estimatedRows == null || estimatedRows <= 0
+                ? 100.0 : Math.min(100.0, limit * 4 * 100.0 / estimatedRows);
+        List<PGvector> samples = jdbcTemplate.query(
+                "SELECT embedding::text AS embedding FROM " + getQualifiedTableName()
+                        + " TABLESAMPLE SYSTEM (?) LIMIT ?",
+                (rs, rowNum) -> {
+                    PGvector vector = new PGvector();
+                    vector.setValue(rs.getString("embedding"));
+                    return vector;
+                },
+                percent, limit);
+
+        if (samples.isEmpty()) {
+            return -1;
+        }
+
+        double recallSum = 0;
+        for (PGvector sample : samples) {
+            Set<String> exactIds = new HashSet<>(exactSearchIds(sample, k));
+            Set<String> approxIds = new HashSet<>();
+            retriever.searchCandidates(sample.toArray(), k, 0.0, null, false)
+                    .forEach(candidate -> approxIds.add(candidate.document().getId()));
+
+            approxIds.retainAll(exactIds);
+            recallSum += exactIds.isEmpty() ? 1.0 : (double) approxIds.size() / exactIds.size();
+        }
+
+        double recall = recallSum / samples.size();
+        log.info("벡터 검색 재현율 측정 완료 - 모드: {}, 샘플: {}, Recall@{}: {}",
+                retriever.getQuantizationMode(), samples.size(), k, String.format("%.4f", recall));
+        return recall;
+    }
+
+    /**
+     * 재현율 측정 샘플 수를 1 ~ MAX_RECALL_SAMPLES 로 제한
+     */
+    public static int clampRecallSamples(int sampleSize) {
+        return Math.max(1, Math.min(sampleSize, MAX_RECALL_SAMPLES));
+    }
+
+    private List<String> exactSearchIds(PGvector vector, int k) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_indexscan = off");
+            return jdbcTemplate.queryForList(
+                    "SELECT id::text FROM " + getQualifiedTableName() + " ORDER BY embedding <=> ? LIMIT ?",
+                    String.class, vector, k);
+        });
+    }
+
+    /**
+     * 설치된 pgvector 확장이 HNSW 반복 스캔(hnsw.iterative_scan, 0.8 이상)을 지원하는지 확인
+     * 버전을 조회할 수 없으면 지원하지 않는 것으로 판단 (SET LOCAL 오류로 검색이 실패하지 않도록)
+     */
+    public boolean supportsIterativeScan() {
+        try {
+            List<String> versions = jdbcTemplate.queryForList(
+                    "SELECT extversion FROM pg_extension WHERE extname = 'vector'", String.class);
+            String version = versions.isEmpty() ? null : versions.get(0);
+            log.info("pgvector 확장 버전: {}", version);
+            return isIterativeScanSupported(version);
+        } catch (DataAccessException e) {
+            log.warn("pgvector 확장 버전 조회 실패 - HNSW 반복 스캔 사용 안 함: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * pgvector 버전 문자열(예: 0.8.0)이 0.8 이상인지 확인
+     */
+    public static boolean isIterativeScanSupported(String version) {
+        if (version == null || version.isBlank()) {
+            return false;
+        }
+        String[] parts = version.trim().split("\\.");
+        try {
+            int major = Integer.parseInt(parts[0]);
+            int minor = parts.length > 1 ? Integer.parseInt(parts[1].replaceAll("\\D.*", "")) : 0;
+            return major > 0 || minor >= 8;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public QuantizationMode getQuantizationMode() {
+        return QuantizationMode.valueOf(quantization.trim().toUpperCase());
+    }
+
+    public String getQualifiedTableName() {
+        return schemaName + "." + tableName;
+    }
+}
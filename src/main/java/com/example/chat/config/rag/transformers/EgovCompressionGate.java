@@ -0,0 +1,169 @@
+package com.example.chat.config.rag.transformers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.chat.config.rag.retrievers.EgovMaximalMarginalRelevance;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 질문 압축(LLM 호출) 필요 여부를 저비용 신호로 판단하는 게이트
+ * 1. 지시대명사(그거, 이것, 위의, it ...), 문장 첫머리 지시어(그럼, this ...) 또는 질문 전체가 생략형("예시는?")이면 압축
+ * 2. 그렇지 않으면 질문과 최근 사용자 질문의 임베딩 유사도가 기준 이상일 때만 압축 (같은 주제의 생략 질문)
+ * 3. 나머지는 독립 질문으로 보고 원본 질문으로 바로 검색
+ * 판단 결과는 rag.query.compression.decisions 카운터와 rag.query.compression.hit.rate 게이지로 집계
+ */
+@Slf4j
+@Component
+public class EgovCompressionGate {
+
+    // 한국어 지시대명사 및 앞 대화를 직접 가리키는 표현 (단어 시작 위치 기준, "범위의" 같은 단어 내부 일치 방지)
+    // 해당/이전/여기 등 독립 질문에도 흔한 표현은 제외하고 임베딩 유사도 판단에 맡김
+    private static final Pattern KOREAN_MARKERS = Pattern.compile(
+            "(^|\\s)(그것|그거|그게|그건|그걸|이것|이거|이게|이건|이걸|저것|저거|거기|그때|"
+            + "방금|아까|앞서|위에서|위의|마찬가지)"
+            // 관형사 그/저는 뒤에 공백이 오는 경우만 (조사 "이"와 구분, "이 오류" 같은 독립 질문은 제외)
+            + "|(^|\\s)(그|저)\\s"
+            // 앞 대화를 잇는 접속 표현은 문장 시작에서만
+            + "|(^|[.?!]\\s*)(그럼|그러면|그렇다면|그래서)(\\s|,|$)");
+
+    // 영어 대명사 (단어 경계 기준) - 지시어 this/that 등은 문장 시작에서만
+    private static final Pattern ENGLISH_MARKERS = Pattern.compile(
+            "\\b(it|its|they|them|the former|the latter)\\b"
+            + "|(^|[.?!]\\s*)(this|that|these|those|what about|how about|and then)\\b");
+
+    // 질문 전체가 생략형 후속 질문인 경우 ("예시는?", "왜요?", "more detail")
+    private static final Pattern ELLIPTICAL_QUESTION = Pattern.compile(
+            "^(다른\\s*(건|것|방법)(은|는)?|더\\s*자세히.*|예시는|예제는|나머지는|왜요|왜|"
+            + "another one|one more|more detail(s)?|why)\\s*[?.!]*$");
+
+    private final EmbeddingModel embeddingModel;
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final int recentTurns;
+
+    private final AtomicLong compressCount = new AtomicLong();
+    private final AtomicLong totalCount = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+
+    public EgovCompressionGate(EmbeddingModel embeddingModel, MeterRegistry meterRegistry,
+                               @Value("${rag.compression-gate.enabled:true}") boolean enabled,
+                               @Value("${rag.compression-gate.similarity-threshold:0.6}") double similarityThreshold,
+                               @Value("${rag.compression-gate.recent-turns:2}") int recentTurns) {
+        this.embeddingModel = embeddingModel;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.recentTurns = Math.max(1, recentTurns);
+
+        Gauge.builder("rag.query.compression.hit.rate", this, EgovCompressionGate::getCompressionHitRate)
+                .description("질문 압축(LLM 호출)이 실행된 비율")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 질문 압축 필요 여부 판단
+     *
+     * @param query 현재 질문
+     * @param history 대화 히스토리 (현재 질문이 마지막 사용자 메시지로 포함되어 있을 수 있음)
+     * @return 압축이 필요하면 true
+     */
+    public boolean shouldCompress(String query, List<Message> history) {
+        if (!enabled) {
+            return true;
+        }
+
+        List<String> previousQuestions = recentUserQuestions(query, history);
+        if (previousQuestions.isEmpty()) {
+            return record(false, "no_previous_turn", query, null);
+        }
+
+        String normalized = query.strip().toLowerCase(Locale.ROOT);
+        if (KOREAN_MARKERS.matcher(normalized).find() || ENGLISH_MARKERS.matcher(normalized).find()
+                || ELLIPTICAL_QUESTION.matcher(normalized).matches()) {
+            return record(true, "deictic_marker", query, null);
+        }
+
+        try {
+            List<String> texts = new ArrayList<>(previousQuestions.size() + 1);
+            texts.add(query);
+            texts.addAll(previousQuestions);
+            List<float[]> embeddings = embeddingModel.embed(texts);
+
+            double maxSimilarity = 0.0;
+            for (int i = 1; i < embeddings.size(); i++) {
+                maxSimilarity = Math.max(maxSimilarity,
+                        EgovMaximalMarginalRelevance.cosineSimilarity(embeddings.get(0), embeddings.get(i)));
+            }
+
+            return maxSimilarity >= similarityThreshold
+                    ? record(true, "similar_to_history", query, maxSimilarity)
+                    : record(false, "standalone", query, maxSimilarity);
+
+        } catch (Exception e) {
+            // 판단 실패 시 기존 동작(압축) 유지
+            log.warn("질문 압축 판단 중 임베딩 오류 - 압축 수행: {}", e.getMessage());
+            return record(true, "gate_error", query, null);
+        }
+    }
+
+    /**
+     * 현재 질문을 제외한 최근 사용자 질문 (최신순)
+     */
+    private List<String> recentUserQuestions(String query, List<Message> history) {
+        List<String> questions = new ArrayList<>(recentTurns);
+        for (int i = history.size() - 1; i >= 0 && questions.size() < recentTurns; i--) {
+            Message message = history.get(i);
+            if (message.getMessageType() != MessageType.USER) {
+                continue;
+            }
+            String text = message.getText();
+            if (text == null || text.isBlank() || (questions.isEmpty() && text.equals(query))) {
+                continue;
+            }
+            questions.add(text);
+        }
+        return questions;
+    }
+
+    private boolean record(boolean compress, String reason, String query, Double similarity) {
+        totalCount.incrementAndGet();
+        if (compress) {
+            compressCount.incrementAndGet();
+        }
+
+        Counter.builder("rag.query.compression.decisions")
+                .description("질문 압축 게이트 판단 횟수")
+                .tag("decision", compress ? "compress" : "skip")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+
+        log.info("질문 압축 게이트 - 결정: {}, 사유: {}, 유사도: {}, 질문: '{}' (압축률: {})",
+                compress ? "압축" : "생략", reason,
+                similarity != null ? String.format("%.4f", similarity) : "-", query,
+                String.format("%.2f", getCompressionHitRate()));
+        return compress;
+    }
+
+    /**
+     * 지금까지 판단한 질문 중 압축이 실행된 비율 (0.0 ~ 1.0)
+     */
+    public double getCompressionHitRate() {
+        long total = totalCount.get();
+        return total == 0 ? 0.0 : (double) compressCount.get() / total;
+    }
+}
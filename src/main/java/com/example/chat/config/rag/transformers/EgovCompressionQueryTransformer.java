@@ -1,150 +1,264 @@
 package com.example.chat.config.rag.transformers;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.messages.Message;
-import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.ollama.api.OllamaOptions;
 import org.springframework.ai.rag.Query;
 import org.springframework.ai.rag.preretrieval.query.transformation.CompressionQueryTransformer;
+import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 
+import com.example.chat.config.metrics.EgovChatMetrics;
+import com.example.chat.context.RequestDeadline;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * 대화 히스토리 기반 질문 압축 QueryTransformer
+ * 싱글톤 RAG 어드바이저 체인에서 재사용되며, 세션 ID는 요청마다 어드바이저 컨텍스트
+ * (ChatMemory.CONVERSATION_ID)로 전달받음
+ * - 압축은 별도로 설정한 소형 모델(rag.compression.model)로 수행 가능
+ * - 압축 결과는 (세션, 히스토리 해시, 질문) 키로 캐시하여 재시도/재생성 시 LLM 호출 생략
+ */
 @Slf4j
 @Component
-public class EgovCompressionQueryTransformer {
+public class EgovCompressionQueryTransformer implements QueryTransformer {
+
+    /**
+     * 압축 프롬프트 (Spring AI 기본 템플릿 + 추론 비활성화 지시)
+     * /no_think: Qwen3 등 하이브리드 추론 모델의 추론 출력 비활성화 지시어
+     */
+    private static final PromptTemplate COMPRESSION_PROMPT = new PromptTemplate("""
+            /no_think
+            Given the following conversation history and a follow-up query, your task is to synthesize
+            a concise, standalone query that incorporates the context from the history.
+            Ensure the standalone query is clear, specific, and maintains the user's intent.
+            Answer with the standalone query only, in the same language as the follow-up query,
+            without any explanation or reasoning.
+
+            Conversation history:
+            {history}
+
+            Follow-up query:
+            {query}
+
+            Standalone query:
+            """);
 
     private final ChatMemory chatMemory;
-    private final ChatClient chatClient;
-    
-    public EgovCompressionQueryTransformer(ChatMemory chatMemory, ChatClient chatClient) {
+    private final EgovCompressionGate compressionGate;
+    private final CompressionQueryTransformer compressionTransformer;
+    private final Cache<String, String> compressedQueryCache;
+    private final EgovChatMetrics chatMetrics;
+
+    public EgovCompressionQueryTransformer(ChatMemory chatMemory, ChatClient chatClient, EgovCompressionGate compressionGate,
+                                           EgovChatMetrics chatMetrics,
+                                           @Value("${rag.compression.model:}") String compressionModel,
+                                           @Value("${rag.compression.num-predict:128}") int numPredict,
+                                           @Value("${rag.compression.cache.max-size:1000}") long cacheMaxSize,
+                                           @Value("${rag.compression.cache.expire-after-write:30m}") Duration cacheExpireAfterWrite) {
         this.chatMemory = chatMemory;
-        this.chatClient = chatClient;
+        this.compressionGate = compressionGate;
+        this.chatMetrics = chatMetrics;
+
+        // Spring AI 기본 CompressionQueryTransformer는 상태가 없으므로 한 번만 생성하여 재사용
+        // temperature를 낮춰서 더 정확하고 일관된 압축 결과 생성, 출력 토큰 수를 제한하여 장황한 응답 방지
+        // 모델 미지정 시 기본 채팅 모델 사용
+        OllamaOptions compressionOptions = OllamaOptions.builder()
+            .model(compressionModel == null || compressionModel.isBlank() ? null : compressionModel)
+            .temperature(0.00) // 공식 문서 권장: 정확한 질문 압축을 위해 낮은 temperature 사용
+            .numPredict(numPredict)
+            .build();
+        this.compressionTransformer = CompressionQueryTransformer.builder()
+            .chatClientBuilder(chatClient.mutate().defaultOptions(compressionOptions))
+            .promptTemplate(COMPRESSION_PROMPT)
+            .build();
+
+        this.compressedQueryCache = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfterWrite(cacheExpireAfterWrite)
+            .build();
+
+        log.info("질문 압축 구성 - 모델: {}, 최대 출력 토큰: {}, 캐시: {}개/{}",
+            compressionModel == null || compressionModel.isBlank() ? "기본 채팅 모델" : compressionModel,
+            numPredict, cacheMaxSize, cacheExpireAfterWrite);
+    }
+
+    /**
+     * 어드바이저 컨텍스트의 대화 ID로 히스토리 압축 수행
+     */
+    @Override
+    public Query transform(@NonNull Query query) {
+        Object conversationId = query.context().get(ChatMemory.CONVERSATION_ID);
+        return transformWithSessionId(query, conversationId != null ? conversationId.toString() : null);
     }
 
-    
     /**
      * 세션 ID를 직접 전달받아 히스토리 압축을 수행하는 메서드
      */
     public Query transformWithSessionId(@NonNull Query query, String sessionId) {
         log.info("히스토리 압축 시작 - 세션 ID: {}, 원본 질문: {}", sessionId, query.text());
-        
+
         // 세션 ID가 유효하지 않은 경우 히스토리 압축 건너뛰기
         if (sessionId == null || sessionId.trim().isEmpty() || "default".equals(sessionId)) {
             log.warn("유효하지 않은 세션 ID: {} - 히스토리 압축 건너뛰기", sessionId);
             return query;
         }
-        
+
         String originalQuery = query.text();
         log.debug("원본 질문: {}", originalQuery);
-        
-        // 질문이 너무 짧거나 불완전한 경우 히스토리 압축을 건너뛰고 원본 반환
-        if (isIncompleteQuery(originalQuery)) {
-            log.info("불완전한 질문으로 판단, 히스토리 압축 건너뛰기: {}", originalQuery);
+
+        // 빈 질문은 압축할 대상이 없음
+        // 짧은 질문("예시는?", "왜요?")은 히스토리가 가장 필요한 생략형 후속 질문이므로 길이로 건너뛰지 않고 게이트가 판단
+        if (originalQuery == null || originalQuery.isBlank()) {
             return query;
         }
-        
-        // 세션 히스토리 조회
+
+        // 대화 히스토리 조회
+        // RAG 어드바이저는 ChatMemory 어드바이저가 구성한 프롬프트 메시지를 Query 히스토리로 전달하므로
+        // 히스토리가 있으면 ChatMemory를 다시 조회하지 않음
         List<Message> conversationHistory;
         try {
-            conversationHistory = chatMemory.get(sessionId);
-            
+            conversationHistory = previousTurns(
+                query.history().isEmpty() ? chatMemory.get(sessionId) : query.history(), originalQuery);
+
             if (conversationHistory.isEmpty()) {
                 log.info("대화 히스토리가 없음: {}", sessionId);
                 return query;
             }
-            
+
             log.info("대화 히스토리 발견: {} - {} 개 메시지", sessionId, conversationHistory.size());
-            
+
         } catch (Exception e) {
             log.warn("세션 {} 히스토리 조회 중 오류 발생 - 히스토리 압축 건너뛰기: {}", sessionId, e.getMessage());
             return query;
         }
-        
+
+        // 지시어/임베딩 유사도로 독립 질문이 확실하면 LLM 압축 호출 생략
+        if (!compressionGate.shouldCompress(originalQuery, conversationHistory)) {
+            return query;
+        }
+
         // 대화 히스토리 분석 및 로깅
-        log.info("대화 히스토리 분석 시작 - {} 개 메시지", conversationHistory.size());
+        log.debug("대화 히스토리 분석 시작 - {} 개 메시지", conversationHistory.size());
         for (int i = 0; i < conversationHistory.size(); i++) {
             Message msg = conversationHistory.get(i);
             String content = msg.getText();
             String preview = content.length() > 100 ? content.substring(0, 100) + "..." : content;
-            log.info("히스토리 {}: {} - {}", i + 1, msg.getClass().getSimpleName(), preview);
+            log.debug("히스토리 {}: {} - {}", i + 1, msg.getClass().getSimpleName(), preview);
+        }
+
+        // 같은 세션, 같은 히스토리, 같은 질문이면 캐시된 압축 결과 사용 (재시도/재생성)
+        String cacheKey = cacheKey(sessionId, conversationHistory, originalQuery);
+        String compressedText = compressedQueryCache.getIfPresent(cacheKey);
+        if (compressedText != null) {
+            log.info("압축 캐시 적중 - 세션: {}, 압축된 질문: '{}'", sessionId, compressedText);
+        } else if (RequestDeadline.isCancelled(query.context())) {
+            // 클라이언트 연결 종료 또는 기한 초과 후에는 압축 LLM 호출을 시작하지 않음
+            log.info("요청 취소됨 - 질문 압축 생략: {}", sessionId);
+            return query;
+        } else {
+            long startNanos = System.nanoTime();
+            compressedText = compress(originalQuery, conversationHistory);
+            chatMetrics.recordStage(EgovChatMetrics.QUERY_COMPRESSION, query.context(), startNanos);
+            compressedQueryCache.put(cacheKey, compressedText);
         }
-        
+
+        // 정리된 텍스트로 Query 재생성
+        // history를 유지하여 downstream RAG 컴포넌트가 맥락을 활용할 수 있도록 함
+        // context에는 메타데이터 필터 등 어드바이저 파라미터가 있으므로 그대로 전달
+        Query finalQuery = Query.builder()
+            .text(compressedText)
+            .history(conversationHistory)  // 히스토리 보존
+            .context(query.context())
+            .build();
+
+        return finalQuery;
+    }
+
+    /**
+     * 압축 모델 호출
+     */
+    private String compress(String originalQuery, List<Message> conversationHistory) {
         // 대화 히스토리를 Query 객체로 변환
         Query queryWithHistory = Query.builder()
-            .text(query.text())
+            .text(originalQuery)
             .history(conversationHistory)
             .build();
-        
-        // Spring AI 기본 CompressionQueryTransformer 사용
-        // temperature를 낮춰서 더 정확하고 일관된 압축 결과 생성
-        CompressionQueryTransformer compressionTransformer = CompressionQueryTransformer.builder()
-            .chatClientBuilder(chatClient.mutate()
-                .defaultOptions(ChatOptions.builder()
-                    .temperature(0.00) // 공식 문서 권장: 정확한 질문 압축을 위해 낮은 temperature 사용
-                    .build()))
-            .build();
-        
-        Query compressedQuery = compressionTransformer.transform(queryWithHistory);
-        String compressedText = compressedQuery.text();
-        
-        log.info("압축 전 원본 텍스트: '{}'", compressedText);
-        
-        // <think> 블록 제거
+
+        String compressedText = compressionTransformer.transform(queryWithHistory).text();
+
+        // 추론 비활성화 지시를 따르지 않는 모델 대비 <think> 블록 제거
         if (compressedText.contains("<think>")) {
-            log.info("<think> 블록 감지됨, 제거 시작");
-            // <think> 블록 이후의 실제 질문만 추출
+            log.warn("압축 응답에 <think> 블록 감지됨 - 추론 비활성화를 지원하지 않는 모델일 수 있음");
             String[] parts = compressedText.split("</think>");
             if (parts.length > 1) {
                 compressedText = parts[1].trim();
-                log.info("</think> 이후 텍스트 추출: '{}'", compressedText);
             } else {
-                // </think>가 없는 경우 <think> 이후 부분만 추출
-                int thinkIndex = compressedText.indexOf("<think>");
-                if (thinkIndex != -1) {
-                    compressedText = compressedText.substring(thinkIndex + 7).trim();
-                    log.info("<think> 이후 텍스트 추출: '{}'", compressedText);
-                }
+                // </think>가 없는 경우(출력 토큰 제한으로 잘림) 원본 질문 사용
+                compressedText = originalQuery;
             }
-        } else {
-            log.info("<think> 블록 없음, 원본 텍스트 사용: '{}'", compressedText);
         }
-        
-        log.info("최종 압축된 질문: '{}'", compressedText);
 
-        // 정리된 텍스트로 Query 재생성
-        // history를 유지하여 downstream RAG 컴포넌트가 맥락을 활용할 수 있도록 함
-        Query finalQuery = Query.builder()
-            .text(compressedText)
-            .history(conversationHistory)  // 히스토리 보존
-            .build();
+        compressedText = compressedText.trim();
+        if (compressedText.isEmpty()) {
+            compressedText = originalQuery;
+        }
 
-        return finalQuery;
+        log.info("최종 압축된 질문: '{}'", compressedText);
+        return compressedText;
     }
-    
+
     /**
-     * 질문이 불완전한지 확인
-     * 너무 짧거나, 맥락이 필요한 질문인지 판단
+     * 히스토리에서 사용자/어시스턴트 메시지만 남기고, 끝에 포함된 현재 질문은 제외
      */
-    private boolean isIncompleteQuery(String query) {
-        if (query == null || query.trim().length() < 5) {
-            return true;
+    private List<Message> previousTurns(List<Message> history, String currentQuery) {
+        List<Message> turns = new ArrayList<>(history.size());
+        for (Message message : history) {
+            if (message.getMessageType() == MessageType.USER || message.getMessageType() == MessageType.ASSISTANT) {
+                turns.add(message);
+            }
         }
-        
-        // 매우 짧은 질문만 불완전으로 판단
-        String[] words = query.trim().split("\\s+");
-        if (words.length < 2) {
-            return true;
+        while (!turns.isEmpty()) {
+            Message last = turns.get(turns.size() - 1);
+            if (last.getMessageType() != MessageType.USER || !currentQuery.equals(last.getText())) {
+                break;
+            }
+            turns.remove(turns.size() - 1);
         }
-        
-        // 단일 단어나 매우 짧은 질문만 불완전으로 판단
-        if (query.trim().length() < 5) {
-            return true;
+        return turns;
+    }
+
+    /**
+     * 압축 캐시 키: 세션 ID + 히스토리 해시 + 질문
+     */
+    private String cacheKey(String sessionId, List<Message> history, String query) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Message message : history) {
+                digest.update(message.getMessageType().name().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(String.valueOf(message.getText()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return sessionId + ":" + HexFormat.of().formatHex(digest.digest()) + ":" + query;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 알고리즘을 사용할 수 없습니다", e);
         }
-        
-        return false;
     }
-}
\ No newline at end of file
+}
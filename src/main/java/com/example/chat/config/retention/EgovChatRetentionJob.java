@@ -0,0 +1,302 @@
+package com.example.chat.config.retention;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.chat.dto.ChatSessionBulkResult;
+import com.example.chat.repository.EgovAppendOnlyChatMemoryRepository;
+import com.example.chat.repository.EgovChatSessionBulkRepository;
+import com.example.chat.service.EgovChatSessionService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 채팅 데이터 보존 작업
+ * - 세션: 마지막 메시지 후 session-ttl 이 지난 세션을 batch-size 개씩 보관(archive) 또는 삭제
+ * - 메시지: memory-ttl 이 지난 메시지 제거
+ *   spring_ai_chat_memory 가 월 단위 파티션 테이블(V6 마이그레이션)이면 만료된 파티션을 DROP 하고,
+ *   아니면 ctid 기준으로 batch-size 개씩 DELETE
+ *   메시지 삭제는 ChatMemory 저장소를 거쳐 실행하여 write-behind 대기 작업을 먼저 반영하고 삭제된 메시지의 윈도우 캐시를 무효화
+ * - 파티션 테이블이면 다음 months-ahead 개월의 파티션을 미리 생성 (chat.retention.enabled 와 무관하게 실행)
+ * 한 번 실행에 최대 max-batches-per-run 개 배치만 처리하고 배치 사이에 batch-pause 만큼 쉬어
+ * 요청 경로의 DB 부하와 잠금 시간을 제한
+ *
+ * 지표
+ * - chat.retention.sessions{action=archive|delete}: 처리된 세션 수
+ * - chat.retention.messages{action=archive|delete|drop_partition}: 처리된 메시지 수
+ * - chat.retention.partitions{action=created|dropped}: 생성/삭제된 파티션 수
+ * - chat.retention.duration: 보존 작업 실행 시간
+ */
+@Slf4j
+@Component
+public class EgovChatRetentionJob {
+
+    private static final String MEMORY_TABLE = "spring_ai_chat_memory";
+    private static final String PARTITION_PREFIX = MEMORY_TABLE + "_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String IS_PARTITIONED_SQL = """
+            SELECT EXISTS (
+                SELECT 1 FROM pg_partitioned_table pt
+                  JOIN pg_class c ON c.oid = pt.partrelid
+                 WHERE c.relname = ? AND pg_table_is_visible(c.oid))
+            """;
+    private static final String SELECT_PARTITIONS_SQL = """
+            SELECT c.relname,
+                   c.reltuples::bigint AS estimated_rows
+              FROM pg_inherits i
+              JOIN pg_class c ON c.oid = i.inhrelid
+              JOIN pg_class p ON p.oid = i.inhparent
+             WHERE p.relname = ? AND pg_table_is_visible(p.oid)
+            """;
+    private static final String CREATE_PARTITION_SQL =
+            "CREATE TABLE IF NOT EXISTS %s PARTITION OF " + MEMORY_TABLE + " FOR VALUES FROM ('%s') TO ('%s')";
+    private static final String DROP_PARTITION_SQL = "DROP TABLE IF EXISTS %s";
+
+    /**
+     * 파티션이 아닌 테이블의 만료 메시지 배치 삭제 (ctid 로 LIMIT 건만 잠금/삭제)
+     */
+    private static final String DELETE_EXPIRED_MESSAGES_SQL = """
+            DELETE FROM spring_ai_chat_memory
+             WHERE ctid = ANY(ARRAY(
+                   SELECT ctid FROM spring_ai_chat_memory
+                    WHERE "timestamp" < ?
+                    LIMIT ?))
+            """;
+
+    private final EgovChatSessionService chatSessionService;
+    private final EgovChatSessionBulkRepository chatSessionBulkRepository;
+    private final EgovAppendOnlyChatMemoryRepository chatMemoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer runTimer;
+
+    private final boolean enabled;
+    private final boolean archive;
+    private final Duration sessionTtl;
+    private final Duration memoryTtl;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration batchPause;
+    private final int monthsAhead;
+
+    public EgovChatRetentionJob(EgovChatSessionService chatSessionService,
+                                EgovChatSessionBulkRepository chatSessionBulkRepository,
+                                EgovAppendOnlyChatMemoryRepository chatMemoryRepository,
+                                JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${chat.retention.enabled:false}") boolean enabled,
+                                @Value("${chat.retention.mode:archive}") String mode,
+                                @Value("${chat.retention.session-ttl:90d}") Duration sessionTtl,
+                                @Value("${chat.retention.memory-ttl:180d}") Duration memoryTtl,
+                                @Value("${chat.retention.batch-size:100}") int batchSize,
+                                @Value("${chat.retention.max-batches-per-run:50}") int maxBatchesPerRun,
+                                @Value("${chat.retention.batch-pause:100ms}") Duration batchPause,
+                                @Value("${chat.retention.partitioning.months-ahead:2}") int monthsAhead) {
+        this.chatSessionService = chatSessionService;
+        this.chatSessionBulkRepository = chatSessionBulkRepository;
+        this.chatMemoryRepository = chatMemoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.archive = switch (mode.trim().toLowerCase()) {
+            case "archive" -> true;
+            case "delete" -> false;
+            default -> throw new IllegalArgumentException("지원하지 않는 보존 모드: " + mode + " (archive 또는 delete)");
+        };
+        this.sessionTtl = sessionTtl;
+        this.memoryTtl = memoryTtl;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.batchPause = batchPause;
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.runTimer = Timer.builder("chat.retention.duration")
+                .description("채팅 데이터 보존 작업 실행 시간")
+                .register(meterRegistry);
+
+        if (enabled) {
+            log.info("채팅 데이터 보존 작업 활성화 - 모드: {}, 세션 보존: {}, 메시지 보존: {}, 배치: {}개 x 최대 {}회",
+                    archive ? "보관" : "삭제", sessionTtl, memoryTtl, this.batchSize, this.maxBatchesPerRun);
+        }
+    }
+
+    /**
+     * 주기 실행 (이전 실행 종료 후 interval 만큼 대기)
+     */
+    @Scheduled(initialDelayString = "${chat.retention.initial-delay:5m}",
+            fixedDelayString = "${chat.retention.interval:1h}")
+    public void run() {
+        runTimer.record(() -> {
+            try {
+                boolean partitioned = isMemoryPartitioned();
+                if (partitioned) {
+                    createUpcomingPartitions();
+                }
+                if (!enabled) {
+                    return;
+                }
+                purgeIdleSessions();
+                if (partitioned) {
+                    dropExpiredPartitions();
+                } else {
+                    deleteExpiredMessages();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.info("채팅 데이터 보존 작업 중단");
+            } catch (DataAccessException e) {
+                log.error("채팅 데이터 보존 작업 중 오류 발생", e);
+            }
+        });
+    }
+
+    /**
+     * 유휴 세션 보관/삭제 (오래된 세션부터 배치 단위)
+     */
+    private void purgeIdleSessions() throws InterruptedException {
+        LocalDateTime cutoff = LocalDateTime.now().minus(sessionTtl);
+        String action = archive ? "archive" : "delete";
+        int totalSessions = 0;
+        int totalMessages = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<String> sessionIds = chatSessionBulkRepository.findIdleSessionIds(cutoff, batchSize);
+            if (sessionIds.isEmpty()) {
+                break;
+            }
+            ChatSessionBulkResult result = archive
+                    ? chatSessionService.archiveSessions(sessionIds)
+                    : chatSessionService.deleteSessions(sessionIds);
+            totalSessions += result.getSessions();
+            totalMessages += result.getMessages();
+            meterRegistry.counter("chat.retention.sessions", "action", action).increment(result.getSessions());
+            meterRegistry.counter("chat.retention.messages", "action", action).increment(result.getMessages());
+
+            if (sessionIds.size() < batchSize) {
+                break;
+            }
+            Thread.sleep(batchPause.toMillis());
+        }
+
+        if (totalSessions > 0) {
+            log.info("유휴 세션 {} 완료 - 기준: {} 이전, 세션: {}개, 메시지: {}개",
+                    archive ? "보관" : "삭제", cutoff, totalSessions, totalMessages);
+        }
+    }
+
+    /**
+     * 파티션이 아닌 메모리 테이블의 만료 메시지 배치 삭제
+     */
+    private void deleteExpiredMessages() throws InterruptedException {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(memoryTtl));
+        int total = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int deleted = chatMemoryRepository.purgeMessagesBefore(cutoff.getTime(),
+                    () -> jdbcTemplate.update(DELETE_EXPIRED_MESSAGES_SQL, cutoff, batchSize));
+            total += deleted;
+            meterRegistry.counter("chat.retention.messages", "action", "delete").increment(deleted);
+            if (deleted < batchSize) {
+                break;
+            }
+            Thread.sleep(batchPause.toMillis());
+        }
+
+        if (total > 0) {
+            log.info("만료 메시지 삭제 완료 - 기준: {} 이전, 메시지: {}개", cutoff, total);
+        }
+    }
+
+    /**
+     * 이번 달부터 months-ahead 개월 뒤까지 월별 파티션 생성
+     * 기본 파티션에 같은 범위의 행이 이미 있으면 생성이 실패하므로 경고만 남기고 다음 실행에서 재시도
+     */
+    private void createUpcomingPartitions() {
+        List<String> existing = findPartitions().stream().map(Partition::name).toList();
+        YearMonth current = YearMonth.now();
+
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+            if (existing.contains(name)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute(String.format(CREATE_PARTITION_SQL, name,
+                        month.atDay(1), month.plusMonths(1).atDay(1)));
+                meterRegistry.counter("chat.retention.partitions", "action", "created").increment();
+                log.info("대화 메모리 파티션 생성: {}", name);
+            } catch (DataAccessException e) {
+                log.warn("대화 메모리 파티션 {} 생성 실패 (기본 파티션에 같은 기간의 행이 있을 수 있음): {}",
+                        name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 상한(다음 달 1일)이 메시지 보존 기준 이전인 월별 파티션 삭제
+     */
+    private void dropExpiredPartitions() {
+        LocalDate cutoff = LocalDateTime.now().minus(memoryTtl).toLocalDate();
+
+        for (Partition partition : findPartitions()) {
+            YearMonth month = parsePartitionMonth(partition.name());
+            if (month == null) {
+                continue;
+            }
+            LocalDate upperBound = month.plusMonths(1).atDay(1);
+            if (upperBound.isAfter(cutoff)) {
+                continue;
+            }
+            chatMemoryRepository.purgeMessagesBefore(Timestamp.valueOf(upperBound.atStartOfDay()).getTime(), () -> {
+                jdbcTemplate.execute(String.format(DROP_PARTITION_SQL, partition.name()));
+                return null;
+            });
+            meterRegistry.counter("chat.retention.partitions", "action", "dropped").increment();
+            meterRegistry.counter("chat.retention.messages", "action", "drop_partition")
+                    .increment(Math.max(0, partition.estimatedRows()));
+            log.info("만료된 대화 메모리 파티션 삭제: {} (추정 행 수: {})", partition.name(), partition.estimatedRows());
+        }
+    }
+
+    private boolean isMemoryPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Boolean.class, MEMORY_TABLE));
+    }
+
+    private List<Partition> findPartitions() {
+        return jdbcTemplate.query(SELECT_PARTITIONS_SQL,
+                (rs, rowNum) -> new Partition(rs.getString("relname"), rs.getLong("estimated_rows")),
+                MEMORY_TABLE);
+    }
+
+    /**
+     * 파티션 이름(spring_ai_chat_memory_pYYYYMM)에서 월 추출 (기본 파티션 등은 null)
+     */
+    private static YearMonth parsePartitionMonth(String name) {
+        if (!name.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private record Partition(String name, long estimatedRows) {
+    }
+}
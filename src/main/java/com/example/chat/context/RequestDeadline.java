@@ -0,0 +1,74 @@
+package com.example.chat.context;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 채팅 요청의 응답 기한과 취소 상태
+ * 어드바이저 컨텍스트(CONTEXT_KEY)로 전달되어, 클라이언트 연결 종료나 기한 초과 후에는
+ * 어드바이저 체인 내부의 질문 압축/문서 검색 등 블로킹 작업을 시작하지 않도록 함
+ */
+public final class RequestDeadline {
+
+    public static final String CONTEXT_KEY = "egov_request_deadline";
+
+    private final Duration timeout;
+    private final long deadlineNanos;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    private RequestDeadline(Duration timeout) {
+        this.timeout = timeout;
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * 현재 시각부터 timeout 이후를 기한으로 하는 RequestDeadline 생성
+     */
+    public static RequestDeadline after(Duration timeout) {
+        return new RequestDeadline(timeout);
+    }
+
+    /**
+     * 어드바이저 컨텍스트의 RequestDeadline (없으면 null)
+     */
+    public static RequestDeadline from(Map<String, Object> context) {
+        return context != null && context.get(CONTEXT_KEY) instanceof RequestDeadline deadline ? deadline : null;
+    }
+
+    /**
+     * 어드바이저 컨텍스트 기준 취소 또는 기한 초과 여부 (RequestDeadline이 없으면 false)
+     */
+    public static boolean isCancelled(Map<String, Object> context) {
+        RequestDeadline deadline = from(context);
+        return deadline != null && deadline.isCancelled();
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 남은 시간 (기한이 지났으면 0)
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0L, deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * 취소 표시
+     *
+     * @return 이번 호출로 처음 취소된 경우 true
+     */
+    public boolean cancel() {
+        return cancelled.compareAndSet(false, true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get() || isExpired();
+    }
+}
@@ -1,15 +1,19 @@
 package com.example.chat.controller;
 
+import com.example.chat.dto.ChatMessagePage;
 import com.example.chat.dto.ChatSession;
-import com.example.chat.dto.ChatMessageDto;
+import com.example.chat.dto.ChatSessionBulkResult;
+import com.example.chat.dto.ChatSessionPage;
 import com.example.chat.service.EgovChatSessionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.ai.chat.messages.AssistantMessage;
-import org.springframework.ai.chat.messages.Message;
-import org.springframework.ai.chat.messages.SystemMessage;
-import org.springframework.ai.chat.messages.UserMessage;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -19,11 +23,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.stream.Collectors;
-import java.lang.reflect.Method;
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @Slf4j
 @RestController
@@ -34,6 +36,12 @@ public class EgovChatSessionController {
 
     private final EgovChatSessionService chatSessionService;
 
+    /**
+     * 일괄 처리 요청당 최대 세션 수
+     */
+    @Value("${chat.sessions.max-bulk-size:1000}")
+    private int maxBulkSize;
+
     @PostMapping
     public ResponseEntity<ChatSession> createNewSession() {
         try {
@@ -46,12 +54,41 @@ public class EgovChatSessionController {
         }
     }
 
+    /**
+     * 세션 목록 페이지 조회 (마지막 메시지 시간 내림차순)
+     * 응답의 nextCursor를 cursor 파라미터로 전달하여 다음 페이지 조회
+     * 세션 목록 버전으로 ETag를 만들어 If-None-Match가 일치하면 목록을 조회하지 않고 304 응답
+     * (메시지 수는 응답 저장만으로도 바뀌므로 includeMessageCount=true 이면 ETag 미사용)
+     */
     @GetMapping
-    public ResponseEntity<List<ChatSession>> getAllSessions() {
+    public ResponseEntity<ChatSessionPage> getSessions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean includeMessageCount,
+            WebRequest webRequest) {
         try {
-            List<ChatSession> sessions = chatSessionService.getAllSessions();
-            log.debug("세션 목록 조회: {} 개", sessions.size());
-            return ResponseEntity.ok(sessions);
+            String etag = null;
+            if (!includeMessageCount) {
+                etag = "sessions-" + chatSessionService.getSessionListVersion()
+                        + "-" + Integer.toHexString(Objects.hash(cursor, size));
+                if (webRequest.checkNotModified(etag)) {
+                    log.debug("세션 목록 변경 없음 (304)");
+                    return null;
+                }
+            }
+
+            ChatSessionPage page = chatSessionService.getSessions(cursor, size, includeMessageCount);
+            log.debug("세션 목록 조회: {} 개, 다음 페이지: {}", page.getSessions().size(), page.isHasMore());
+            if (etag == null) {
+                return ResponseEntity.ok(page);
+            }
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(etag)
+                    .body(page);
+        } catch (IllegalArgumentException e) {
+            log.warn("세션 목록 조회 요청 오류: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("세션 목록 조회 실패", e);
             return ResponseEntity.internalServerError().build();
@@ -75,49 +112,27 @@ public class EgovChatSessionController {
         }
     }
 
+    /**
+     * 세션 메시지 이력 페이지 조회 (최신 페이지부터, 페이지 내 시간순)
+     * 응답의 nextCursor를 cursor 파라미터로 전달하여 더 이전 메시지 조회
+     */
     @GetMapping("/{sessionId}/messages")
-    public ResponseEntity<List<ChatMessageDto>> getSessionMessages(@PathVariable String sessionId) {
+    public ResponseEntity<ChatMessagePage> getSessionMessages(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
             if (!chatSessionService.sessionExists(sessionId)) {
                 log.warn("존재하지 않는 세션 ID: {}", sessionId);
                 return ResponseEntity.notFound().build();
             }
 
-            List<Message> messages = chatSessionService.getSessionMessages(sessionId);
-            log.debug("세션 {} 메시지 조회 결과: {} 개의 메시지", sessionId, messages.size());
-            
-            // Spring AI Message를 ChatMessageDto로 변환
-            List<ChatMessageDto> messageDtos = messages.stream()
-                    .map(message -> {
-                        String messageTypeStr = message.getMessageType().name();
-                        String content;
-                        
-                        // Message 타입별로 실제 텍스트 내용 추출
-                        if (message instanceof UserMessage) {
-                            UserMessage userMsg = (UserMessage) message;
-                            content = userMsg.getText();
-                        } else if (message instanceof AssistantMessage) {
-                            AssistantMessage assistantMsg = (AssistantMessage) message;
-                            content = assistantMsg.getText();
-                        } else if (message instanceof SystemMessage) {
-                            SystemMessage systemMsg = (SystemMessage) message;
-                            content = systemMsg.getText();
-                        } else {
-                            // fallback - 다른 메시지 타입의 경우
-                            try {
-                                Method getTextMethod = message.getClass().getMethod("getText");
-                                content = (String) getTextMethod.invoke(message);
-                            } catch (Exception e) {
-                                content = "메시지 내용을 가져올 수 없습니다";
-                            }
-                        }
-                        
-                        return new ChatMessageDto(messageTypeStr, content);
-                    })
-                    .collect(Collectors.toList());
-            
-            log.debug("세션 메시지 조회: {} - {} 개 메시지", sessionId, messageDtos.size());
-            return ResponseEntity.ok(messageDtos);
+            ChatMessagePage page = chatSessionService.getSessionMessages(sessionId, cursor, size);
+            log.debug("세션 메시지 조회: {} - {} 개 메시지, 이전 페이지: {}", sessionId, page.getMessages().size(), page.isHasMore());
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            log.warn("세션 메시지 조회 요청 오류: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("세션 메시지 조회 실패: {}", sessionId, e);
             return ResponseEntity.internalServerError().build();
@@ -143,15 +158,17 @@ public class EgovChatSessionController {
         }
     }
 
+    /**
+     * 세션 삭제 (존재 여부 확인 없이 삭제 결과로 404 판단)
+     */
     @DeleteMapping("/{sessionId}")
     public ResponseEntity<Void> deleteSession(@PathVariable String sessionId) {
         try {
-            if (!chatSessionService.sessionExists(sessionId)) {
+            ChatSessionBulkResult result = chatSessionService.deleteSessions(List.of(sessionId));
+            if (result.getSessions() == 0) {
                 log.warn("존재하지 않는 세션 ID: {}", sessionId);
                 return ResponseEntity.notFound().build();
             }
-
-            chatSessionService.deleteSession(sessionId);
             log.info("세션 삭제: {}", sessionId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
@@ -160,6 +177,67 @@ public class EgovChatSessionController {
         }
     }
 
+    /**
+     * 여러 세션 일괄 삭제 (한 트랜잭션, 테이블마다 한 문장)
+     * 존재하지 않는 세션 ID는 무시되며 응답의 sessions로 실제 삭제된 수를 확인
+     */
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<ChatSessionBulkResult> deleteSessions(@RequestBody BulkSessionsRequest request) {
+        List<String> sessionIds = request.getSessionIds();
+        if (sessionIds == null || sessionIds.isEmpty() || sessionIds.size() > maxBulkSize) {
+            log.warn("세션 일괄 삭제 요청 오류: 세션 수 {} (최대 {})",
+                    sessionIds == null ? 0 : sessionIds.size(), maxBulkSize);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(chatSessionService.deleteSessions(sessionIds));
+        } catch (Exception e) {
+            log.error("세션 일괄 삭제 실패: {} 개", sessionIds.size(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 여러 세션 일괄 보관 (세션 정보와 메시지를 보관 테이블로 이동, 한 트랜잭션)
+     */
+    @PostMapping("/bulk/archive")
+    public ResponseEntity<ChatSessionBulkResult> archiveSessions(@RequestBody BulkSessionsRequest request) {
+        List<String> sessionIds = request.getSessionIds();
+        if (sessionIds == null || sessionIds.isEmpty() || sessionIds.size() > maxBulkSize) {
+            log.warn("세션 일괄 보관 요청 오류: 세션 수 {} (최대 {})",
+                    sessionIds == null ? 0 : sessionIds.size(), maxBulkSize);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(chatSessionService.archiveSessions(sessionIds));
+        } catch (Exception e) {
+            log.error("세션 일괄 보관 실패: {} 개", sessionIds.size(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 여러 세션 제목 일괄 변경 (세션 ID별 제목, 단일 UPDATE 문)
+     */
+    @PutMapping("/bulk/title")
+    public ResponseEntity<ChatSessionBulkResult> updateSessionTitles(@RequestBody BulkTitleRequest request) {
+        Map<String, String> titles = request.getTitles();
+        if (titles == null || titles.isEmpty() || titles.size() > maxBulkSize) {
+            log.warn("세션 제목 일괄 변경 요청 오류: 세션 수 {} (최대 {})",
+                    titles == null ? 0 : titles.size(), maxBulkSize);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(chatSessionService.renameSessions(titles));
+        } catch (IllegalArgumentException e) {
+            log.warn("세션 제목 일괄 변경 요청 오류: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("세션 제목 일괄 변경 실패: {} 개", titles.size(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     public static class UpdateTitleRequest {
         private String title;
 
@@ -177,4 +255,40 @@ public class EgovChatSessionController {
             this.title = title;
         }
     }
+
+    public static class BulkSessionsRequest {
+        private List<String> sessionIds;
+
+        public BulkSessionsRequest() {}
+
+        public BulkSessionsRequest(List<String> sessionIds) {
+            this.sessionIds = sessionIds;
+        }
+
+        public List<String> getSessionIds() {
+            return sessionIds;
+        }
+
+        public void setSessionIds(List<String> sessionIds) {
+            this.sessionIds = sessionIds;
+        }
+    }
+
+    public static class BulkTitleRequest {
+        private Map<String, String> titles;
+
+        public BulkTitleRequest() {}
+
+        public BulkTitleRequest(Map<String, String> titles) {
+            this.titles = titles;
+        }
+
+        public Map<String, String> getTitles() {
+            return titles;
+        }
+
+        public void setTitles(Map<String, String> titles) {
+            this.titles = titles;
+        }
+    }
 }
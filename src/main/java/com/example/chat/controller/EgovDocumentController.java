@@ -4,7 +4,9 @@ import org.springframework.web.bind.annotation.*;
 import com.example.chat.service.EgovDocumentService;
 import com.example.chat.response.DocumentStatusResponse;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,9 +20,25 @@ public class EgovDocumentController {
 
     private final EgovDocumentService documentService;
 
+    /**
+     * 문서 처리 상태 조회 (상태 버전 ETag가 일치하면 304)
+     */
     @GetMapping("/status")
-    public DocumentStatusResponse getStatus() {
-        return documentService.getStatusResponse();
+    public ResponseEntity<DocumentStatusResponse> getStatus(WebRequest webRequest) {
+        String etag = "documents-status-" + documentService.getStatusVersion();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(documentService.getStatusResponse());
+    }
+
+    @GetMapping("/vector-index/stats")
+    public Map<String, Object> getVectorIndexStats(
+            @RequestParam(value = "samples", defaultValue = "20") int samples) {
+        return documentService.getVectorIndexStats(samples);
     }
 
     @PostMapping("/reindex")
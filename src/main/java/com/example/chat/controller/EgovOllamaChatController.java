@@ -1,32 +1,49 @@
 package com.example.chat.controller;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.ollama.OllamaChatModel;
-
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.example.chat.context.SessionContext;
+import com.example.chat.config.EgovChatDeadlineConfig;
+import com.example.chat.config.admission.EgovAdmissionRejectedException;
+import com.example.chat.config.admission.EgovGenerationAdmission;
+import com.example.chat.config.admission.EgovModelResolver;
+import com.example.chat.config.admission.EgovUnknownModelException;
+import com.example.chat.config.metrics.EgovChatMetrics;
 import com.example.chat.dto.ChatSession;
+import com.example.chat.dto.ChatSessionPage;
 import com.example.chat.response.TechnologyResponse;
 import com.example.chat.service.EgovChatSessionService;
 import com.example.chat.service.EgovSessionAwareChatService;
 import com.example.chat.util.EgovJsonPromptTemplates;
 import com.example.chat.util.EgovPromptEngineeringUtil;
+import com.example.chat.util.EgovRagFilterUtil;
 import com.example.chat.util.EgovResponseCleanerUtil;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
 
 @Slf4j
 @RestController
@@ -36,6 +53,11 @@ public class EgovOllamaChatController {
     private final OllamaChatModel chatModel;
     private final EgovSessionAwareChatService sessionAwareChatService;
     private final EgovChatSessionService chatSessionService;
+    private final EgovChatMetrics chatMetrics;
+    private final EgovChatDeadlineConfig deadlineConfig;
+    private final Scheduler chatBlockingScheduler;
+    private final EgovGenerationAdmission generationAdmission;
+    private final EgovModelResolver modelResolver;
 
     @GetMapping("/ai/generate")
     public Map<String, String> generate(
@@ -52,52 +74,78 @@ public class EgovOllamaChatController {
 
     /**
      * RAG 기반 스트리밍 응답 생성
+     * type, source, from, to 파라미터로 검색 범위를 문서 메타데이터 기준으로 제한
      */
     @GetMapping("/ai/rag/stream")
     public Flux<ChatResponse> streamRagResponse(
             @RequestParam(value = "message", defaultValue = "Tell me about this document") String message,
-            @RequestParam(value = "model", required = false) String model,
-            @RequestParam(value = "sessionId", required = false) String sessionId) {
-        log.info("RAG 기반 스트리밍 질의 수신: {}, 모델: {}, 세션: {}", message, model, sessionId);
-        
-        // 세션 컨텍스트 설정
-        if (sessionId != null && !sessionId.isEmpty()) {
-            log.debug("세션 ID 검증 시작: {}", sessionId);
-            if (chatSessionService.sessionExists(sessionId)) {
-                log.debug("유효한 세션 ID 확인: {}", sessionId);
-                SessionContext.setCurrentSessionId(sessionId);
-                
-                // 첫 메시지인 경우 세션 제목 업데이트
-                List<Message> history = chatSessionService.getSessionMessages(sessionId);
-                if (history.isEmpty()) {
-                    log.debug("첫 메시지로 판단, 세션 제목 생성: {}", sessionId);
-                    String title = chatSessionService.generateSessionTitle(message);
-                    chatSessionService.updateSessionTitle(sessionId, title);
-                } else {
-                    log.debug("기존 세션 메시지 발견: {} - {} 개", sessionId, history.size());
-                    // 마지막 메시지 시간 업데이트
-                    chatSessionService.updateLastMessageTime(sessionId);
-                }
-            } else {
-                log.warn("존재하지 않는 세션 ID: {}, 기본 세션으로 처리", sessionId);
-                // 존재하지 않는 세션 ID인 경우 기본 세션으로 처리
-                SessionContext.setCurrentSessionId(ChatMemory.DEFAULT_CONVERSATION_ID);
-            }
-        } else {
-            log.warn("세션 ID가 제공되지 않음, 기본 세션으로 처리");
-            // 세션 ID가 없는 경우 기본 세션으로 처리
-            SessionContext.setCurrentSessionId(ChatMemory.DEFAULT_CONVERSATION_ID);
+            @RequestParam(value = "model", required = false) String requestedModel,
+            @RequestParam(value = "sessionId", required = false) String sessionId,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "source", required = false) String source,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("RAG 기반 스트리밍 질의 수신: {}, 모델: {}, 세션: {}", message, requestedModel, sessionId);
+
+        // 모델 이름 정규화 및 설치 여부 확인 (설치되지 않은 모델은 응답 시작 전에 400으로 거절)
+        String model = modelResolver.resolve(requestedModel);
+
+        Filter.Expression filterExpression = EgovRagFilterUtil.buildFilterExpression(type, source, from, to);
+        if (filterExpression != null) {
+            log.info("RAG 검색 범위 필터 적용: {}", filterExpression);
         }
-        
-        String currentSessionId = SessionContext.getCurrentSessionId();
-        log.debug("현재 세션 컨텍스트 설정됨: {}", currentSessionId);
-        
-        return sessionAwareChatService.streamRagResponse(message, model)
+
+        // 생성 대기열이 가득 찬 경우 응답 시작 전에 429로 거절
+        generationAdmission.checkCapacity(model);
+
+        // 세션 확인/갱신(JDBC)은 요청 스레드가 아닌 블로킹 작업 스케줄러에서 수행하고, 세션 ID는 파라미터로 전달
+        return resolveSessionId(sessionId, message, EgovChatDeadlineConfig.RAG_STREAM_ENDPOINT, model)
+                .flatMapMany(currentSessionId ->
+                        sessionAwareChatService.streamRagResponse(currentSessionId, message, model, filterExpression));
+    }
+
+    /**
+     * RAG 기반 이벤트 스트림 응답 생성
+     * 검색 완료 즉시 sources 이벤트(청크 ID, 제목, 점수)를 보내고, 이후 token 이벤트, 마지막에 usage 이벤트 전송
+     * 파라미터는 /ai/rag/stream 과 동일
+     * 검색/프롬프트 처리 중처럼 토큰이 없는 구간에도 하트비트 주석을 보내 클라이언트 연결 종료를 감지하고 생성을 중단
+     */
+    @GetMapping(value = "/ai/rag/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamRagEvents(
+            @RequestParam(value = "message", defaultValue = "Tell me about this document") String message,
+            @RequestParam(value = "model", required = false) String requestedModel,
+            @RequestParam(value = "sessionId", required = false) String sessionId,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "source", required = false) String source,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("RAG 기반 이벤트 스트림 질의 수신: {}, 모델: {}, 세션: {}", message, requestedModel, sessionId);
+
+        // 모델 이름 정규화 및 설치 여부 확인 (설치되지 않은 모델은 응답 시작 전에 400으로 거절)
+        String model = modelResolver.resolve(requestedModel);
+
+        Filter.Expression filterExpression = EgovRagFilterUtil.buildFilterExpression(type, source, from, to);
+
+        // 생성 대기열이 가득 찬 경우 응답 시작 전에 429로 거절
+        generationAdmission.checkCapacity(model);
+
+        Sinks.Empty<Void> completed = Sinks.empty();
+        Flux<ServerSentEvent<Object>> events = resolveSessionId(sessionId, message,
+                        EgovChatDeadlineConfig.RAG_EVENTS_ENDPOINT, model)
+                .flatMapMany(currentSessionId ->
+                        sessionAwareChatService.streamRagEvents(currentSessionId, message, model, filterExpression))
+                .map(event -> ServerSentEvent.builder(event.data()).event(event.event()).build())
                 .doFinally(signalType -> {
-                    // 스트리밍 완료 후 컨텍스트 정리
-                    SessionContext.clear();
-                    log.debug("SessionContext 정리 완료 - 세션: {}, 신호: {}", sessionId, signalType);
+                    completed.tryEmitEmpty();
+                    log.debug("이벤트 스트림 종료 - 세션: {}, 신호: {}", sessionId, signalType);
                 });
+
+        // 하트비트 쓰기 실패(연결 종료) 시 전체 스트림이 취소되어 Ollama 요청까지 중단됨
+        Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(deadlineConfig.getHeartbeatInterval())
+                .map(tick -> ServerSentEvent.<Object>builder().comment("keepalive").build())
+                .takeUntilOther(completed.asMono());
+
+        return Flux.merge(events, heartbeats);
     }
 
     /**
@@ -106,41 +154,74 @@ public class EgovOllamaChatController {
     @GetMapping("/ai/simple/stream")
     public Flux<ChatResponse> streamSimpleResponse(
             @RequestParam(value = "message", defaultValue = "Tell me about this document") String message,
-            @RequestParam(value = "model", required = false) String model,
+            @RequestParam(value = "model", required = false) String requestedModel,
             @RequestParam(value = "sessionId", required = false) String sessionId) {
-        log.info("일반 스트리밍 질의 수신: {}, 모델: {}, 세션: {}", message, model, sessionId);
-        
-        // 세션 컨텍스트 설정
-        if (sessionId != null && !sessionId.isEmpty()) {
-            if (chatSessionService.sessionExists(sessionId)) {
-                SessionContext.setCurrentSessionId(sessionId);
-                
-                // 첫 메시지인 경우 세션 제목 업데이트
-                List<Message> history = chatSessionService.getSessionMessages(sessionId);
-                if (history.isEmpty()) {
-                    String title = chatSessionService.generateSessionTitle(message);
-                    chatSessionService.updateSessionTitle(sessionId, title);
-                } else {
-                    // 마지막 메시지 시간 업데이트
-                    chatSessionService.updateLastMessageTime(sessionId);
-                }
-            } else {
-                log.warn("존재하지 않는 세션 ID: {}, 기본 세션으로 처리", sessionId);
-                // 존재하지 않는 세션 ID인 경우 기본 세션으로 처리
-                SessionContext.setCurrentSessionId(ChatMemory.DEFAULT_CONVERSATION_ID);
-            }
-        } else {
-            // 세션 ID가 없는 경우 기본 세션으로 처리
-            SessionContext.setCurrentSessionId(ChatMemory.DEFAULT_CONVERSATION_ID);
-        }
-        
+        log.info("일반 스트리밍 질의 수신: {}, 모델: {}, 세션: {}", message, requestedModel, sessionId);
+
+        // 모델 이름 정규화 및 설치 여부 확인 (설치되지 않은 모델은 응답 시작 전에 400으로 거절)
+        String model = modelResolver.resolve(requestedModel);
+
+        // 생성 대기열이 가득 찬 경우 응답 시작 전에 429로 거절
+        generationAdmission.checkCapacity(model);
+
         // 일반 스트리밍 응답 생성 (RAG 없이)
-        return sessionAwareChatService.streamSimpleResponse(message, model)
-                .doFinally(signalType -> {
-                    // 스트리밍 완료 후 컨텍스트 정리
-                    SessionContext.clear();
-                    log.debug("SessionContext 정리 완료 - 세션: {}, 신호: {}", sessionId, signalType);
-                });
+        return resolveSessionId(sessionId, message, EgovChatDeadlineConfig.SIMPLE_STREAM_ENDPOINT, model)
+                .flatMapMany(currentSessionId ->
+                        sessionAwareChatService.streamSimpleResponse(currentSessionId, message, model));
+    }
+
+    /**
+     * 생성 대기열 초과 시 429 Too Many Requests + Retry-After 응답
+     */
+    @ExceptionHandler(EgovAdmissionRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleAdmissionRejected(EgovAdmissionRejectedException e) {
+        log.warn("생성 요청 거절 - 모델: {}, 사유: {}, 재시도: {}초", e.getModel(), e.getMessage(), e.getRetryAfterSeconds());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("status", "busy", "message", e.getMessage(), "retryAfter", e.getRetryAfterSeconds()));
+    }
+
+    /**
+     * 설치되지 않은 모델 요청 시 400 Bad Request 응답
+     */
+    @ExceptionHandler(EgovUnknownModelException.class)
+    public ResponseEntity<Map<String, Object>> handleUnknownModel(EgovUnknownModelException e) {
+        log.warn("생성 요청 거절 - 설치되지 않은 모델: {}", e.getModel());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("status", "invalid_model", "message", e.getMessage()));
+    }
+
+    /**
+     * 요청 세션 ID 검증 및 세션 갱신 후 대화에 사용할 세션 ID 반환
+     * 마지막 메시지 시간을 갱신하고, 제목이 기본값(첫 메시지)이면 메시지로 제목 생성
+     * 존재하지 않거나 없는 세션 ID는 기본 세션으로 처리
+     * 블로킹 JDBC 호출이므로 채팅 블로킹 작업 스케줄러(가상 스레드 모드 선택 가능)에서 실행
+     */
+    private Mono<String> resolveSessionId(String sessionId, String message, String endpoint, String model) {
+        return Mono.fromCallable(() -> {
+                    long bookkeepingStart = System.nanoTime();
+                    String currentSessionId = touchSession(sessionId, message);
+                    chatMetrics.recordStage(EgovChatMetrics.SESSION_BOOKKEEPING, endpoint, model, bookkeepingStart);
+                    log.debug("대화 세션 확인 완료: {}", currentSessionId);
+                    return currentSessionId;
+                })
+                .subscribeOn(chatBlockingScheduler);
+    }
+
+    private String touchSession(String sessionId, String message) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            log.warn("세션 ID가 제공되지 않음, 기본 세션으로 처리");
+            return ChatMemory.DEFAULT_CONVERSATION_ID;
+        }
+
+        // 존재 확인, 마지막 메시지 시간 갱신, 첫 메시지 제목 설정을 한 번의 UPDATE로 처리
+        if (!chatSessionService.touchSession(sessionId, message)) {
+            log.warn("존재하지 않는 세션 ID: {}, 기본 세션으로 처리", sessionId);
+            return ChatMemory.DEFAULT_CONVERSATION_ID;
+        }
+        return sessionId;
     }
 
     /**
@@ -153,12 +234,15 @@ public class EgovOllamaChatController {
     }
 
     /**
-     * 모든 채팅 세션 목록 조회
+     * 채팅 세션 목록 페이지 조회 (커서 기반)
      */
     @GetMapping("/api/sessions")
-    public List<ChatSession> getAllSessions() {
-        log.info("채팅 세션 목록 조회 요청");
-        return chatSessionService.getAllSessions();
+    public ChatSessionPage getSessions(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "includeMessageCount", defaultValue = "false") boolean includeMessageCount) {
+        log.info("채팅 세션 목록 조회 요청 - cursor: {}, size: {}", cursor, size);
+        return chatSessionService.getSessions(cursor, size, includeMessageCount);
     }
 
     /**
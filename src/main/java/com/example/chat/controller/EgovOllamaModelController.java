@@ -1,13 +1,16 @@
 package com.example.chat.controller;
 
 import com.example.chat.service.EgovOllamaModelService;
+import com.example.chat.service.EgovOllamaModelService.ModelCatalog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -29,23 +32,30 @@ public class EgovOllamaModelController {
 
     /**
      * 설치된 Ollama 모델 목록을 반환합니다.
+     * 캐시된 모델 목록의 세대로 ETag를 만들어 If-None-Match가 일치하면 304를 반환합니다.
      * 
      * @return 모델 목록과 상태 정보
      */
     @GetMapping("/models")
-    public ResponseEntity<Map<String, Object>> getInstalledModels() {
-        log.info("Ollama 모델 목록 요청 수신");
+    public ResponseEntity<Map<String, Object>> getInstalledModels(WebRequest webRequest) {
+        log.debug("Ollama 모델 목록 요청 수신");
         
         Map<String, Object> response = new HashMap<>();
         
         try {
-            // Ollama 사용 가능 여부 확인
-            boolean isAvailable = ollamaModelService.isOllamaAvailable();
+            // Ollama 사용 가능 여부 확인 (캐시 만료 시에만 ollama 명령 실행)
+            ModelCatalog catalog = ollamaModelService.getModelCatalog();
+            String etag = "models-" + catalog.generation();
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+
+            boolean isAvailable = catalog.available();
             response.put("available", isAvailable);
             
             if (isAvailable) {
                 // 모델 목록 가져오기
-                List<String> models = ollamaModelService.getInstalledModels();
+                List<String> models = catalog.models();
                 response.put("models", models);
                 response.put("count", models.size());
                 response.put("defaultModel", defaultModel);
@@ -61,6 +71,11 @@ public class EgovOllamaModelController {
                 
                 log.warn("Ollama가 사용할 수 없습니다.");
             }
+
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(etag)
+                    .body(response);
             
         } catch (Exception e) {
             log.error("Ollama 모델 목록 조회 중 오류 발생", e);
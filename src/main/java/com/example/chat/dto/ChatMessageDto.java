@@ -1,9 +1,13 @@
 package com.example.chat.dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 /**
  * 채팅 메시지 DTO
  */
@@ -13,4 +17,12 @@ import lombok.NoArgsConstructor;
 public class ChatMessageDto {
     private String messageType;
     private String content;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+
+    public ChatMessageDto(String messageType, String content) {
+        this(messageType, content, null);
+    }
 }
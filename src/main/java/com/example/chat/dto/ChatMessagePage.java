@@ -0,0 +1,25 @@
+package com.example.chat.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 세션 메시지 이력 페이지 DTO (커서 기반, 최신 페이지부터 이전 방향으로 조회)
+ * messages는 페이지 내 시간순, nextCursor를 다음 요청의 cursor 파라미터로 전달하면 더 이전 메시지를 조회
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessagePage {
+    private List<ChatMessageDto> messages;
+
+    /**
+     * 이전 페이지 커서 (가장 오래된 페이지면 null)
+     */
+    private String nextCursor;
+
+    private boolean hasMore;
+}
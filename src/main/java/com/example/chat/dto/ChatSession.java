@@ -1,6 +1,7 @@
 package com.example.chat.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -23,6 +24,16 @@ public class ChatSession {
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime lastMessageAt;
 
+    /**
+     * 세션 메시지 수 (목록 조회 시 요청한 경우에만 포함)
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long messageCount;
+
+    public ChatSession(String sessionId, String title, LocalDateTime createdAt, LocalDateTime lastMessageAt) {
+        this(sessionId, title, createdAt, lastMessageAt, null);
+    }
+
     /**
      * 3-parameter constructor for creating new sessions
      */
@@ -0,0 +1,23 @@
+package com.example.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 세션 일괄 처리(삭제/보관) 결과 DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSessionBulkResult {
+    /**
+     * 처리된 세션 수
+     */
+    private int sessions;
+
+    /**
+     * 함께 삭제/보관된 메시지 수
+     */
+    private int messages;
+}
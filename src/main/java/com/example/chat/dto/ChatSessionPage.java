@@ -0,0 +1,25 @@
+package com.example.chat.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 세션 목록 페이지 DTO (커서 기반)
+ * nextCursor를 다음 요청의 cursor 파라미터로 전달하면 이어지는 페이지를 조회
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSessionPage {
+    private List<ChatSession> sessions;
+
+    /**
+     * 다음 페이지 커서 (마지막 페이지면 null)
+     */
+    private String nextCursor;
+
+    private boolean hasMore;
+}
@@ -0,0 +1,21 @@
+package com.example.chat.dto;
+
+/**
+ * RAG 이벤트 스트림의 단일 이벤트
+ * - sources: 검색된 청크 목록 (LLM 응답 전 1회)
+ * - queue: 생성 대기 순번 (동시 실행 제한으로 대기하는 경우, 허가 시 0)
+ * - token: 생성된 텍스트 조각
+ * - usage: 토큰 사용량과 소요 시간 (스트림 종료 시 1회)
+ * - busy: 대기열 초과/대기 시간 초과로 거절됨 (retryAfter 초 후 재시도, 스트림 종료)
+ *
+ * @param event 이벤트 이름 (SSE event 필드)
+ * @param data 이벤트 데이터 (JSON 직렬화)
+ */
+public record RagStreamEvent(String event, Object data) {
+
+    public static final String SOURCES = "sources";
+    public static final String QUEUE = "queue";
+    public static final String TOKEN = "token";
+    public static final String USAGE = "usage";
+    public static final String BUSY = "busy";
+}
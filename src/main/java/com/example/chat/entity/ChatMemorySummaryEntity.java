@@ -0,0 +1,43 @@
+package com.example.chat.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 대화 요약 엔티티
+ * 윈도우 밖으로 밀려난 대화를 누적 요약한 결과 (세션당 1행)
+ */
+@Entity
+@Table(name = "egov_chat_memory_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMemorySummaryEntity {
+
+    @Id
+    @Column(name = "conversation_id", length = 255)
+    private String conversationId;
+
+    @Column(name = "summary", columnDefinition = "TEXT", nullable = false)
+    private String summary;
+
+    /**
+     * 요약에 반영된 마지막 메시지의 저장 시각 (spring_ai_chat_memory.timestamp)
+     */
+    @Column(name = "covered_until", nullable = false)
+    private LocalDateTime coveredUntil;
+
+    /**
+     * 요약에 반영된 마지막 메시지의 행 번호 (spring_ai_chat_memory.id, 같은 시각 행 구분용)
+     * 행 번호 도입 전에 저장된 요약은 null (covered_until 시각의 행 전체가 반영된 것으로 간주)
+     */
+    @Column(name = "covered_until_id")
+    private Long coveredUntilId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -11,7 +11,10 @@ import java.time.LocalDateTime;
  * 채팅 세션 엔티티
  */
 @Entity
-@Table(name = "spring_ai_chat_sessions")
+@Table(name = "spring_ai_chat_sessions", indexes = {
+        // 세션 목록 키셋 페이지 조회용 (V3__add_chat_sessions_keyset_index.sql 과 동일)
+        @Index(name = "idx_chat_sessions_last_message_at_session_id", columnList = "last_message_at DESC, session_id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,12 @@
+package com.example.chat.repository;
+
+import com.example.chat.entity.ChatMemorySummaryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 대화 요약 JPA Repository
+ */
+@Repository
+public interface ChatMemorySummaryRepository extends JpaRepository<ChatMemorySummaryEntity, String> {
+}
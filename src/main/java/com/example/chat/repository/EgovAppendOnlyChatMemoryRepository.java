@@ -0,0 +1,822 @@
+package com.example.chat.repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.NonNull;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 추가 전용(append-only) ChatMemoryRepository
+ * JdbcChatMemoryRepository는 saveAll 마다 대화 전체를 삭제 후 다시 저장하지만,
+ * 이 저장소는 세션별 윈도우 캐시와 비교하여 새로 추가된 메시지만 INSERT 함 (턴당 O(1) 행)
+ * - 윈도우 밖으로 밀려난 오래된 행은 즉시 삭제하지 않고, 누적 행 수가 윈도우 + trimSlack 을 넘으면 한 번에 삭제
+ * - 조회는 캐시에서 처리하고, 캐시에 없으면 최근 maxMessages 행만 조회
+ * - write-behind 사용 시 INSERT/DELETE 는 순서를 유지한 채 별도 스레드에서 일괄 처리 (종료 시 남은 작업 반영)
+ *   반영 실패 시 남은 작업을 다음 주기에 다시 시도하고, maxFlushAttempts 회 연속 실패하면 해당 대화의 작업을 버리고
+ *   캐시를 무효화하여 DB 상태에서 다시 읽도록 함
+ * - 대화 삭제 시 세대 번호(tombstone)를 기록하여, 삭제 전에 읽은 윈도우로 만든 쓰기 작업이 삭제 후 반영되지 않도록 함
+ * - 앞부분 제거 + 뒤에 추가 형태가 아닌 변경(시스템 메시지 교체 등)은 전체 다시 저장으로 처리
+ * - retainHistory 사용 시 윈도우 밖 행을 삭제하지 않고 전체 대화 이력으로 보존 (다시 저장도 현재 윈도우 행만 교체)
+ *   윈도우 조회는 최근 maxMessages 행만 읽으므로 이력이 길어져도 영향 없음
+ * - tokenCountEstimator 지정 시 메시지마다 저장 시점에 한 번 토큰 수를 계산하여 token_count 컬럼에 함께 저장하고,
+ *   토큰 예산 안의 최근 메시지만 조회하는 findByConversationIdWithinBudget 을 제공
+ * 테이블 스키마는 Spring AI 기본 spring_ai_chat_memory 를 그대로 사용
+ */
+@Slf4j
+public class EgovAppendOnlyChatMemoryRepository implements ChatMemoryRepository, SmartInitializingSingleton {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO spring_ai_chat_memory (conversation_id, content, type, \"timestamp\") VALUES (?, ?, ?, ?)";
+    private static final String INSERT_WITH_TOKENS_SQL =
+            "INSERT INTO spring_ai_chat_memory (conversation_id, content, type, \"timestamp\", token_count) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_WINDOW_SQL =
+            "SELECT content, type, \"timestamp\" FROM spring_ai_chat_memory WHERE conversation_id = ? "
+                    + "ORDER BY \"timestamp\" DESC LIMIT ?";
+    private static final String SELECT_WINDOW_WITH_TOKENS_SQL =
+            "SELECT content, type, \"timestamp\", token_count FROM spring_ai_chat_memory WHERE conversation_id = ? "
+                    + "ORDER BY \"timestamp\" DESC LIMIT ?";
+    // 토큰 예산이 윈도우보다 클 때 윈도우 이전의 보존 이력을 최신순으로 조회
+    private static final String SELECT_OLDER_WITH_TOKENS_SQL =
+            "SELECT content, type, \"timestamp\", token_count FROM spring_ai_chat_memory WHERE conversation_id = ? "
+                    + "AND type IN ('USER', 'ASSISTANT') AND \"timestamp\" < ? ORDER BY \"timestamp\" DESC LIMIT ?";
+    private static final String ADD_TOKEN_COUNT_COLUMN_SQL =
+            "ALTER TABLE spring_ai_chat_memory ADD COLUMN IF NOT EXISTS token_count INTEGER";
+    private static final String DELETE_BEFORE_SQL =
+            "DELETE FROM spring_ai_chat_memory WHERE conversation_id = ? AND \"timestamp\" < ?";
+    private static final String DELETE_FROM_SQL =
+            "DELETE FROM spring_ai_chat_memory WHERE conversation_id = ? AND \"timestamp\" >= ?";
+    private static final String DELETE_ALL_SQL =
+            "DELETE FROM spring_ai_chat_memory WHERE conversation_id = ?";
+    private static final String SELECT_CONVERSATION_IDS_SQL =
+            "SELECT DISTINCT conversation_id FROM spring_ai_chat_memory";
+    // 이력 조회 위치는 (timestamp, id) 순서: 같은 밀리초에 저장된 이전 행(기존 saveAll 재저장 등)도 건너뛰거나 중복되지 않음
+    // 행 비교만으로는 (conversation_id, timestamp) 인덱스 범위 조건이 되지 않으므로 timestamp 범위 조건을 함께 사용
+    private static final String SELECT_HISTORY_SQL =
+            "SELECT id, content, type, \"timestamp\" FROM spring_ai_chat_memory WHERE conversation_id = ? "
+                    + "AND type IN ('USER', 'ASSISTANT') ORDER BY \"timestamp\" DESC, id DESC LIMIT ?";
+    private static final String SELECT_HISTORY_BEFORE_SQL =
+            "SELECT id, content, type, \"timestamp\" FROM spring_ai_chat_memory WHERE conversation_id = ? "
+                    + "AND type IN ('USER', 'ASSISTANT') AND \"timestamp\" <= ? AND (\"timestamp\", id) < (?, ?) "
+                    + "ORDER BY \"timestamp\" DESC, id DESC LIMIT ?";
+    private static final String SELECT_HISTORY_BETWEEN_SQL =
+            "SELECT id, content, type, \"timestamp\" FROM spring_ai_chat_memory WHERE conversation_id = ? "
+                    + "AND type IN ('USER', 'ASSISTANT') AND \"timestamp\" BETWEEN ? AND ? "
+                    + "AND (\"timestamp\", id) > (?, ?) AND (\"timestamp\", id) < (?, ?) "
+                    + "ORDER BY \"timestamp\", id LIMIT ?";
+    private static final String SELECT_ID_COLUMN_SQL =
+            "SELECT count(*) FROM information_schema.columns "
+                    + "WHERE table_name = 'spring_ai_chat_memory' AND column_name = 'id'";
+    private static final String ADD_ID_COLUMN_SQL =
+            "ALTER TABLE spring_ai_chat_memory ADD COLUMN id BIGSERIAL";
+
+    // 삭제된 대화의 세대 번호 보관 시간 (진행 중이던 saveAll 이 끝날 때까지만 필요)
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(10);
+
+    private static final RowMapper<HistoryEntry> HISTORY_ROW_MAPPER = (rs, rowNum) -> new HistoryEntry(
+            MessageType.valueOf(rs.getString("type")), rs.getString("content"), rs.getTimestamp("timestamp").getTime(),
+            rs.getLong("id"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxMessages;
+    private final int trimSlack;
+    private final boolean retainHistory;
+    private final TokenCountEstimator tokenCountEstimator;
+    private final String insertSql;
+    private final Cache<String, Window> windows;
+    private final boolean writeBehind;
+    private final Queue<WriteOp> pendingWrites = new ConcurrentLinkedQueue<>();
+    // 반영에 실패하여 다시 시도할 작업 (새 작업보다 먼저 반영, writeLock 으로 보호)
+    private final List<WriteOp> retryWrites = new ArrayList<>();
+    private final int maxFlushAttempts;
+    private int failedFlushes;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ScheduledExecutorService writer;
+    // 윈도우 세대 번호: 대화 삭제 시 증가하며, 삭제 시점의 세대보다 앞선 윈도우의 쓰기 작업은 반영하지 않음
+    private final AtomicLong generation = new AtomicLong();
+    private final Cache<String, Long> tombstones = Caffeine.newBuilder()
+            .expireAfterWrite(TOMBSTONE_TTL)
+            .build();
+
+    public EgovAppendOnlyChatMemoryRepository(JdbcTemplate jdbcTemplate, int maxMessages, int trimSlack,
+                                              boolean retainHistory, TokenCountEstimator tokenCountEstimator,
+                                              long cacheMaxSessions, Duration cacheExpireAfterAccess,
+                                              boolean writeBehind, Duration flushInterval, int maxFlushAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxMessages = maxMessages;
+        this.trimSlack = Math.max(0, trimSlack);
+        this.retainHistory = retainHistory;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.insertSql = tokenCountEstimator != null ? INSERT_WITH_TOKENS_SQL : INSERT_SQL;
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSessions)
+                .expireAfterAccess(cacheExpireAfterAccess)
+                .build();
+        this.writeBehind = writeBehind;
+        this.maxFlushAttempts = Math.max(1, maxFlushAttempts);
+        if (writeBehind) {
+            this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "chat-memory-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.writer.scheduleWithFixedDelay(this::scheduledFlush, flushInterval.toMillis(), flushInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.writer = null;
+        }
+
+        log.info("추가 전용 ChatMemory 저장소 구성 - 윈도우: {}, 정리 여유: {}, 이력 보존: {}, 토큰 수 저장: {}, 캐시: {}개/{}, write-behind: {}",
+                maxMessages, retainHistory ? "-" : trimSlack, retainHistory, tokenCountEstimator != null,
+                cacheMaxSessions, cacheExpireAfterAccess, writeBehind ? flushInterval : "사용 안 함");
+    }
+
+    /**
+     * 이력 조회 순서용 id 컬럼과 토큰 수 저장 시 token_count 컬럼 추가
+     * Spring AI 스키마 초기화로 spring_ai_chat_memory 테이블이 만들어진 뒤 실행되도록 모든 싱글톤 생성 후 수행
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer idColumns = jdbcTemplate.queryForObject(SELECT_ID_COLUMN_SQL, Integer.class);
+        if (idColumns == null || idColumns == 0) {
+            // 기존 행에도 번호를 채우므로 테이블 전체를 다시 씀
+            log.info("ChatMemory id 컬럼 추가 (기존 행 번호 부여)");
+            jdbcTemplate.execute(ADD_ID_COLUMN_SQL);
+        }
+        if (tokenCountEstimator != null) {
+            log.info("ChatMemory token_count 컬럼 확인");
+            jdbcTemplate.execute(ADD_TOKEN_COUNT_COLUMN_SQL);
+        }
+    }
+
+    @Override
+    @NonNull
+    public List<String> findConversationIds() {
+        flush();
+        return jdbcTemplate.queryForList(SELECT_CONVERSATION_IDS_SQL, String.class);
+    }
+
+    @Override
+    @NonNull
+    public List<Message> findByConversationId(@NonNull String conversationId) {
+        Window window = windowFor(conversationId);
+        synchronized (window) {
+            return List.copyOf(window.messages);
+        }
+    }
+
+    /**
+     * 토큰 예산 안의 최근 메시지 조회
+     * 최신 메시지부터 저장된 토큰 수를 더해 maxTokens 를 넘기 직전까지 포함하고,
+     * 잘린 앞부분이 사용자 질문 없이 어시스턴트 답변으로 시작하면 해당 답변도 제외
+     * 그 결과가 비면(최신 메시지 하나도 예산을 넘는 경우 등) 마지막 턴(마지막 사용자 질문 이후)을 예산에 맞게 잘라서 포함
+     *
+     * @throws IllegalStateException tokenCountEstimator 없이 생성된 경우
+     */
+    @NonNull
+    public List<Message> findByConversationIdWithinBudget(@NonNull String conversationId, int maxTokens) {
+        return findByConversationIdWithinBudget(conversationId, maxTokens, false);
+    }
+
+    /**
+     * 토큰 예산 안의 최근 메시지 조회
+     * beyondWindow 가 true 이고 이력 보존(retainHistory) 중이면, 윈도우 전체가 예산 안에 들어갈 때
+     * 윈도우 이전의 보존 행을 최신순으로 maxMessages 개씩 더 읽어 예산이 찰 때까지 앞에 추가
+     * (메시지 수 윈도우가 예산보다 먼저 히스토리를 자르지 않도록 함)
+     *
+     * @param beyondWindow 윈도우 이전 보존 이력까지 예산으로 채울지 여부
+     * @throws IllegalStateException tokenCountEstimator 없이 생성된 경우
+     */
+    @NonNull
+    public List<Message> findByConversationIdWithinBudget(@NonNull String conversationId, int maxTokens,
+                                                          boolean beyondWindow) {
+        if (tokenCountEstimator == null) {
+            throw new IllegalStateException("토큰 수 저장이 비활성화된 ChatMemory 저장소입니다");
+        }
+        Window window = windowFor(conversationId);
+        List<Message> recent;
+        long oldestTimestamp;
+        int remainingTokens;
+        synchronized (window) {
+            int start = window.messages.size();
+            int usedTokens = 0;
+            while (start > 0 && usedTokens + window.tokenCounts.get(start - 1) <= maxTokens) {
+                usedTokens += window.tokenCounts.get(--start);
+            }
+            boolean extend = start == 0 && beyondWindow && retainHistory && window.messages.size() >= maxMessages
+                    && usedTokens < maxTokens;
+            if (!extend) {
+                if (start > 0 && start < window.messages.size()
+                        && window.messages.get(start).getMessageType() == MessageType.ASSISTANT) {
+                    start++;
+                }
+                if (start == window.messages.size() && start > 0 && maxTokens > 0) {
+                    return trimLatestTurn(window, maxTokens);
+                }
+                return List.copyOf(window.messages.subList(start, window.messages.size()));
+            }
+            recent = List.copyOf(window.messages);
+            oldestTimestamp = window.timestamps.get(0);
+            remainingTokens = maxTokens - usedTokens;
+        }
+        // DB 조회는 윈도우 락 밖에서 수행
+        return prependOlderHistory(conversationId, recent, oldestTimestamp, remainingTokens);
+    }
+
+    /**
+     * 윈도우 이전 보존 이력을 남은 예산만큼 윈도우 앞에 추가
+     * 잘린 앞부분이 사용자 질문 없이 어시스턴트 답변으로 시작하면 해당 답변은 제외
+     */
+    private List<Message> prependOlderHistory(String conversationId, List<Message> recent, long oldestTimestamp,
+                                              int remainingTokens) {
+        // 윈도우에서 밀려난 행이 아직 반영 대기 중일 수 있으므로 먼저 반영
+        flush();
+        List<Message> older = new ArrayList<>();
+        long before = oldestTimestamp;
+        int pageSize = Math.max(1, maxMessages);
+        boolean full = false;
+        while (!full) {
+            List<Object[]> rows = jdbcTemplate.query(SELECT_OLDER_WITH_TOKENS_SQL,
+                    (rs, rowNum) -> new Object[] {
+                            toMessage(rs.getString("content"), rs.getString("type")), rs.getTimestamp("timestamp").getTime(),
+                            rs.getObject("token_count", Integer.class)
+                    }, conversationId, new Timestamp(before), pageSize);
+            for (Object[] row : rows) {
+                Message message = (Message) row[0];
+                int tokenCount = row[2] != null ? (Integer) row[2] : countTokens(message);
+                if (tokenCount > remainingTokens) {
+                    full = true;
+                    break;
+                }
+                remainingTokens -= tokenCount;
+                older.add(message);
+                before = (Long) row[1];
+            }
+            if (rows.size() < pageSize) {
+                break;
+            }
+        }
+        if (older.isEmpty()) {
+            return recent;
+        }
+
+        Collections.reverse(older);
+        if (older.get(0).getMessageType() == MessageType.ASSISTANT) {
+            older.remove(0);
+        }
+        List<Message> messages = new ArrayList<>(older.size() + recent.size());
+        messages.addAll(older);
+        messages.addAll(recent);
+        log.debug("토큰 예산 히스토리 - 세션: {}, 윈도우 이전 이력 {}개 추가", conversationId, older.size());
+        return List.copyOf(messages);
+    }
+
+    /**
+     * 마지막 턴의 메시지를 앞에서부터 남은 예산을 나눠 가지며 포함 (몫을 넘는 메시지는 앞부분만 유지)
+     * 짧은 질문이 먼저 전체 포함되고 남은 예산이 답변에 돌아감
+     */
+    private List<Message> trimLatestTurn(Window window, int maxTokens) {
+        int size = window.messages.size();
+        int turnStart = size - 1;
+        for (int i = size - 1; i >= 0; i--) {
+            if (window.messages.get(i).getMessageType() == MessageType.USER) {
+                turnStart = i;
+                break;
+            }
+        }
+
+        List<Message> turn = new ArrayList<>();
+        int remaining = maxTokens;
+        for (int i = turnStart; i < size; i++) {
+            Message message = window.messages.get(i);
+            int tokens = window.tokenCounts.get(i);
+            int share = remaining / (size - i);
+            if (tokens <= share) {
+                turn.add(message);
+                remaining -= tokens;
+                continue;
+            }
+            MessageType type = message.getMessageType();
+            if (share <= 0 || (type != MessageType.USER && type != MessageType.ASSISTANT)) {
+                continue;
+            }
+            String text = truncateToTokens(message.getText(), share);
+            if (!text.isEmpty()) {
+                turn.add(toMessage(text, type.name()));
+                remaining -= share;
+            }
+        }
+        return List.copyOf(turn);
+    }
+
+    /**
+     * 추정 토큰 수가 maxTokens 이하가 되도록 텍스트 앞부분만 유지
+     */
+    private String truncateToTokens(String text, int maxTokens) {
+        int end = (int) ((long) text.length() * maxTokens / Math.max(1, tokenCountEstimator.estimate(text)));
+        while (end > 0 && tokenCountEstimator.estimate(text.substring(0, end)) > maxTokens) {
+            end = end * 9 / 10;
+        }
+        if (end > 0 && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end).stripTrailing();
+    }
+
+    /**
+     * 윈도우 갱신 저장: 이전 윈도우의 앞부분이 제거되고 뒤에 메시지가 추가된 경우 추가분만 INSERT
+     */
+    @Override
+    public void saveAll(@NonNull String conversationId, @NonNull List<Message> messages) {
+        Window window = windowFor(conversationId);
+        synchronized (window) {
+            int dropped = droppedPrefix(window.messages, messages);
+            if (dropped < 0) {
+                rewrite(conversationId, window, messages);
+                return;
+            }
+
+            List<Message> appended = messages.subList(window.messages.size() - dropped, messages.size());
+            List<Long> timestamps = new ArrayList<>(window.timestamps.subList(dropped, window.timestamps.size()));
+            List<Integer> tokenCounts = new ArrayList<>(window.tokenCounts.subList(dropped, window.tokenCounts.size()));
+            for (Message message : appended) {
+                long timestamp = window.nextTimestamp();
+                int tokenCount = countTokens(message);
+                timestamps.add(timestamp);
+                tokenCounts.add(tokenCount);
+                write(new WriteOp(conversationId, window.generation, insertSql, message, timestamp, tokenCount));
+            }
+            window.persistedRows += appended.size();
+            window.messages = new ArrayList<>(messages);
+            window.timestamps = timestamps;
+            window.tokenCounts = tokenCounts;
+
+            // 윈도우 밖 행이 일정 수 이상 쌓이면 한 번에 정리 (이력 보존 시 정리하지 않음)
+            if (!retainHistory && !window.timestamps.isEmpty() && window.persistedRows > window.messages.size() + trimSlack) {
+                write(new WriteOp(conversationId, window.generation, DELETE_BEFORE_SQL, null, window.timestamps.get(0), null));
+                window.persistedRows = window.messages.size();
+            }
+
+            log.debug("ChatMemory 추가 저장 - 세션: {}, 추가: {}개, 윈도우 밖 제거: {}개", conversationId,
+                    appended.size(), dropped);
+        }
+    }
+
+    @Override
+    public void deleteByConversationId(@NonNull String conversationId) {
+        writeLock.lock();
+        try {
+            // 아직 반영되지 않은 쓰기 작업은 버리고 즉시 삭제
+            discardWrites(Set.of(conversationId));
+            jdbcTemplate.update(DELETE_ALL_SQL, conversationId);
+        } finally {
+            writeLock.unlock();
+        }
+        // 캐시 적재(loadWindow)가 writeLock을 기다릴 수 있으므로 락 해제 후 무효화
+        windows.invalidate(conversationId);
+    }
+
+    /**
+     * 여러 대화의 일괄 삭제/보관 처리
+     * 대기 중인 쓰기 작업을 버린 뒤 deletion(집합 기반 SQL)을 실행하고 캐시를 무효화하여,
+     * 삭제 이후에 write-behind 작업이 반영되어 행이 되살아나지 않도록 함
+     *
+     * @param deletion 대화 행을 삭제/이동하는 작업 (writeLock 보유 상태에서 실행)
+     */
+    public <T> T purgeConversations(Collection<String> conversationIds, Supplier<T> deletion) {
+        Set<String> ids = Set.copyOf(conversationIds);
+        T result;
+        writeLock.lock();
+        try {
+            discardWrites(ids);
+            result = deletion.get();
+        } finally {
+            writeLock.unlock();
+        }
+        windows.invalidateAll(ids);
+        return result;
+    }
+
+    /**
+     * 보존 기간이 지난 메시지 일괄 삭제 (시간 기준 DELETE, 만료 파티션 DROP)
+     * 대기 중인 쓰기 작업을 먼저 반영하고 삭제 도중에는 write-behind 반영을 막은 뒤,
+     * 삭제 기준 이전 메시지를 가진 윈도우 캐시를 무효화하여 삭제된 메시지가 캐시에서 계속 조회되거나
+     * 오래된 윈도우 기준의 쓰기로 되살아나지 않도록 함
+     *
+     * @param cutoffMillis 이 시각(밀리초) 이전 메시지를 삭제하는 작업의 기준
+     * @param deletion 만료 메시지를 삭제하는 작업 (writeLock 보유 상태에서 실행)
+     */
+    public <T> T purgeMessagesBefore(long cutoffMillis, Supplier<T> deletion) {
+        flush();
+        T result;
+        writeLock.lock();
+        try {
+            result = deletion.get();
+        } finally {
+            writeLock.unlock();
+        }
+
+        List<String> affected = new ArrayList<>();
+        windows.asMap().forEach((conversationId, window) -> {
+            synchronized (window) {
+                if (!window.timestamps.isEmpty() && window.timestamps.get(0) < cutoffMillis) {
+                    affected.add(conversationId);
+                }
+            }
+        });
+        if (!affected.isEmpty()) {
+            windows.invalidateAll(affected);
+            log.debug("만료 메시지 삭제로 윈도우 캐시 무효화 - 대화: {}개", affected.size());
+        }
+        return result;
+    }
+
+    /**
+     * 대화 이력 페이지 조회 (사용자/어시스턴트 메시지, 최신순)
+     * (conversation_id, timestamp) 인덱스를 따라 before 이전 행을 limit 건만 읽음
+     * retainHistory 를 사용하지 않으면 윈도우와 정리 대기 중인 행까지만 조회됨
+     *
+     * @param before 이 위치 이전 메시지만 조회 (null이면 최신부터)
+     */
+    public List<HistoryEntry> findHistory(String conversationId, HistoryPosition before, int limit) {
+        flush();
+        if (before == null) {
+            return jdbcTemplate.query(SELECT_HISTORY_SQL, HISTORY_ROW_MAPPER, conversationId, limit);
+        }
+        Timestamp beforeTimestamp = new Timestamp(before.timestamp());
+        return jdbcTemplate.query(SELECT_HISTORY_BEFORE_SQL, HISTORY_ROW_MAPPER, conversationId,
+                beforeTimestamp, beforeTimestamp, before.id(), limit);
+    }
+
+    /**
+     * after 초과, before 미만 구간의 대화 이력 조회 (사용자/어시스턴트 메시지, 시간순)
+     *
+     * @param after 이 위치 이후 메시지만 조회
+     * @param before 이 위치 이전 메시지만 조회
+     */
+    public List<HistoryEntry> findHistoryBetween(String conversationId, HistoryPosition after, HistoryPosition before,
+                                                 int limit) {
+        flush();
+        Timestamp afterTimestamp = new Timestamp(after.timestamp());
+        Timestamp beforeTimestamp = new Timestamp(before.timestamp());
+        return jdbcTemplate.query(SELECT_HISTORY_BETWEEN_SQL, HISTORY_ROW_MAPPER, conversationId,
+                afterTimestamp, beforeTimestamp, afterTimestamp, after.id(), beforeTimestamp, before.id(), limit);
+    }
+
+    /**
+     * 대기 중인 쓰기 작업 반영 (연속된 INSERT는 한 번의 배치로 실행)
+     * 실패한 작업부터 남은 작업은 다음 flush 에서 다시 시도하며, maxFlushAttempts 회 연속 실패하면
+     * 해당 대화들의 작업을 버리고 윈도우 캐시를 무효화함 (DB 에 없는 메시지가 캐시에만 남지 않도록)
+     */
+    public void flush() {
+        if (!writeBehind || (pendingWrites.isEmpty() && !hasRetryWrites())) {
+            return;
+        }
+        Set<String> abandoned = Set.of();
+        writeLock.lock();
+        try {
+            List<WriteOp> ops = new ArrayList<>(retryWrites);
+            retryWrites.clear();
+            WriteOp polled;
+            while ((polled = pendingWrites.poll()) != null) {
+                ops.add(polled);
+            }
+
+            // applied: 앞에서부터 DB 반영이 끝난 작업 수 (실패 시 이후 작업만 재시도)
+            int applied = 0;
+            try {
+                List<Object[]> inserts = new ArrayList<>();
+                for (int i = 0; i < ops.size(); i++) {
+                    WriteOp op = ops.get(i);
+                    if (isDiscarded(op)) {
+                        continue;
+                    }
+                    if (op.isInsert()) {
+                        inserts.add(op.args());
+                        continue;
+                    }
+                    applied = batchInsert(inserts, applied, i);
+                    jdbcTemplate.update(op.sql(), op.args());
+                    applied = i + 1;
+                }
+                batchInsert(inserts, applied, ops.size());
+                failedFlushes = 0;
+            } catch (RuntimeException e) {
+                // DB 오류 외의 예외도 같은 재시도/포기 경로로 처리하여 꺼낸 작업이 조용히 사라지지 않도록 함
+                List<WriteOp> remaining = ops.subList(applied, ops.size());
+                failedFlushes++;
+                if (failedFlushes < maxFlushAttempts) {
+                    retryWrites.addAll(remaining);
+                    log.warn("ChatMemory write-behind 반영 실패 ({}/{}회) - 남은 작업 {}개 다음 주기에 재시도: {}",
+                            failedFlushes, maxFlushAttempts, remaining.size(), e.getMessage());
+                } else {
+                    abandoned = new LinkedHashSet<>();
+                    for (WriteOp op : remaining) {
+                        abandoned.add(op.conversationId());
+                    }
+                    failedFlushes = 0;
+                    log.error("ChatMemory write-behind {}회 연속 반영 실패 - 작업 {}개 유실, 대화 캐시 무효화: {}",
+                            maxFlushAttempts, remaining.size(), abandoned, e);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        // 캐시 적재(loadWindow)가 writeLock을 기다릴 수 있으므로 락 해제 후 무효화
+        if (!abandoned.isEmpty()) {
+            windows.invalidateAll(abandoned);
+        }
+    }
+
+    /**
+     * 주기 반영 작업
+     * scheduleWithFixedDelay 는 작업에서 예외가 나가면 이후 실행을 모두 취소하므로 예외를 기록만 하고 다음 주기에 다시 시도
+     */
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("ChatMemory write-behind 주기 반영 중 예외 - 다음 주기에 다시 시도", e);
+        }
+    }
+
+    /**
+     * 종료 시 남은 쓰기 작업 반영
+     */
+    public void shutdown() {
+        if (writer != null) {
+            writer.shutdown();
+            flush();
+            if (!pendingWrites.isEmpty() || hasRetryWrites()) {
+                log.error("종료 시 ChatMemory 쓰기 작업 반영 실패 - 재시도 대기 작업 유실");
+            }
+        }
+    }
+
+    /**
+     * 캐시에 없으면 대기 중인 쓰기를 먼저 반영한 뒤 적재
+     * 적재 함수 안에서 flush 하면 반영 포기 시 windows.invalidateAll 이 같은 캐시를 재귀 갱신하므로 적재 전에 수행
+     */
+    private Window windowFor(String conversationId) {
+        Window cached = windows.getIfPresent(conversationId);
+        if (cached != null) {
+            return cached;
+        }
+        flush();
+        return windows.get(conversationId, this::loadWindow);
+    }
+
+    /**
+     * 캐시에 없는 세션은 최근 maxMessages 행만 조회
+     * 윈도우 밖 행이 남아 있을 수 있으므로 다음 저장 시 한 번 정리하도록 표시
+     */
+    private Window loadWindow(String conversationId) {
+        // 조회 전에 세대를 읽어 두어 조회 도중 대화가 삭제되면 이 윈도우의 쓰기가 반영되지 않도록 함
+        long windowGeneration = generation.get();
+        List<Object[]> rows = jdbcTemplate.query(
+                tokenCountEstimator != null ? SELECT_WINDOW_WITH_TOKENS_SQL : SELECT_WINDOW_SQL,
+                (rs, rowNum) -> new Object[] {
+                        toMessage(rs.getString("content"), rs.getString("type")), rs.getTimestamp("timestamp").getTime(),
+                        tokenCountEstimator != null ? rs.getObject("token_count", Integer.class) : null
+                }, conversationId, maxMessages);
+        Collections.reverse(rows);
+
+        Window window = new Window(windowGeneration);
+        for (Object[] row : rows) {
+            Message message = (Message) row[0];
+            window.messages.add(message);
+            window.timestamps.add((Long) row[1]);
+            // 토큰 수 저장 이전에 기록된 행은 조회 시 계산
+            window.tokenCounts.add(row[2] != null ? (Integer) row[2] : countTokens(message));
+        }
+        window.lastTimestamp = window.timestamps.isEmpty() ? 0L : window.timestamps.get(window.timestamps.size() - 1);
+        window.persistedRows = window.messages.size() + trimSlack + 1;
+        return window;
+    }
+
+    /**
+     * 전체 다시 저장 (삭제 후 INSERT)
+     * 이력 보존 시에는 현재 윈도우 행만 삭제하고 그 이전 이력은 유지
+     */
+    private void rewrite(String conversationId, Window window, List<Message> messages) {
+        if (!retainHistory) {
+            write(new WriteOp(conversationId, window.generation, DELETE_ALL_SQL, null, null, null));
+        } else if (!window.timestamps.isEmpty()) {
+            write(new WriteOp(conversationId, window.generation, DELETE_FROM_SQL, null, window.timestamps.get(0), null));
+        }
+        List<Long> timestamps = new ArrayList<>(messages.size());
+        List<Integer> tokenCounts = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            long timestamp = window.nextTimestamp();
+            int tokenCount = countTokens(message);
+            timestamps.add(timestamp);
+            tokenCounts.add(tokenCount);
+            write(new WriteOp(conversationId, window.generation, insertSql, message, timestamp, tokenCount));
+        }
+        window.messages = new ArrayList<>(messages);
+        window.timestamps = timestamps;
+        window.tokenCounts = tokenCounts;
+        window.persistedRows = messages.size();
+        log.debug("ChatMemory 전체 다시 저장 - 세션: {}, {}개", conversationId, messages.size());
+    }
+
+    private void write(WriteOp op) {
+        if (writeBehind) {
+            pendingWrites.add(op);
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (!isDiscarded(op)) {
+                jdbcTemplate.update(op.sql(), op.args());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 대화 삭제 전 처리 (writeLock 보유 상태에서 호출)
+     * 대기/재시도 중인 작업을 버리고, 삭제 이전 세대의 윈도우가 이후에 만드는 작업도 반영되지 않도록 세대 기록
+     */
+    private void discardWrites(Set<String> conversationIds) {
+        long deletedGeneration = generation.incrementAndGet();
+        for (String conversationId : conversationIds) {
+            tombstones.put(conversationId, deletedGeneration);
+        }
+        pendingWrites.removeIf(op -> conversationIds.contains(op.conversationId()));
+        retryWrites.removeIf(op -> conversationIds.contains(op.conversationId()));
+    }
+
+    /**
+     * 삭제 이전에 읽은 윈도우에서 만들어진 작업인지 여부 (writeLock 보유 상태에서 호출)
+     */
+    private boolean isDiscarded(WriteOp op) {
+        Long deletedGeneration = tombstones.getIfPresent(op.conversationId());
+        return deletedGeneration != null && op.generation() < deletedGeneration;
+    }
+
+    private boolean hasRetryWrites() {
+        writeLock.lock();
+        try {
+            return !retryWrites.isEmpty();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private int countTokens(Message message) {
+        return tokenCountEstimator != null ? tokenCountEstimator.estimate(message.getText()) : 0;
+    }
+
+    /**
+     * 모아 둔 INSERT 를 배치로 실행
+     *
+     * @return 반영이 끝난 작업 수 (실행할 INSERT 가 없으면 applied 그대로, 실행했으면 next)
+     */
+    private int batchInsert(List<Object[]> inserts, int applied, int next) {
+        if (inserts.isEmpty()) {
+            return applied;
+        }
+        jdbcTemplate.batchUpdate(insertSql, inserts);
+        inserts.clear();
+        return next;
+    }
+
+    /**
+     * 새 목록이 "이전 윈도우에서 앞의 k개를 제거한 목록 + 추가 메시지" 형태이면 k, 아니면 -1
+     */
+    private static int droppedPrefix(List<Message> previous, List<Message> current) {
+        for (int dropped = 0; dropped <= previous.size(); dropped++) {
+            int kept = previous.size() - dropped;
+            if (kept <= current.size() && previous.subList(dropped, previous.size()).equals(current.subList(0, kept))) {
+                return dropped;
+            }
+        }
+        return -1;
+    }
+
+    private static Message toMessage(String content, String type) {
+        return switch (MessageType.valueOf(type)) {
+            case USER -> new UserMessage(content);
+            case ASSISTANT -> new AssistantMessage(content);
+            case SYSTEM -> new SystemMessage(content);
+            case TOOL -> new ToolResponseMessage(List.of());
+        };
+    }
+
+    /**
+     * 세션별 윈도우 캐시 (접근은 Window 객체 락으로 보호)
+     */
+    private static final class Window {
+
+        private final long generation;
+        private List<Message> messages = new ArrayList<>();
+        private List<Long> timestamps = new ArrayList<>();
+        private List<Integer> tokenCounts = new ArrayList<>();
+        private long lastTimestamp;
+        private int persistedRows;
+
+        private Window(long generation) {
+            this.generation = generation;
+        }
+
+        /**
+         * 세션 내 순서를 보장하는 단조 증가 타임스탬프 (밀리초)
+         */
+        private long nextTimestamp() {
+            lastTimestamp = Math.max(System.currentTimeMillis(), lastTimestamp + 1);
+            return lastTimestamp;
+        }
+    }
+
+    /**
+     * 대화 이력 항목
+     *
+     * @param timestamp 저장 시각 (epoch 밀리초)
+     * @param id 행 번호 (같은 시각에 저장된 행의 순서)
+     */
+    public record HistoryEntry(MessageType messageType, String content, long timestamp, long id) {
+
+        public HistoryPosition position() {
+            return new HistoryPosition(timestamp, id);
+        }
+    }
+
+    /**
+     * 이력 조회 위치 ((timestamp, id) 순서)
+     * 시각만 알고 있는 경우(이전 형식 커서, id 없는 요약) startOf/endOf 로 그 시각의 행 전체를 경계 밖에 둠
+     */
+    public record HistoryPosition(long timestamp, long id) {
+
+        /**
+         * 이 시각의 모든 행보다 앞선 위치 (before 로 사용 시 해당 시각의 행 제외)
+         */
+        public static HistoryPosition startOf(long timestamp) {
+            return new HistoryPosition(timestamp, Long.MIN_VALUE);
+        }
+
+        /**
+         * 이 시각의 모든 행보다 뒤의 위치 (after 로 사용 시 해당 시각의 행 제외)
+         */
+        public static HistoryPosition endOf(long timestamp) {
+            return new HistoryPosition(timestamp, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 쓰기 작업 (INSERT 또는 DELETE)
+     */
+    private record WriteOp(String conversationId, long generation, String sql, Message message, Long timestamp,
+                           Integer tokenCount) {
+
+        private boolean isInsert() {
+            return INSERT_SQL.equals(sql) || INSERT_WITH_TOKENS_SQL.equals(sql);
+        }
+
+        private Object[] args() {
+            if (INSERT_WITH_TOKENS_SQL.equals(sql)) {
+                return new Object[] { conversationId, message.getText(), message.getMessageType().name(),
+                        new Timestamp(timestamp), tokenCount };
+            }
+            if (isInsert()) {
+                return new Object[] { conversationId, message.getText(), message.getMessageType().name(),
+                        new Timestamp(timestamp) };
+            }
+            if (DELETE_BEFORE_SQL.equals(sql) || DELETE_FROM_SQL.equals(sql)) {
+                return new Object[] { conversationId, new Timestamp(timestamp) };
+            }
+            return new Object[] { conversationId };
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.chat.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.chat.dto.ChatSessionBulkResult;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 여러 세션을 한 번에 처리하는 집합 기반 SQL 저장소
+ * 세션 ID 목록은 배열 파라미터(= ANY(?))로 전달하여 세션 수와 관계없이 테이블마다 한 문장으로 처리
+ * 트랜잭션 경계와 캐시 무효화는 호출 측(세션 서비스)에서 관리
+ * - 보관(archive): 세션/메시지 행을 *_archive 테이블로 옮긴 뒤 원본 삭제 (요약은 다시 만들 수 있으므로 삭제)
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class EgovChatSessionBulkRepository implements SmartInitializingSingleton {
+
+    private static final String CREATE_SESSIONS_ARCHIVE_SQL = """
+            CREATE TABLE IF NOT EXISTS spring_ai_chat_sessions_archive (
+                session_id VARCHAR(255) PRIMARY KEY,
+                title VARCHAR(500) NOT NULL,
+                created_at TIMESTAMP NOT NULL,
+                last_message_at TIMESTAMP NOT NULL,
+                archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+    private static final String CREATE_MEMORY_ARCHIVE_SQL = """
+            CREATE TABLE IF NOT EXISTS spring_ai_chat_memory_archive (
+                conversation_id VARCHAR(255) NOT NULL,
+                content TEXT NOT NULL,
+                type VARCHAR(10) NOT NULL,
+                "timestamp" TIMESTAMP NOT NULL,
+                archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )
+            """;
+    private static final String CREATE_MEMORY_ARCHIVE_INDEX_SQL = """
+            CREATE INDEX IF NOT EXISTS spring_ai_chat_memory_archive_conversation_id_idx
+                ON spring_ai_chat_memory_archive (conversation_id, "timestamp")
+            """;
+
+    private static final String SELECT_IDLE_SESSIONS_SQL = """
+            SELECT session_id FROM spring_ai_chat_sessions
+             WHERE last_message_at < ?
+             ORDER BY last_message_at, session_id
+             LIMIT ?
+            """;
+    private static final String ARCHIVE_SESSIONS_SQL = """
+            INSERT INTO spring_ai_chat_sessions_archive (session_id, title, created_at, last_message_at)
+            SELECT session_id, title, created_at, last_message_at
+              FROM spring_ai_chat_sessions
+             WHERE session_id = ANY(?)
+            ON CONFLICT (session_id) DO UPDATE
+               SET title = EXCLUDED.title,
+                   last_message_at = EXCLUDED.last_message_at,
+                   archived_at = CURRENT_TIMESTAMP
+            """;
+    private static final String ARCHIVE_MEMORY_SQL = """
+            INSERT INTO spring_ai_chat_memory_archive (conversation_id, content, type, "timestamp")
+            SELECT conversation_id, content, type, "timestamp"
+              FROM spring_ai_chat_memory
+             WHERE conversation_id = ANY(?)
+            """;
+    /**
+     * 세션별 제목을 두 배열(세션 ID, 제목)로 전달하여 한 문장으로 변경
+     */
+    private static final String RENAME_SESSIONS_SQL = """
+            UPDATE spring_ai_chat_sessions s
+               SET title = t.title
+              FROM unnest(?, ?) AS t(session_id, title)
+             WHERE s.session_id = t.session_id
+            """;
+    private static final String DELETE_SESSIONS_SQL =
+            "DELETE FROM spring_ai_chat_sessions WHERE session_id = ANY(?)";
+    private static final String DELETE_MEMORY_SQL =
+            "DELETE FROM spring_ai_chat_memory WHERE conversation_id = ANY(?)";
+    private static final String DELETE_SUMMARIES_SQL =
+            "DELETE FROM egov_chat_memory_summary WHERE conversation_id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 보관 테이블 생성 확인
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        log.info("채팅 보관 테이블 생성 확인");
+        jdbcTemplate.execute(CREATE_SESSIONS_ARCHIVE_SQL);
+        jdbcTemplate.execute(CREATE_MEMORY_ARCHIVE_SQL);
+        jdbcTemplate.execute(CREATE_MEMORY_ARCHIVE_INDEX_SQL);
+    }
+
+    /**
+     * 마지막 메시지 시간이 기준 시각 이전인 세션 ID 조회 (오래된 순)
+     */
+    public List<String> findIdleSessionIds(LocalDateTime lastMessageBefore, int limit) {
+        return jdbcTemplate.queryForList(SELECT_IDLE_SESSIONS_SQL, String.class,
+                Timestamp.valueOf(lastMessageBefore), limit);
+    }
+
+    /**
+     * 세션 정보, 대화 메시지, 요약 삭제
+     */
+    public ChatSessionBulkResult deleteSessions(Collection<String> sessionIds) {
+        int messages = update(DELETE_MEMORY_SQL, sessionIds);
+        update(DELETE_SUMMARIES_SQL, sessionIds);
+        int sessions = update(DELETE_SESSIONS_SQL, sessionIds);
+        return new ChatSessionBulkResult(sessions, messages);
+    }
+
+    /**
+     * 세션 정보와 대화 메시지를 보관 테이블로 옮긴 뒤 삭제
+     */
+    public ChatSessionBulkResult archiveSessions(Collection<String> sessionIds) {
+        update(ARCHIVE_SESSIONS_SQL, sessionIds);
+        update(ARCHIVE_MEMORY_SQL, sessionIds);
+        return deleteSessions(sessionIds);
+    }
+
+    /**
+     * 세션 제목 일괄 변경 (sessionIds와 titles는 같은 순서)
+     *
+     * @return 변경된 세션 수
+     */
+    public int renameSessions(List<String> sessionIds, List<String> titles) {
+        return jdbcTemplate.update(RENAME_SESSIONS_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("varchar", sessionIds.toArray(new String[0])));
+            ps.setArray(2, ps.getConnection().createArrayOf("varchar", titles.toArray(new String[0])));
+        });
+    }
+
+    /**
+     * 세션 ID 배열을 첫 번째 파라미터로 바인딩하여 실행
+     */
+    private int update(String sql, Collection<String> sessionIds) {
+        return jdbcTemplate.update(sql, ps -> ps.setArray(1,
+                ps.getConnection().createArrayOf("varchar", sessionIds.toArray(new String[0]))));
+    }
+}
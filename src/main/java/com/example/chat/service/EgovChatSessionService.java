@@ -1,9 +1,12 @@
 package com.example.chat.service;
 
+import com.example.chat.dto.ChatMessagePage;
 import com.example.chat.dto.ChatSession;
-import org.springframework.ai.chat.messages.Message;
+import com.example.chat.dto.ChatSessionBulkResult;
+import com.example.chat.dto.ChatSessionPage;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 채팅 세션 관리 서비스 인터페이스
@@ -16,9 +19,20 @@ public interface EgovChatSessionService {
     ChatSession createNewSession();
     
     /**
-     * 모든 세션 목록 조회
+     * 세션 목록 페이지 조회 (마지막 메시지 시간 내림차순, 커서 기반)
+     *
+     * @param cursor 이전 페이지의 nextCursor (첫 페이지는 null)
+     * @param size 페이지 크기 (설정된 최대값으로 제한)
+     * @param includeMessageCount 세션별 메시지 수 포함 여부
+     * @throws IllegalArgumentException 커서 형식이 잘못된 경우
      */
-    List<ChatSession> getAllSessions();
+    ChatSessionPage getSessions(String cursor, Integer size, boolean includeMessageCount);
+
+    /**
+     * 세션 목록 버전 (조건부 GET용 ETag 값)
+     * 세션 생성/갱신/삭제/제목 변경 시 바뀌며, 목록을 조회하지 않고 계산
+     */
+    String getSessionListVersion();
     
     /**
      * 특정 세션 조회
@@ -29,6 +43,24 @@ public interface EgovChatSessionService {
      * 세션 삭제
      */
     void deleteSession(String sessionId);
+
+    /**
+     * 여러 세션 일괄 삭제 (세션 정보, 메시지, 요약을 한 트랜잭션에서 삭제)
+     */
+    ChatSessionBulkResult deleteSessions(List<String> sessionIds);
+
+    /**
+     * 여러 세션 일괄 보관 (세션 정보와 메시지를 보관 테이블로 옮긴 뒤 삭제)
+     */
+    ChatSessionBulkResult archiveSessions(List<String> sessionIds);
+
+    /**
+     * 여러 세션 제목 일괄 변경 (단일 UPDATE 문, 마지막 메시지 시간은 유지)
+     *
+     * @param titles 세션 ID별 새 제목
+     * @throws IllegalArgumentException 제목이 비어 있는 경우
+     */
+    ChatSessionBulkResult renameSessions(Map<String, String> titles);
     
     /**
      * 세션 존재 여부 확인
@@ -36,9 +68,13 @@ public interface EgovChatSessionService {
     boolean sessionExists(String sessionId);
     
     /**
-     * 세션의 메시지 목록 조회
+     * 세션의 메시지 이력 페이지 조회 (사용자/어시스턴트 메시지, 최신 페이지부터)
+     *
+     * @param cursor 이전 페이지의 nextCursor (첫 페이지는 null)
+     * @param size 페이지 크기 (설정된 최대값으로 제한)
+     * @throws IllegalArgumentException 커서 형식이 잘못된 경우
      */
-    List<Message> getSessionMessages(String sessionId);
+    ChatMessagePage getSessionMessages(String sessionId, String cursor, Integer size);
     
     /**
      * 세션 제목 업데이트
@@ -54,4 +90,14 @@ public interface EgovChatSessionService {
      * 마지막 메시지 시간 업데이트
      */
     void updateLastMessageTime(String sessionId);
+
+    /**
+     * 채팅 메시지 수신 시 세션 갱신 (단일 UPDATE 문)
+     * 마지막 메시지 시간을 갱신하고, 제목이 기본값이면 메시지로 생성한 제목으로 변경
+     *
+     * @param sessionId 세션 ID
+     * @param message 수신한 사용자 메시지 (제목 생성용)
+     * @return 세션이 존재하여 갱신된 경우 true
+     */
+    boolean touchSession(String sessionId, String message);
 }
@@ -34,4 +34,10 @@ public interface EgovDocumentService {
 
     // 상태 응답 객체 반환
     DocumentStatusResponse getStatusResponse();
+
+    // 처리 상태 버전 (상태 값이 바뀔 때마다 증가, 조건부 GET용 ETag 값)
+    long getStatusVersion();
+
+    // 벡터 인덱스 크기 및 양자화 검색 재현율 조회
+    Map<String, Object> getVectorIndexStats(int sampleSize);
 } 
\ No newline at end of file
@@ -16,4 +16,17 @@ public interface EgovOllamaModelService {
      * 설치된 모델 목록 조회
      */
     List<String> getInstalledModels();
+
+    /**
+     * 캐시된 모델 목록 조회 (캐시 만료 시에만 ollama 명령 실행)
+     */
+    ModelCatalog getModelCatalog();
+
+    /**
+     * 모델 목록 스냅샷
+     *
+     * @param generation 사용 가능 여부나 모델 목록이 바뀔 때마다 증가하는 세대 (ETag 값)
+     */
+    record ModelCatalog(boolean available, List<String> models, long generation) {
+    }
 }
@@ -1,25 +1,47 @@
 package com.example.chat.service;
 
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.vectorstore.filter.Filter;
 
+import com.example.chat.dto.RagStreamEvent;
 import com.example.chat.response.TechnologyResponse;
 
 import reactor.core.publisher.Flux;
 
 /**
  * 세션별 대화 기능을 제공하는 채팅 서비스 인터페이스
+ * 세션 ID는 스레드 로컬이 아닌 파라미터로 전달받아 어드바이저 컨텍스트로 넘기므로
+ * 스트림이 어느 스레드에서 실행되더라도 같은 세션으로 처리됨
  */
 public interface EgovSessionAwareChatService {
 
     /**
      * 세션별 RAG 기반 스트리밍 응답 생성
+     *
+     * @param sessionId 대화 세션 ID
+     * @param query 사용자 질의
+     * @param model 모델 이름 (null 가능)
+     * @param filterExpression 검색 범위 메타데이터 필터 (null 가능)
+     */
+    Flux<ChatResponse> streamRagResponse(String sessionId, String query, String model, Filter.Expression filterExpression);
+
+    /**
+     * 세션별 RAG 기반 이벤트 스트림 생성
+     * 검색 완료 즉시 sources 이벤트, 이후 token 이벤트, 마지막에 usage 이벤트를 순서대로 전달
+     *
+     * @param sessionId 대화 세션 ID
+     * @param query 사용자 질의
+     * @param model 모델 이름 (null 가능)
+     * @param filterExpression 검색 범위 메타데이터 필터 (null 가능)
      */
-    Flux<ChatResponse> streamRagResponse(String query, String model);
+    Flux<RagStreamEvent> streamRagEvents(String sessionId, String query, String model, Filter.Expression filterExpression);
 
     /**
      * 세션별 일반 스트리밍 응답 생성
+     *
+     * @param sessionId 대화 세션 ID
      */
-    Flux<ChatResponse> streamSimpleResponse(String query, String model);
+    Flux<ChatResponse> streamSimpleResponse(String sessionId, String query, String model);
 
     /**
      * JSON 구조화된 출력 - 기술 정보
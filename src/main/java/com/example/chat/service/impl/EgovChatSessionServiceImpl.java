@@ -1,25 +1,44 @@
 package com.example.chat.service.impl;
 
+import com.example.chat.config.memory.EgovConversationSummarizer;
+import com.example.chat.dto.ChatMessageDto;
+import com.example.chat.dto.ChatMessagePage;
 import com.example.chat.dto.ChatSession;
+import com.example.chat.dto.ChatSessionBulkResult;
+import com.example.chat.dto.ChatSessionPage;
 import com.example.chat.entity.ChatSessionEntity;
 import com.example.chat.repository.ChatSessionRepository;
+import com.example.chat.repository.EgovAppendOnlyChatMemoryRepository;
+import com.example.chat.repository.EgovAppendOnlyChatMemoryRepository.HistoryPosition;
+import com.example.chat.repository.EgovChatSessionBulkRepository;
 import com.example.chat.service.EgovChatSessionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.egovframe.rte.fdl.cmmn.EgovAbstractServiceImpl;
-import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.messages.Message;
-import org.springframework.ai.chat.messages.UserMessage;
-import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -27,8 +46,78 @@ import java.util.stream.Collectors;
 public class EgovChatSessionServiceImpl extends EgovAbstractServiceImpl implements EgovChatSessionService {
 
     private final ChatSessionRepository chatSessionRepository;
-    private final ChatMemory chatMemory;
+    private final EgovAppendOnlyChatMemoryRepository chatMemoryRepository;
+    private final EgovChatSessionBulkRepository chatSessionBulkRepository;
+    private final ObjectProvider<EgovConversationSummarizer> conversationSummarizer;
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final String DEFAULT_TITLE = "새 채팅";
+    private static final int MAX_TITLE_LENGTH = 500;
+
+    @Value("${chat.sessions.page-size:30}")
+    private int defaultPageSize;
+
+    @Value("${chat.sessions.message-page-size:20}")
+    private int defaultMessagePageSize;
+
+    @Value("${chat.sessions.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * 세션 목록 키셋 페이지 조회
+     * (last_message_at DESC, session_id DESC) 복합 인덱스를 그대로 따라가므로 페이지 위치와 무관하게 LIMIT 건만 읽음
+     * 메시지 수는 조회된 페이지의 세션에 대해서만 상관 서브쿼리로 계산 (conversation_id, timestamp 인덱스 사용)
+     */
+    private static final String SESSION_PAGE_SELECT = """
+            SELECT s.session_id, s.title, s.created_at, s.last_message_at%s
+              FROM spring_ai_chat_sessions s
+            """;
+    private static final String SESSION_PAGE_MESSAGE_COUNT = """
+            ,
+                   (SELECT count(*) FROM spring_ai_chat_memory m
+                     WHERE m.conversation_id = s.session_id
+                       AND m.type IN ('USER', 'ASSISTANT')) AS message_count""";
+    private static final String SESSION_PAGE_AFTER_CURSOR = """
+             WHERE (s.last_message_at, s.session_id) < (?, ?)
+            """;
+    private static final String SESSION_PAGE_ORDER = """
+             ORDER BY s.last_message_at DESC, s.session_id DESC
+             LIMIT ?
+            """;
+    private static final String CURSOR_SEPARATOR = "|";
+    private static final String MESSAGE_CURSOR_SEPARATOR = "_";
+
+    /**
+     * 세션 목록 버전 조회 ((last_message_at DESC, session_id DESC) 인덱스의 첫 항목만 읽음)
+     */
+    private static final String MAX_LAST_MESSAGE_AT_SQL =
+            "SELECT max(last_message_at) FROM spring_ai_chat_sessions";
+
+    /**
+     * 마지막 메시지 시간 갱신 + 기본 제목인 경우 제목 설정을 한 번의 왕복으로 처리
+     */
+    private static final String TOUCH_SESSION_SQL = """
+            UPDATE spring_ai_chat_sessions
+               SET last_message_at = ?,
+                   title = CASE WHEN title = ? THEN ? ELSE title END
+             WHERE session_id = ?
+            """;
+
+    /**
+     * 존재하지 않는 세션 ID 캐시 (짧은 TTL)
+     * 잘못된/삭제된 세션 ID로 반복 요청 시 DB 조회 없이 기본 세션으로 처리
+     */
+    private final Cache<String, Boolean> missingSessions = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofSeconds(30))
+            .build();
+
+    /**
+     * 세션 목록 변경 세대 (삭제/보관/제목 변경처럼 마지막 메시지 시간의 최대값이 바뀌지 않는 변경 감지용)
+     * 재시작 후 이전 ETag와 겹치지 않도록 시작 시각에서 출발
+     */
+    private final AtomicLong listGeneration = new AtomicLong(System.currentTimeMillis());
 
     @Override
     public ChatSession createNewSession() {
@@ -38,27 +127,56 @@ public class EgovChatSessionServiceImpl extends EgovAbstractServiceImpl implemen
         // JPA Entity로 세션 생성
         ChatSessionEntity entity = new ChatSessionEntity();
         entity.setSessionId(sessionId);
-        entity.setTitle("새 채팅");
+        entity.setTitle(DEFAULT_TITLE);
         entity.setCreatedAt(now);
         entity.setLastMessageAt(now);
 
         chatSessionRepository.save(entity);
+        missingSessions.invalidate(sessionId);
+        listGeneration.incrementAndGet();
 
         log.debug("새 채팅 세션 생성: {}", sessionId);
-        return new ChatSession(sessionId, "새 채팅", now);
+        return new ChatSession(sessionId, DEFAULT_TITLE, now);
     }
 
     @Override
-    public List<ChatSession> getAllSessions() {
-        List<ChatSessionEntity> entities = chatSessionRepository.findAllOrderByLastMessageAtDesc();
+    public ChatSessionPage getSessions(String cursor, Integer size, boolean includeMessageCount) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        Cursor after = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor);
 
-        return entities.stream()
-                .map(entity -> new ChatSession(
-                        entity.getSessionId(),
-                        entity.getTitle(),
-                        entity.getCreatedAt(),
-                        entity.getLastMessageAt()))
-                .toList();
+        StringBuilder sql = new StringBuilder()
+                .append(SESSION_PAGE_SELECT.formatted(includeMessageCount ? SESSION_PAGE_MESSAGE_COUNT : ""));
+        List<Object> params = new ArrayList<>();
+        if (after != null) {
+            sql.append(SESSION_PAGE_AFTER_CURSOR);
+            params.add(Timestamp.valueOf(after.lastMessageAt()));
+            params.add(after.sessionId());
+        }
+        sql.append(SESSION_PAGE_ORDER);
+        // 다음 페이지 존재 여부 확인용으로 1건 더 조회
+        params.add(pageSize + 1);
+
+        List<ChatSession> sessions = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new ChatSession(
+                rs.getString("session_id"),
+                rs.getString("title"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getTimestamp("last_message_at").toLocalDateTime(),
+                includeMessageCount ? rs.getLong("message_count") : null), params.toArray());
+
+        boolean hasMore = sessions.size() > pageSize;
+        if (hasMore) {
+            sessions = sessions.subList(0, pageSize);
+        }
+        String nextCursor = hasMore ? encodeCursor(sessions.get(pageSize - 1)) : null;
+
+        log.debug("세션 목록 페이지 조회: {} 개, 다음 페이지: {}", sessions.size(), hasMore);
+        return new ChatSessionPage(sessions, nextCursor, hasMore);
+    }
+
+    @Override
+    public String getSessionListVersion() {
+        Timestamp maxLastMessageAt = jdbcTemplate.queryForObject(MAX_LAST_MESSAGE_AT_SQL, Timestamp.class);
+        return (maxLastMessageAt != null ? maxLastMessageAt.getTime() : 0L) + "-" + listGeneration.get();
     }
 
     @Override
@@ -73,17 +191,30 @@ public class EgovChatSessionServiceImpl extends EgovAbstractServiceImpl implemen
     }
 
     @Override
-    public List<Message> getSessionMessages(String sessionId) {
-        try {
-            List<Message> all = chatMemory.get(sessionId);
-            // UI에는 사용자/어시스턴트 메시지만 노출 (System 등 내부 메시지는 제외)
-            return all.stream()
-                    .filter(m -> (m instanceof UserMessage) || (m instanceof AssistantMessage))
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            log.warn("세션 {} 메시지 조회 실패: {}", sessionId, e.getMessage());
-            return new ArrayList<>();
+    public ChatMessagePage getSessionMessages(String sessionId, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultMessagePageSize : Math.min(size, maxPageSize);
+        HistoryPosition before = cursor == null || cursor.isBlank() ? null : decodeMessageCursor(cursor);
+
+        // UI에는 사용자/어시스턴트 메시지만 노출 (System 등 내부 메시지는 저장소 조회에서 제외)
+        List<EgovAppendOnlyChatMemoryRepository.HistoryEntry> entries =
+                chatMemoryRepository.findHistory(sessionId, before, pageSize + 1);
+
+        boolean hasMore = entries.size() > pageSize;
+        if (hasMore) {
+            entries = entries.subList(0, pageSize);
         }
+        String nextCursor = hasMore ? encodeMessageCursor(entries.get(pageSize - 1).position()) : null;
+
+        // 최신순으로 조회한 페이지를 시간순으로 변환
+        List<ChatMessageDto> messages = new ArrayList<>(entries.size());
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            EgovAppendOnlyChatMemoryRepository.HistoryEntry entry = entries.get(i);
+            messages.add(new ChatMessageDto(entry.messageType().name(), entry.content(),
+                    new Timestamp(entry.timestamp()).toLocalDateTime()));
+        }
+
+        log.debug("세션 {} 메시지 이력 조회: {} 개, 이전 페이지: {}", sessionId, messages.size(), hasMore);
+        return new ChatMessagePage(messages, nextCursor, hasMore);
     }
 
     @Override
@@ -93,6 +224,7 @@ public class EgovChatSessionServiceImpl extends EgovAbstractServiceImpl implemen
                     entity.setTitle(title);
                     entity.setLastMessageAt(LocalDateTime.now());
                     chatSessionRepository.save(entity);
+                    listGeneration.incrementAndGet();
                     log.debug("세션 제목 업데이트: {} -> {}", sessionId, title);
                 });
     }
@@ -107,10 +239,27 @@ public class EgovChatSessionServiceImpl extends EgovAbstractServiceImpl implemen
                 });
     }
 
+    @Override
+    public boolean touchSession(String sessionId, String message) {
+        if (missingSessions.getIfPresent(sessionId) != null) {
+            log.debug("존재하지 않는 세션 (캐시): {}", sessionId);
+            return false;
+        }
+
+        int updated = jdbcTemplate.update(TOUCH_SESSION_SQL,
+                LocalDateTime.now(), DEFAULT_TITLE, generateSessionTitle(message), sessionId);
+        if (updated == 0) {
+            missingSessions.put(sessionId, Boolean.TRUE);
+            return false;
+        }
+        log.debug("세션 갱신 완료: {}", sessionId);
+        return true;
+    }
+
     @Override
     public String generateSessionTitle(String firstMessage) {
         if (firstMessage == null || firstMessage.trim().isEmpty()) {
-            return "새 채팅";
+            return DEFAULT_TITLE;
         }
 
         // 첫 메시지에서 제목 생성 (최대 30자)
@@ -129,25 +278,111 @@ public class EgovChatSessionServiceImpl extends EgovAbstractServiceImpl implemen
 
     @Override
     public void deleteSession(String sessionId) {
-        log.info("세션 삭제 시작: {}", sessionId);
+        deleteSessions(List.of(sessionId));
+    }
 
-        // 1. spring_ai_chat_memory 테이블에서 해당 세션의 모든 메시지 삭제
-        String deleteMemorySql = "DELETE FROM spring_ai_chat_memory WHERE conversation_id = ?";
-        int deletedMessages = jdbcTemplate.update(deleteMemorySql, sessionId);
-        log.info("세션 {} 메시지 삭제 완료: {} 개", sessionId, deletedMessages);
+    @Override
+    public ChatSessionBulkResult deleteSessions(List<String> sessionIds) {
+        return purgeSessions(sessionIds, "삭제", chatSessionBulkRepository::deleteSessions);
+    }
 
-        // 2. ChatMemory 캐시에서도 삭제 (선택적, 실패해도 무시)
+    @Override
+    public ChatSessionBulkResult archiveSessions(List<String> sessionIds) {
+        return purgeSessions(sessionIds, "보관", chatSessionBulkRepository::archiveSessions);
+    }
+
+    @Override
+    public ChatSessionBulkResult renameSessions(Map<String, String> titles) {
+        List<String> sessionIds = new ArrayList<>(titles.size());
+        List<String> newTitles = new ArrayList<>(titles.size());
+        titles.forEach((sessionId, title) -> {
+            if (title == null || title.isBlank()) {
+                throw new IllegalArgumentException("세션 제목이 비어 있습니다: " + sessionId);
+            }
+            if (title.trim().length() > MAX_TITLE_LENGTH) {
+                throw new IllegalArgumentException("세션 제목은 " + MAX_TITLE_LENGTH + "자 이하여야 합니다: " + sessionId);
+            }
+            sessionIds.add(sessionId);
+            newTitles.add(title.trim());
+        });
+        if (sessionIds.isEmpty()) {
+            return new ChatSessionBulkResult(0, 0);
+        }
+
+        int updated = chatSessionBulkRepository.renameSessions(sessionIds, newTitles);
+        listGeneration.incrementAndGet();
+        log.info("세션 제목 일괄 변경 완료: 요청 {} 개, 변경 {} 개", sessionIds.size(), updated);
+        return new ChatSessionBulkResult(updated, 0);
+    }
+
+    /**
+     * 세션 일괄 삭제/보관 공통 처리
+     * 메모리 저장소의 대기 중인 쓰기 작업을 버린 뒤 한 트랜잭션에서 테이블마다 한 문장으로 처리하고,
+     * 메모리 윈도우/요약/존재 여부 캐시를 정리
+     */
+    private ChatSessionBulkResult purgeSessions(List<String> sessionIds, String action,
+                                                Function<Collection<String>, ChatSessionBulkResult> operation) {
+        List<String> ids = sessionIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            return new ChatSessionBulkResult(0, 0);
+        }
+
+        ChatSessionBulkResult result = chatMemoryRepository.purgeConversations(ids,
+                () -> transactionTemplate.execute(status -> operation.apply(ids)));
+        conversationSummarizer.ifAvailable(summarizer -> summarizer.evict(ids));
+        ids.forEach(id -> missingSessions.put(id, Boolean.TRUE));
+        listGeneration.incrementAndGet();
+
+        log.info("세션 {} 완료: 요청 {} 개, 세션 {} 개, 메시지 {} 개",
+                action, ids.size(), result.getSessions(), result.getMessages());
+        return result;
+    }
+
+    /**
+     * 커서: "마지막 메시지 시간|세션 ID"를 URL-safe Base64로 인코딩
+     */
+    private static String encodeCursor(ChatSession last) {
+        String raw = last.getLastMessageAt() + CURSOR_SEPARATOR + last.getSessionId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor) {
         try {
-            chatMemory.clear(sessionId);
-            log.debug("ChatMemory 캐시에서 세션 {} 삭제 완료", sessionId);
-        } catch (Exception e) {
-            log.debug("ChatMemory 캐시 삭제 실패 (무시): {}", e.getMessage());
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(CURSOR_SEPARATOR);
+            if (separator <= 0) {
+                throw new IllegalArgumentException("잘못된 세션 목록 커서입니다: " + cursor);
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("잘못된 세션 목록 커서입니다: " + cursor, e);
         }
+    }
+
+    /**
+     * 메시지 이력 커서: 페이지에서 가장 오래된 메시지의 "저장 시각(epoch 밀리초)_행 번호"
+     * 같은 시각에 저장된 메시지가 있어도 페이지 경계에서 건너뛰거나 중복되지 않도록 행 번호를 함께 사용
+     */
+    private static String encodeMessageCursor(HistoryPosition position) {
+        return position.timestamp() + MESSAGE_CURSOR_SEPARATOR + position.id();
+    }
 
-        // 3. 세션 정보 삭제
-        chatSessionRepository.deleteById(sessionId);
-        log.info("세션 정보 삭제 완료: {}", sessionId);
+    /**
+     * 행 번호가 없는 이전 형식 커서(저장 시각만)는 해당 시각 이전 메시지부터 조회
+     */
+    private static HistoryPosition decodeMessageCursor(String cursor) {
+        try {
+            int separator = cursor.indexOf(MESSAGE_CURSOR_SEPARATOR);
+            if (separator < 0) {
+                return HistoryPosition.startOf(Long.parseLong(cursor));
+            }
+            return new HistoryPosition(Long.parseLong(cursor.substring(0, separator)),
+                    Long.parseLong(cursor.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("잘못된 메시지 이력 커서입니다: " + cursor, e);
+        }
+    }
 
-        log.info("세션 삭제 완료: {}", sessionId);
+    private record Cursor(LocalDateTime lastMessageAt, String sessionId) {
     }
 }
@@ -12,13 +12,16 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.egovframe.rte.fdl.cmmn.EgovAbstractServiceImpl;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
 import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 
 import com.example.chat.config.etl.readers.EgovMarkdownReader;
@@ -26,23 +29,26 @@ import com.example.chat.config.etl.readers.EgovPdfReader;
 import com.example.chat.config.etl.transformers.EgovEnhancedDocumentTransformer;
 import com.example.chat.config.etl.transformers.EgovContentFormatTransformer;
 import com.example.chat.config.etl.writers.EgovVectorStoreWriter;
+import com.example.chat.config.rag.retrievers.EgovPgVectorDocumentRetriever;
+import com.example.chat.config.rag.retrievers.EgovVectorIndexManager;
 import com.example.chat.response.DocumentStatusResponse;
 import com.example.chat.service.EgovDocumentService;
 import com.example.chat.util.EgovDocumentHashUtil;
 import com.example.chat.repository.DocumentMetadataRepository;
 import com.example.chat.model.DocumentMetadata;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class EgovDocumentServiceImpl extends EgovAbstractServiceImpl implements EgovDocumentService {
 
     @Value("${spring.ai.document.path}")
     private String documentPath;
 
+    @Value("${rag.top-k}")
+    private int topK;
+
     // ETL 파이프라인 컴포넌트들
     private final EgovMarkdownReader markdownReader;
     private final EgovPdfReader pdfReader;
@@ -56,7 +62,11 @@ public class EgovDocumentServiceImpl extends EgovAbstractServiceImpl implements
     // JPA 리포지토리 (해시 저장용)
     private final DocumentMetadataRepository metadataRepository;
 
-    // 비동기 실행자
+    // 벡터 인덱스 관리 (양자화 인덱스 크기/재현율 측정)
+    private final EgovVectorIndexManager vectorIndexManager;
+    private final DocumentRetriever vectorStoreDocumentRetriever;
+
+    // 비동기 실행자 (Executor 빈이 여러 개이므로 문서 처리 전용 풀을 이름으로 지정)
     private final Executor executor;
 
     private final AtomicBoolean isProcessing = new AtomicBoolean(false);
@@ -64,6 +74,31 @@ public class EgovDocumentServiceImpl extends EgovAbstractServiceImpl implements
     private final AtomicInteger totalCount = new AtomicInteger(0);
     private final AtomicInteger changedCount = new AtomicInteger(0);
 
+    // 처리 상태 버전 (재시작 후 이전 ETag와 겹치지 않도록 시작 시각에서 출발)
+    private final AtomicLong statusVersion = new AtomicLong(System.currentTimeMillis());
+
+    public EgovDocumentServiceImpl(EgovMarkdownReader markdownReader,
+                                   EgovPdfReader pdfReader,
+                                   EgovContentFormatTransformer contentFormatTransformer,
+                                   EgovEnhancedDocumentTransformer enhancedDocumentTransformer,
+                                   EgovVectorStoreWriter vectorStoreWriter,
+                                   PgVectorStore pgVectorStore,
+                                   DocumentMetadataRepository metadataRepository,
+                                   EgovVectorIndexManager vectorIndexManager,
+                                   DocumentRetriever vectorStoreDocumentRetriever,
+                                   @Qualifier("documentProcessingExecutor") Executor executor) {
+        this.markdownReader = markdownReader;
+        this.pdfReader = pdfReader;
+        this.contentFormatTransformer = contentFormatTransformer;
+        this.enhancedDocumentTransformer = enhancedDocumentTransformer;
+        this.vectorStoreWriter = vectorStoreWriter;
+        this.pgVectorStore = pgVectorStore;
+        this.metadataRepository = metadataRepository;
+        this.vectorIndexManager = vectorIndexManager;
+        this.vectorStoreDocumentRetriever = vectorStoreDocumentRetriever;
+        this.executor = executor;
+    }
+
     @Override
     public boolean isProcessing() {
         return isProcessing.get();
@@ -96,6 +131,7 @@ public class EgovDocumentServiceImpl extends EgovAbstractServiceImpl implements
         processedCount.set(0);
         totalCount.set(0);
         changedCount.set(0);
+        statusVersion.incrementAndGet();
 
         return CompletableFuture.supplyAsync(() -> {
             try {
@@ -108,12 +144,14 @@ public class EgovDocumentServiceImpl extends EgovAbstractServiceImpl implements
                 allDocuments.addAll(pdfDocuments);
 
                 totalCount.set(allDocuments.size());
+                statusVersion.incrementAndGet();
                 log.info("총 {}개의 문서를 로드했습니다. (마크다운: {}개, PDF: {}개)",
                         allDocuments.size(), markdownDocuments.size(), pdfDocuments.size());
 
                 // 2단계: 변경된 문서 필터링
                 List<Document> changedDocuments = filterChangedDocuments(allDocuments);
                 changedCount.set(changedDocuments.size());
+                statusVersion.incrementAndGet();
                 log.info("총 {}개의 문서 중 {}개의 변경된 문서를 처리합니다.",
                         allDocuments.size(), changedDocuments.size());
 
@@ -143,6 +181,7 @@ public class EgovDocumentServiceImpl extends EgovAbstractServiceImpl implements
                 }
 
                 processedCount.set(transformedDocuments.size());
+                statusVersion.incrementAndGet();
                 log.info("문서 처리 완료: {}개 문서 처리됨 (원본: {}개 → 청크: {}개)",
                     transformedDocuments.size(), changedDocuments.size(), transformedDocuments.size());
 
@@ -153,6 +192,7 @@ public class EgovDocumentServiceImpl extends EgovAbstractServiceImpl implements
                 throw new RuntimeException("문서 처리 중 오류 발생", e);
             } finally {
                 isProcessing.set(false);
+                statusVersion.incrementAndGet();
             }
         }, executor);
     }
@@ -255,6 +295,26 @@ public class EgovDocumentServiceImpl extends EgovAbstractServiceImpl implements
                 this.getChangedCount());
     }
 
+    @Override
+    public long getStatusVersion() {
+        return statusVersion.get();
+    }
+
+    @Override
+    public Map<String, Object> getVectorIndexStats(int sampleSize) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("quantization", vectorIndexManager.getQuantizationMode().name());
+        result.put("indexSizes", vectorIndexManager.getIndexSizes());
+
+        // 양자화 검색기를 사용하는 경우에만 정확 검색 대비 재현율 측정
+        if (vectorStoreDocumentRetriever instanceof EgovPgVectorDocumentRetriever pgVectorRetriever) {
+            result.put("recallAtK", vectorIndexManager.measureRecall(pgVectorRetriever, sampleSize, topK));
+            result.put("k", topK);
+            result.put("sampleSize", EgovVectorIndexManager.clampRecallSamples(sampleSize));
+        }
+        return result;
+    }
+
     /**
      * 변경된 문서만 필터링하는 메서드
      */
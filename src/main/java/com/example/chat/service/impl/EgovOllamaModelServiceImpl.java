@@ -4,11 +4,13 @@ import com.example.chat.service.EgovOllamaModelService;
 import lombok.extern.slf4j.Slf4j;
 
 import org.egovframe.rte.fdl.cmmn.EgovAbstractServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,6 +21,46 @@ import java.util.List;
 @Service
 public class EgovOllamaModelServiceImpl extends EgovAbstractServiceImpl implements EgovOllamaModelService {
 
+    /**
+     * 모델 목록 캐시 유지 시간 (만료 전까지 폴링 요청에서 프로세스를 실행하지 않음)
+     */
+    @Value("${chat.models.cache-ttl:30s}")
+    private Duration cacheTtl;
+
+    private volatile ModelCatalog catalog;
+    private volatile long catalogLoadedAt;
+
+    /**
+     * 재시작 후 이전 ETag와 겹치지 않도록 시작 시각에서 출발
+     */
+    private long generation = System.currentTimeMillis();
+
+    @Override
+    public ModelCatalog getModelCatalog() {
+        ModelCatalog current = catalog;
+        if (current != null && System.nanoTime() - catalogLoadedAt < cacheTtl.toNanos()) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = catalog;
+            if (current != null && System.nanoTime() - catalogLoadedAt < cacheTtl.toNanos()) {
+                return current;
+            }
+
+            boolean available = isOllamaAvailable();
+            List<String> models = available ? List.copyOf(getInstalledModels()) : List.of();
+            // 내용이 같으면 세대를 유지하여 클라이언트 ETag가 계속 유효하도록 함
+            if (current == null || current.available() != available || !current.models().equals(models)) {
+                generation++;
+                log.info("Ollama 모델 목록 변경 - 사용 가능: {}, 모델: {}개", available, models.size());
+            }
+            catalog = new ModelCatalog(available, models, generation);
+            catalogLoadedAt = System.nanoTime();
+            return catalog;
+        }
+    }
+
     @Override
     public List<String> getInstalledModels() {
         List<String> models = new ArrayList<>();
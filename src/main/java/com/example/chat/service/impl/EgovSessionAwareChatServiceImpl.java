@@ -1,20 +1,37 @@
 package com.example.chat.service.impl;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
 import org.egovframe.rte.fdl.cmmn.EgovAbstractServiceImpl;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.ChatClient.ChatClientRequestSpec;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
-import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.converter.StructuredOutputConverter;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
+import org.springframework.ai.vectorstore.filter.Filter;
 import org.springframework.stereotype.Service;
 
-import com.example.chat.context.SessionContext;
-import com.example.chat.config.EgovRagConfig;
-import com.example.chat.config.rag.transformers.EgovCompressionQueryTransformer;
+import com.example.chat.config.EgovChatDeadlineConfig;
+import com.example.chat.config.admission.EgovAdmissionAdvisor;
+import com.example.chat.config.admission.EgovAdmissionRejectedException;
+import com.example.chat.config.admission.EgovGenerationAdmission;
+import com.example.chat.config.metrics.EgovChatMetrics;
+import com.example.chat.config.metrics.EgovTimedChatMemoryAdvisor;
+import com.example.chat.config.rag.postprocessors.EgovSourcesNotifyingPostProcessor;
+import com.example.chat.context.RequestDeadline;
+import com.example.chat.dto.RagStreamEvent;
 import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
 import com.example.chat.response.TechnologyResponse;
 import com.example.chat.service.EgovSessionAwareChatService;
@@ -23,6 +40,8 @@ import com.example.chat.util.EgovThinkTagOutputConverter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 @Slf4j
 @Service
@@ -30,12 +49,11 @@ import reactor.core.publisher.Flux;
 public class EgovSessionAwareChatServiceImpl extends EgovAbstractServiceImpl implements EgovSessionAwareChatService {
 
     private final ChatClient ollamaChatClient;
-    private final MessageChatMemoryAdvisor messageChatMemoryAdvisor;
-    private final EgovCompressionQueryTransformer compressionTransformer;
-    private final VectorStoreDocumentRetriever vectorStoreDocumentRetriever;
-
-    @Value("${rag.enable-query-compression:true}")
-    private boolean enableQueryCompression;
+    private final EgovTimedChatMemoryAdvisor chatMemoryAdvisor;
+    private final RetrievalAugmentationAdvisor ragAdvisor;
+    private final EgovAdmissionAdvisor admissionAdvisor;
+    private final EgovChatMetrics chatMetrics;
+    private final EgovChatDeadlineConfig deadlineConfig;
 
     // StructuredOutputConverter 인스턴스들 (<think> 태그 처리)
     private final StructuredOutputConverter<TechnologyResponse> technologyOutputConverter =
@@ -45,8 +63,78 @@ public class EgovSessionAwareChatServiceImpl extends EgovAbstractServiceImpl imp
      * 세션별 RAG 기반 스트리밍 응답 생성
      */
     @Override
-    public Flux<ChatResponse> streamRagResponse(String query, String model) {
-        String sessionId = SessionContext.getCurrentSessionId();
+    public Flux<ChatResponse> streamRagResponse(String sessionId, String query, String model,
+                                                Filter.Expression filterExpression) {
+        return streamRag(sessionId, query, model, filterExpression, null, null, EgovChatDeadlineConfig.RAG_STREAM_ENDPOINT,
+                deadlineConfig.start(EgovChatDeadlineConfig.RAG_STREAM_ENDPOINT, model));
+    }
+
+    /**
+     * 세션별 RAG 기반 이벤트 스트림 생성
+     * 검색된 문서는 RAG 어드바이저 체인 마지막 후처리기에서 리스너로 전달되므로 LLM 첫 토큰보다 먼저 전송됨
+     * 생성 대기열에서 기다리는 동안에는 대기 순번을 queue 이벤트로, 거절되면 busy 이벤트로 전달
+     */
+    @Override
+    public Flux<RagStreamEvent> streamRagEvents(String sessionId, String query, String model,
+                                                Filter.Expression filterExpression) {
+        long startTime = System.currentTimeMillis();
+        Sinks.One<List<Document>> retrievedDocuments = Sinks.one();
+        AtomicReference<ChatResponse> lastResponse = new AtomicReference<>();
+        RequestDeadline deadline = deadlineConfig.start(EgovChatDeadlineConfig.RAG_EVENTS_ENDPOINT, model);
+
+        // 대기 순번은 여러 스레드(허가 반환, 대기 시간 초과)에서 알려지므로 직렬화하여 방출
+        Sinks.Many<Integer> queuePositions = Sinks.many().unicast().onBackpressureBuffer();
+        IntConsumer queueListener = position -> {
+            synchronized (queuePositions) {
+                queuePositions.tryEmitNext(position);
+            }
+        };
+
+        Flux<ChatResponse> responses = streamRag(sessionId, query, model, filterExpression,
+                documents -> retrievedDocuments.tryEmitValue(documents), queueListener,
+                EgovChatDeadlineConfig.RAG_EVENTS_ENDPOINT, deadline);
+
+        // 검색 전에 오류가 나더라도 sources 스트림이 끝나도록 응답 스트림 종료 시 함께 종료
+        Flux<RagStreamEvent> sourceEvents = retrievedDocuments.asMono()
+                .map(documents -> new RagStreamEvent(RagStreamEvent.SOURCES, toSources(documents)))
+                .flux();
+
+        Flux<RagStreamEvent> queueEvents = queuePositions.asFlux()
+                .map(position -> new RagStreamEvent(RagStreamEvent.QUEUE, Map.of("position", position)));
+
+        Flux<RagStreamEvent> tokenEvents = responses
+                .doOnNext(lastResponse::set)
+                .doFinally(signalType -> {
+                    retrievedDocuments.tryEmitEmpty();
+                    synchronized (queuePositions) {
+                        queuePositions.tryEmitComplete();
+                    }
+                })
+                .filter(response -> response.getResult() != null
+                        && response.getResult().getOutput().getText() != null
+                        && !response.getResult().getOutput().getText().isEmpty())
+                .map(response -> new RagStreamEvent(RagStreamEvent.TOKEN,
+                        Map.of("text", response.getResult().getOutput().getText())))
+                .concatWith(Flux.defer(() -> Flux.just(
+                        new RagStreamEvent(RagStreamEvent.USAGE, toUsage(lastResponse.get(), model, startTime, deadline)))))
+                .onErrorResume(EgovAdmissionRejectedException.class, e -> Flux.just(new RagStreamEvent(RagStreamEvent.BUSY,
+                        Map.of("message", e.getMessage(), "retryAfter", e.getRetryAfterSeconds()))));
+
+        return Flux.merge(sourceEvents, queueEvents, tokenEvents);
+    }
+
+    /**
+     * RAG 어드바이저를 적용한 스트리밍 호출
+     *
+     * @param sourcesListener 검색 완료 시 최종 문서를 전달받을 리스너 (null 가능)
+     * @param queueListener 생성 대기 순번 리스너 (null 가능)
+     * @param endpoint 단계별 지표의 endpoint 태그
+     * @param deadline 응답 기한 (어드바이저 체인 내부 작업 취소 판단에도 사용)
+     */
+    private Flux<ChatResponse> streamRag(String sessionId, String query, String model, Filter.Expression filterExpression,
+                                         Consumer<List<Document>> sourcesListener, IntConsumer queueListener,
+                                         String endpoint,
+                                         RequestDeadline deadline) {
         log.info("세션별 RAG 기반 스트리밍 질의 수신: {}, 모델: {}, 세션: {}", query, model, sessionId);
 
         try {
@@ -56,21 +144,33 @@ public class EgovSessionAwareChatServiceImpl extends EgovAbstractServiceImpl imp
             // 원본 질문으로 ChatClient RequestSpec 생성 (사용자 메시지로 저장)
             ChatClientRequestSpec requestSpec = createRequestSpec(query, model);
 
-            // RAG 어드바이저 생성 (질문 압축 설정값에 따라 동작 결정)
-            log.info("RAG 어드바이저 생성 시작 - 세션: {}, 원본 질문: '{}', 질문 압축: {}", sessionId, query, enableQueryCompression);
-            Advisor ragAdvisor = EgovRagConfig.createRagAdvisor(sessionId, compressionTransformer, vectorStoreDocumentRetriever, enableQueryCompression);
-            log.info("RAG 어드바이저 생성 완료 - 세션: {}", sessionId);
-
             log.info("RAG 스트리밍 시작 - 세션: {}, 원본 질문: '{}'", sessionId, query);
 
             // ChatMemory 어드바이저와 RAG 어드바이저 적용
             // - MessageChatMemoryAdvisor: 원본 질문을 사용자 메시지로 저장
-            // - RAG Advisor: 내부 QueryTransformer에서 히스토리 압축 후 문서 검색
-            return requestSpec
-                    .advisors(messageChatMemoryAdvisor, ragAdvisor)
-                    .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, sessionId))
+            // - RAG Advisor: 싱글톤 체인, 내부 QueryTransformer에서 히스토리 압축 후 문서 검색
+            // - Admission Advisor: 모델 호출 직전 모델별 생성 허가 획득 (초과 시 FIFO 대기)
+            // - 세션 ID와 메타데이터 필터는 어드바이저 컨텍스트로 전달 (압축 시 히스토리 조회, 벡터 검색 SQL 조건)
+            // - 단계별 지표 태그(endpoint, model)와 응답 기한도 어드바이저 컨텍스트로 전달
+            return withStageMetrics(withDeadline(requestSpec
+                    .advisors(chatMemoryAdvisor, ragAdvisor, admissionAdvisor)
+                    .advisors(a -> {
+                        a.param(ChatMemory.CONVERSATION_ID, sessionId);
+                        a.param(RequestDeadline.CONTEXT_KEY, deadline);
+                        a.param(EgovChatMetrics.ENDPOINT_KEY, endpoint);
+                        a.param(EgovChatMetrics.MODEL_KEY, chatMetrics.resolveModel(model));
+                        if (filterExpression != null) {
+                            a.param(VectorStoreDocumentRetriever.FILTER_EXPRESSION, filterExpression);
+                        }
+                        if (sourcesListener != null) {
+                            a.param(EgovSourcesNotifyingPostProcessor.SOURCES_LISTENER_KEY, sourcesListener);
+                        }
+                        if (queueListener != null) {
+                            a.param(EgovGenerationAdmission.QUEUE_LISTENER_KEY, queueListener);
+                        }
+                    })
                     .stream()
-                    .chatResponse();
+                    .chatResponse(), deadline, endpoint, model), endpoint, model);
 
         } catch (Exception e) {
             log.error("세션별 RAG 스트리밍 응답 생성 중 오류 발생 - 세션: {}", sessionId, e);
@@ -78,12 +178,117 @@ public class EgovSessionAwareChatServiceImpl extends EgovAbstractServiceImpl imp
         }
     }
 
+    /**
+     * 클라이언트 연결 종료와 응답 기한 초과를 응답 스트림 취소로 전파
+     * 취소는 어드바이저 체인을 거쳐 Ollama 스트리밍 HTTP 요청까지 전달되어 연결이 끊기고 모델 생성이 중단됨
+     * 기한 초과 시에는 그때까지 생성된 응답으로 스트림을 정상 종료
+     * 취소 후에는 RequestDeadline 취소 표시로 아직 시작하지 않은 질문 압축/문서 검색을 건너뜀
+     */
+    private Flux<ChatResponse> withDeadline(Flux<ChatResponse> responses, RequestDeadline deadline,
+                                            String endpoint, String model) {
+        Mono<Long> deadlineSignal = Mono.defer(() -> Mono.delay(deadline.remaining()))
+                .doOnNext(tick -> {
+                    deadline.cancel();
+                    log.warn("응답 기한 초과로 생성 중단 - 엔드포인트: {}, 모델: {}, 기한: {}",
+                            endpoint, chatMetrics.resolveModel(model), deadline.getTimeout());
+                    chatMetrics.recordCancellation(endpoint, model, EgovChatMetrics.DEADLINE_EXCEEDED);
+                });
+
+        return responses
+                .takeUntilOther(deadlineSignal)
+                .doOnCancel(() -> {
+                    // 하위 구독 취소 = SSE 클라이언트 연결 종료 (응답 쓰기 실패 또는 비동기 요청 종료)
+                    if (deadline.cancel()) {
+                        log.info("클라이언트 연결 종료로 생성 중단 - 엔드포인트: {}, 모델: {}", endpoint,
+                                chatMetrics.resolveModel(model));
+                        chatMetrics.recordCancellation(endpoint, model, EgovChatMetrics.CLIENT_DISCONNECT);
+                    }
+                });
+    }
+
+    /**
+     * 응답 스트림의 첫 토큰까지 시간, 전체 시간, 생성 속도(초당 토큰 수) 기록
+     * 측정 시작 시각은 구독 시점(어드바이저 체인 실행 시작)이며, 생성 속도는 마지막 응답의
+     * 출력 토큰 수를 첫 토큰 이후 경과 시간으로 나누어 계산
+     */
+    private Flux<ChatResponse> withStageMetrics(Flux<ChatResponse> responses, String endpoint, String model) {
+        return Flux.defer(() -> {
+            long startNanos = System.nanoTime();
+            AtomicBoolean firstToken = new AtomicBoolean();
+            AtomicLong firstTokenNanos = new AtomicLong();
+            AtomicReference<ChatResponse> lastResponse = new AtomicReference<>();
+
+            return responses
+                    .doOnNext(response -> {
+                        lastResponse.set(response);
+                        if (response.getResult() != null && response.getResult().getOutput().getText() != null
+                                && !response.getResult().getOutput().getText().isEmpty()
+                                && firstToken.compareAndSet(false, true)) {
+                            firstTokenNanos.set(System.nanoTime());
+                            chatMetrics.recordStage(EgovChatMetrics.TIME_TO_FIRST_TOKEN, endpoint, model, startNanos);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        chatMetrics.recordStage(EgovChatMetrics.TOTAL, endpoint, model, startNanos);
+                        ChatResponse response = lastResponse.get();
+                        if (!firstToken.get() || response == null || response.getMetadata().getUsage() == null) {
+                            return;
+                        }
+                        Integer completionTokens = response.getMetadata().getUsage().getCompletionTokens();
+                        double generationSeconds = (System.nanoTime() - firstTokenNanos.get()) / 1_000_000_000.0;
+                        if (completionTokens != null && completionTokens > 0 && generationSeconds > 0) {
+                            chatMetrics.recordTokensPerSecond(endpoint, model, completionTokens / generationSeconds);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * sources 이벤트 데이터: 청크 ID, 제목(원본 파일명), 점수
+     */
+    private List<Map<String, Object>> toSources(List<Document> documents) {
+        List<Map<String, Object>> sources = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            Map<String, Object> metadata = document.getMetadata();
+            Object title = metadata.getOrDefault("title", metadata.getOrDefault("source", metadata.get("file_name")));
+
+            Map<String, Object> source = new LinkedHashMap<>();
+            source.put("id", document.getId());
+            source.put("title", title);
+            source.put("score", document.getScore());
+            if (metadata.containsKey("page_number")) {
+                source.put("page", metadata.get("page_number"));
+            }
+            sources.add(source);
+        }
+        return sources;
+    }
+
+    /**
+     * usage 이벤트 데이터: 마지막 응답의 토큰 사용량과 전체 소요 시간
+     */
+    private Map<String, Object> toUsage(ChatResponse response, String model, long startTime, RequestDeadline deadline) {
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("model", response != null && response.getMetadata().getModel() != null
+                ? response.getMetadata().getModel() : model);
+        if (response != null && response.getMetadata().getUsage() != null) {
+            Usage tokenUsage = response.getMetadata().getUsage();
+            usage.put("promptTokens", tokenUsage.getPromptTokens());
+            usage.put("completionTokens", tokenUsage.getCompletionTokens());
+            usage.put("totalTokens", tokenUsage.getTotalTokens());
+        }
+        usage.put("durationMs", System.currentTimeMillis() - startTime);
+        if (deadline.isExpired()) {
+            usage.put("deadlineExceeded", true);
+        }
+        return usage;
+    }
+
     /**
      * 세션별 일반 스트리밍 응답 생성
      */
     @Override
-    public Flux<ChatResponse> streamSimpleResponse(String query, String model) {
-        String sessionId = SessionContext.getCurrentSessionId();
+    public Flux<ChatResponse> streamSimpleResponse(String sessionId, String query, String model) {
         log.info("세션별 일반 스트리밍 질의 수신: {}, 모델: {}, 세션: {}", query, model, sessionId);
 
         try {
@@ -91,14 +296,20 @@ public class EgovSessionAwareChatServiceImpl extends EgovAbstractServiceImpl imp
 
             // 원본 질문으로 ChatClient RequestSpec 생성 (RAG 없으므로 압축 불필요)
             ChatClient.ChatClientRequestSpec requestSpec = createRequestSpec(query, model);
+            String endpoint = EgovChatDeadlineConfig.SIMPLE_STREAM_ENDPOINT;
+            RequestDeadline deadline = deadlineConfig.start(endpoint, model);
 
             // ChatMemory 어드바이저만 적용 (RAG 없음)
             // MessageChatMemoryAdvisor가 자동으로 히스토리를 제공하므로 별도 압축 불필요
-            return requestSpec
-                    .advisors(messageChatMemoryAdvisor)
-                    .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, sessionId))
+            return withStageMetrics(withDeadline(requestSpec
+                    .advisors(chatMemoryAdvisor, admissionAdvisor)
+                    .advisors(a -> a
+                            .param(ChatMemory.CONVERSATION_ID, sessionId)
+                            .param(RequestDeadline.CONTEXT_KEY, deadline)
+                            .param(EgovChatMetrics.ENDPOINT_KEY, endpoint)
+                            .param(EgovChatMetrics.MODEL_KEY, chatMetrics.resolveModel(model)))
                     .stream()
-                    .chatResponse();
+                    .chatResponse(), deadline, endpoint, model), endpoint, model);
 
         } catch (Exception e) {
             log.error("세션별 일반 스트리밍 응답 생성 중 오류 발생 - 세션: {}", sessionId, e);
@@ -119,6 +330,7 @@ public class EgovSessionAwareChatServiceImpl extends EgovAbstractServiceImpl imp
         try {
             // 커스텀 StructuredOutputConverter 사용하여 <think> 태그 처리
             return ollamaChatClient.prompt()
+                    .advisors(admissionAdvisor)
                     .user(u -> u.text("다음 질문에 대해 기술 정보를 제공해주세요: {query}")
                                .param("query", query))
                     .call()
@@ -0,0 +1,58 @@
+package com.example.chat.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder.Op;
+
+/**
+ * RAG 검색 범위 파라미터를 벡터 저장소 메타데이터 필터 표현식으로 변환하는 유틸리티 클래스
+ * 문서 리더가 기록하는 메타데이터 키(type, source, last_modified)를 사용
+ */
+public class EgovRagFilterUtil {
+
+    public static final String TYPE_KEY = "type";
+    public static final String SOURCE_KEY = "source";
+    public static final String LAST_MODIFIED_KEY = "last_modified";
+
+    /**
+     * 검색 범위 파라미터로 필터 표현식 생성
+     *
+     * @param type 문서 유형 (markdown, pdf)
+     * @param source 원본 파일명
+     * @param from 최종 수정일 시작 (포함)
+     * @param to 최종 수정일 끝 (포함)
+     * @return 필터 표현식, 조건이 없으면 null
+     */
+    public static Filter.Expression buildFilterExpression(String type, String source, LocalDate from, LocalDate to) {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        List<Op> conditions = new ArrayList<>();
+
+        if (type != null && !type.isBlank()) {
+            conditions.add(b.eq(TYPE_KEY, type.trim().toLowerCase()));
+        }
+        if (source != null && !source.isBlank()) {
+            conditions.add(b.eq(SOURCE_KEY, source.trim()));
+        }
+        // last_modified는 ISO 날짜 문자열(yyyy-MM-dd)로 저장되므로 문자열 비교로 범위 검색
+        if (from != null) {
+            conditions.add(b.gte(LAST_MODIFIED_KEY, from.toString()));
+        }
+        if (to != null) {
+            conditions.add(b.lte(LAST_MODIFIED_KEY, to.toString()));
+        }
+
+        if (conditions.isEmpty()) {
+            return null;
+        }
+
+        Op combined = conditions.get(0);
+        for (int i = 1; i < conditions.size(); i++) {
+            combined = b.and(combined, conditions.get(i));
+        }
+        return combined.build();
+    }
+}
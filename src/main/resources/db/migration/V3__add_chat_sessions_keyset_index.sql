@@ -0,0 +1,7 @@
+-- 세션 목록 키셋 페이지 조회용 복합 인덱스
+-- WHERE (last_message_at, session_id) < (?, ?) ORDER BY last_message_at DESC, session_id DESC LIMIT ?
+CREATE INDEX IF NOT EXISTS idx_chat_sessions_last_message_at_session_id
+    ON spring_ai_chat_sessions (last_message_at DESC, session_id DESC);
+
+-- 단일 컬럼 인덱스는 복합 인덱스로 대체됨
+DROP INDEX IF EXISTS idx_chat_sessions_last_message_at;
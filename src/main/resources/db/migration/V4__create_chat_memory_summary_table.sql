@@ -0,0 +1,7 @@
+-- 대화 요약 테이블 (윈도우 밖으로 밀려난 대화의 누적 요약, 세션당 1행)
+CREATE TABLE IF NOT EXISTS egov_chat_memory_summary (
+    conversation_id VARCHAR(255) PRIMARY KEY,
+    summary TEXT NOT NULL,
+    covered_until TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
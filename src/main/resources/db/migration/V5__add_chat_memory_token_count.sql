@@ -0,0 +1,3 @@
+-- 메시지별 토큰 수 (토큰 예산 기반 대화 윈도우용, 저장 시 한 번 계산)
+-- chat.memory.token-budget.enabled=true 이면 애플리케이션 시작 시에도 자동으로 추가됨
+ALTER TABLE spring_ai_chat_memory ADD COLUMN IF NOT EXISTS token_count INTEGER;
@@ -0,0 +1,43 @@
+-- 대화 메모리 테이블을 월 단위 범위 파티션으로 전환 ("timestamp" 기준)
+-- 보존 기간(chat.retention.memory-ttl)이 지난 메시지는 행 단위 DELETE 대신 파티션 DROP 으로 제거되어
+-- 테이블/인덱스 팽창(bloat)과 VACUUM 부하가 생기지 않음
+-- 다음 달 파티션은 보존 작업(EgovChatRetentionJob)이 미리 생성하며, 범위 밖 행은 기본 파티션에 저장됨
+-- 기존 행을 모두 복사하므로 트래픽이 적은 시간에 실행
+
+ALTER TABLE spring_ai_chat_memory RENAME TO spring_ai_chat_memory_legacy;
+DROP INDEX IF EXISTS spring_ai_chat_memory_conversation_id_timestamp_idx;
+
+CREATE TABLE spring_ai_chat_memory (
+    conversation_id VARCHAR(36) NOT NULL,
+    content TEXT NOT NULL,
+    type VARCHAR(10) NOT NULL CHECK (type IN ('USER', 'ASSISTANT', 'SYSTEM', 'TOOL')),
+    "timestamp" TIMESTAMP NOT NULL,
+    token_count INTEGER
+) PARTITION BY RANGE ("timestamp");
+
+CREATE TABLE spring_ai_chat_memory_default PARTITION OF spring_ai_chat_memory DEFAULT;
+
+-- 가장 오래된 메시지의 월부터 다음 두 달까지 월별 파티션 생성 (이름: spring_ai_chat_memory_pYYYYMM)
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE(
+            (SELECT min("timestamp") FROM spring_ai_chat_memory_legacy), now()));
+    last_month DATE := date_trunc('month', now() + INTERVAL '2 months');
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF spring_ai_chat_memory FOR VALUES FROM (%L) TO (%L)',
+                'spring_ai_chat_memory_p' || to_char(month_start, 'YYYYMM'),
+                month_start, month_start + INTERVAL '1 month');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO spring_ai_chat_memory (conversation_id, content, type, "timestamp", token_count)
+SELECT conversation_id, content, type, "timestamp", token_count
+  FROM spring_ai_chat_memory_legacy;
+
+DROP TABLE spring_ai_chat_memory_legacy;
+
+-- 파티션별로 생성되는 (conversation_id, timestamp) 인덱스 (Spring AI 기본 스키마와 같은 이름)
+CREATE INDEX IF NOT EXISTS spring_ai_chat_memory_conversation_id_timestamp_idx
+    ON spring_ai_chat_memory (conversation_id, "timestamp");
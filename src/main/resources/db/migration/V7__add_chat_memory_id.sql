@@ -0,0 +1,8 @@
+-- 메시지 행 번호 (대화 이력 커서의 보조 정렬 키)
+-- 같은 밀리초 "timestamp" 를 가진 행(추가 전용 저장소 도입 전 saveAll 재저장 등)이 페이지 경계에서
+-- 건너뛰거나 중복되지 않도록 ("timestamp", id) 순서로 조회
+-- 애플리케이션 시작 시에도 컬럼이 없으면 자동으로 추가됨 (기존 행 번호 부여로 테이블 재작성)
+ALTER TABLE spring_ai_chat_memory ADD COLUMN IF NOT EXISTS id BIGSERIAL;
+
+-- 요약에 반영된 마지막 메시지의 행 번호 (기존 요약은 NULL: covered_until 시각의 행 전체가 반영된 것으로 간주)
+ALTER TABLE egov_chat_memory_summary ADD COLUMN IF NOT EXISTS covered_until_id BIGINT;
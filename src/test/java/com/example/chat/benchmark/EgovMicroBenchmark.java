@@ -0,0 +1,59 @@
+package com.example.chat.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * 단일 스레드 측정용 간이 마이크로벤치마크 (JMH 없이 JUnit 테스트에서 사용)
+ * 워밍업 후 같은 작업을 반복 실행하여 작업당 평균 소요 시간과 스레드 할당 바이트를 계산
+ * 할당량은 HotSpot 의 com.sun.management.ThreadMXBean 으로 측정하며, 지원하지 않는 JVM 에서는 -1
+ */
+public final class EgovMicroBenchmark {
+
+    private EgovMicroBenchmark() {
+    }
+
+    /**
+     * 측정 결과
+     *
+     * @param nanosPerOp 작업당 평균 소요 시간 (나노초)
+     * @param bytesPerOp 작업당 평균 할당 바이트 (측정 불가 시 -1)
+     */
+    public record Result(String name, int iterations, double nanosPerOp, double bytesPerOp) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-40s %8d회  %12.1f ns/op  %12.1f B/op",
+                    name, iterations, nanosPerOp, bytesPerOp);
+        }
+    }
+
+    public static Result measure(String name, int warmupIterations, int iterations, Runnable operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            operation.run();
+        }
+
+        com.sun.management.ThreadMXBean threadBean = threadBean();
+        long startBytes = threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() : 0;
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long allocatedBytes = threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() - startBytes : -1;
+
+        Result result = new Result(name, iterations, (double) elapsedNanos / iterations,
+                allocatedBytes < 0 ? -1 : (double) allocatedBytes / iterations);
+        System.out.println(result);
+        return result;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+}
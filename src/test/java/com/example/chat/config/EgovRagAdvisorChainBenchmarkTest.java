@@ -0,0 +1,136 @@
+package com.example.chat.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
+import org.springframework.ai.rag.preretrieval.query.transformation.CompressionQueryTransformer;
+import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+
+import com.example.chat.benchmark.EgovMicroBenchmark;
+import com.example.chat.benchmark.EgovMicroBenchmark.Result;
+import com.example.chat.config.admission.EgovModelResolver;
+import com.example.chat.config.metrics.EgovChatMetrics;
+import com.example.chat.config.rag.transformers.EgovCompressionGate;
+import com.example.chat.config.rag.transformers.EgovCompressionQueryTransformer;
+import com.example.chat.service.EgovOllamaModelService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * RAG 어드바이저 체인 요청당 오버헤드 비교 (mvn test -Pbenchmark)
+ * - 변경 전: 요청마다 RetrievalAugmentationAdvisor, 검색기/변환기 래퍼, CompressionQueryTransformer(chatClient.mutate()) 생성
+ * - 변경 후: 애플리케이션 시작 시 한 번 구성한 싱글톤 체인 재사용, 세션 ID는 어드바이저 컨텍스트로 전달
+ * LLM 과 벡터 검색은 고정 응답으로 대체하여 체인 구성/실행 비용만 측정
+ */
+@Tag("benchmark")
+class EgovRagAdvisorChainBenchmarkTest {
+
+    private static final int WARMUP = 5_000;
+    private static final int ITERATIONS = 20_000;
+    private static final String SESSION_ID = "benchmark-session";
+
+    private final ChatModel chatModel = mock(ChatModel.class, Answers.CALLS_REAL_METHODS);
+    private final ChatClient chatClient = ChatClient.create(chatModel);
+    private final AdvisorChain advisorChain = mock(AdvisorChain.class);
+    private final List<Document> documents = List.of(
+            new Document("전자정부 표준프레임워크 개발환경 설치 절차"),
+            new Document("개발환경 압축 해제 후 eclipse 실행"),
+            new Document("JDK 17 설치 및 JAVA_HOME 설정"));
+    private final DocumentRetriever retriever = query -> documents;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Test
+    void 싱글톤_체인은_요청당_할당과_지연을_줄인다() {
+        doAnswer(invocation -> new ChatResponse(List.of(new Generation(new AssistantMessage("표준프레임워크 설치 예시")))))
+                .when(chatModel).call(any(Prompt.class));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EgovCompressionQueryTransformer compressionTransformer = new EgovCompressionQueryTransformer(
+                mock(ChatMemory.class), chatClient,
+                // 게이트를 끄면 항상 압축하므로 변경 전 경로와 같은 LLM 호출 수로 비교
+                new EgovCompressionGate(mock(EmbeddingModel.class), meterRegistry, false, 0.6, 2),
+                new EgovChatMetrics(meterRegistry, new EgovModelResolver(mock(EgovOllamaModelService.class), "")),
+                "", 128, 1, Duration.ofMillis(1));
+        RetrievalAugmentationAdvisor singleton = RetrievalAugmentationAdvisor.builder()
+                .queryTransformers(compressionTransformer)
+                .documentRetriever(retriever)
+                .build();
+
+        Result before = EgovMicroBenchmark.measure("변경 전 (요청마다 체인 생성)", WARMUP, ITERATIONS,
+                () -> perRequestAdvisor().before(nextRequest(), advisorChain));
+        Result after = EgovMicroBenchmark.measure("변경 후 (싱글톤 체인)", WARMUP, ITERATIONS,
+                () -> singleton.before(nextRequest(), advisorChain));
+        Result constructionOnly = EgovMicroBenchmark.measure("체인 생성만 (변경 전 요청당 추가 비용)", WARMUP, ITERATIONS,
+                this::perRequestConstruction);
+
+        System.out.printf("요청당 차이: %.1f ns, %.1f B (체인 생성만: %.1f ns, %.1f B)%n",
+                before.nanosPerOp() - after.nanosPerOp(), before.bytesPerOp() - after.bytesPerOp(),
+                constructionOnly.nanosPerOp(), constructionOnly.bytesPerOp());
+        if (before.bytesPerOp() >= 0) {
+            assertThat(after.bytesPerOp()).isLessThan(before.bytesPerOp());
+        }
+    }
+
+    /**
+     * 변경 전 createRagAdvisor(sessionId, ...) / transformWithSessionId 의 요청당 객체 생성 재현
+     */
+    private RetrievalAugmentationAdvisor perRequestAdvisor() {
+        QueryTransformer sessionAwareTransformer = query -> CompressionQueryTransformer.builder()
+                .chatClientBuilder(chatClient.mutate()
+                        .defaultOptions(ChatOptions.builder().temperature(0.00).build()))
+                .build()
+                .transform(query);
+        DocumentRetriever loggingRetriever = query -> retriever.retrieve(query);
+        return RetrievalAugmentationAdvisor.builder()
+                .queryTransformers(sessionAwareTransformer)
+                .documentRetriever(loggingRetriever)
+                .build();
+    }
+
+    private void perRequestConstruction() {
+        CompressionQueryTransformer.builder()
+                .chatClientBuilder(chatClient.mutate()
+                        .defaultOptions(ChatOptions.builder().temperature(0.00).build()))
+                .build();
+        perRequestAdvisor();
+    }
+
+    /**
+     * 압축 캐시가 적중하지 않도록 요청마다 다른 후속 질문 사용
+     */
+    private ChatClientRequest nextRequest() {
+        Prompt prompt = new Prompt(List.of(
+                new UserMessage("전자정부 표준프레임워크 설치 방법 알려줘"),
+                new AssistantMessage("개발환경을 내려받아 압축을 해제하면 됩니다."),
+                new UserMessage("예시는? " + sequence.incrementAndGet())));
+        return ChatClientRequest.builder()
+                .prompt(prompt)
+                .context(Map.of(ChatMemory.CONVERSATION_ID, SESSION_ID))
+                .build();
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.chat.config.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.chat.config.admission.EgovGenerationAdmission.Permit;
+import com.example.chat.service.EgovOllamaModelService;
+import com.example.chat.service.EgovOllamaModelService.ModelCatalog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+
+class EgovGenerationAdmissionTest {
+
+    private static final String MODEL = "test-model:latest";
+    private static final Duration BLOCK = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EgovOllamaModelService ollamaModelService = mock(EgovOllamaModelService.class);
+
+    @BeforeEach
+    void setUp() {
+        when(ollamaModelService.getModelCatalog())
+                .thenReturn(new ModelCatalog(true, List.of(MODEL, "other-model:7b"), 1L));
+    }
+
+    @Test
+    void 허용_수_이내이면_즉시_허가한다() {
+        EgovGenerationAdmission admission = admission(2, 4, Duration.ofSeconds(30));
+
+        Permit first = admission.acquire(MODEL, null).block(BLOCK);
+        Permit second = admission.acquire(null, null).block(BLOCK);
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(active()).isEqualTo(2.0);
+        assertThat(queued()).isZero();
+    }
+
+    @Test
+    void 대기_요청은_도착_순서대로_허가한다() {
+        EgovGenerationAdmission admission = admission(1, 4, Duration.ofSeconds(30));
+        Permit running = admission.acquire(MODEL, null).block(BLOCK);
+
+        AtomicReference<Permit> first = new AtomicReference<>();
+        AtomicReference<Permit> second = new AtomicReference<>();
+        List<Integer> secondPositions = new CopyOnWriteArrayList<>();
+        admission.acquire(MODEL, null).subscribe(first::set);
+        admission.acquire(MODEL, secondPositions::add).subscribe(second::set);
+        assertThat(queued()).isEqualTo(2.0);
+
+        running.release();
+        assertThat(first.get()).isNotNull();
+        assertThat(second.get()).isNull();
+
+        first.get().release();
+        assertThat(second.get()).isNotNull();
+        assertThat(secondPositions).containsExactly(2, 1, 0);
+        assertThat(active()).isEqualTo(1.0);
+        assertThat(queued()).isZero();
+    }
+
+    @Test
+    void 대기열이_가득_차면_거절한다() {
+        EgovGenerationAdmission admission = admission(1, 1, Duration.ofSeconds(30));
+        admission.acquire(MODEL, null).block(BLOCK);
+        admission.acquire(MODEL, null).subscribe();
+
+        assertThatThrownBy(() -> admission.checkCapacity(MODEL))
+                .isInstanceOf(EgovAdmissionRejectedException.class);
+        assertThatThrownBy(() -> admission.acquire(MODEL, null).block(BLOCK))
+                .isInstanceOf(EgovAdmissionRejectedException.class)
+                .satisfies(e -> assertThat(((EgovAdmissionRejectedException) e).getRetryAfterSeconds()).isPositive());
+        assertThat(rejected("queue_full")).isEqualTo(2.0);
+    }
+
+    @Test
+    void 최대_대기_시간을_넘기면_대기열에서_제거하고_거절한다() {
+        EgovGenerationAdmission admission = admission(1, 4, Duration.ofMillis(100));
+        admission.acquire(MODEL, null).block(BLOCK);
+
+        assertThatThrownBy(() -> admission.acquire(MODEL, null).block(BLOCK))
+                .isInstanceOf(EgovAdmissionRejectedException.class);
+        assertThat(queued()).isZero();
+        assertThat(rejected("wait_timeout")).isEqualTo(1.0);
+    }
+
+    @Test
+    void 대기_중_취소하면_대기열에서_제거한다() {
+        EgovGenerationAdmission admission = admission(1, 4, Duration.ofSeconds(30));
+        Permit running = admission.acquire(MODEL, null).block(BLOCK);
+
+        Disposable waiting = admission.acquire(MODEL, null).subscribe();
+        assertThat(queued()).isEqualTo(1.0);
+        waiting.dispose();
+        assertThat(queued()).isZero();
+
+        running.release();
+        assertThat(active()).isZero();
+    }
+
+    @Test
+    void 허가_직후_취소되면_전달되지_못한_허가를_반환한다() {
+        EgovGenerationAdmission admission = admission(1, 4, Duration.ofSeconds(30));
+        Permit running = admission.acquire(MODEL, null).block(BLOCK);
+
+        // 허가 알림(순번 0)과 허가 전달 사이에 구독을 취소
+        AtomicReference<Disposable> subscription = new AtomicReference<>();
+        AtomicReference<Permit> delivered = new AtomicReference<>();
+        subscription.set(admission.acquire(MODEL, position -> {
+            if (position == 0) {
+                subscription.get().dispose();
+            }
+        }).subscribe(delivered::set));
+
+        running.release();
+
+        assertThat(delivered.get()).isNull();
+        assertThat(active()).isZero();
+        assertThat(admission.acquire(MODEL, null).block(BLOCK)).isNotNull();
+    }
+
+    @Test
+    void 허가는_중복_반환해도_한_번만_반환된다() {
+        EgovGenerationAdmission admission = admission(2, 4, Duration.ofSeconds(30));
+        Permit first = admission.acquire(MODEL, null).block(BLOCK);
+        admission.acquire(MODEL, null).block(BLOCK);
+
+        first.release();
+        first.release();
+
+        assertThat(active()).isEqualTo(1.0);
+    }
+
+    @Test
+    void 대기_없는_획득은_대기_요청이_있으면_양보한다() {
+        EgovGenerationAdmission admission = admission(1, 4, Duration.ofSeconds(30));
+
+        Permit background = admission.tryAcquire(MODEL).orElseThrow();
+        assertThat(admission.tryAcquire(MODEL)).isEmpty();
+
+        AtomicReference<Permit> user = new AtomicReference<>();
+        admission.acquire(MODEL, null).subscribe(user::set);
+        background.release();
+
+        // 반환된 허가는 대기 중이던 사용자 요청이 먼저 받고, 대기 없는 획득은 대기열에 들어가지 않음
+        assertThat(user.get()).isNotNull();
+        assertThat(admission.tryAcquire(MODEL)).isEmpty();
+        assertThat(queued()).isZero();
+
+        user.get().release();
+        assertThat(admission.tryAcquire(MODEL)).isPresent();
+    }
+
+    @Test
+    void 별칭과_확인되지_않은_모델은_같은_허용_수를_공유한다() {
+        EgovGenerationAdmission admission = admission(1, 4, Duration.ofSeconds(30));
+
+        Permit running = admission.tryAcquire("test-model").orElseThrow();
+
+        // 태그 생략 별칭, 설치되지 않은 모델 모두 기본 모델 대기열의 허가를 사용
+        assertThat(admission.tryAcquire(MODEL)).isEmpty();
+        assertThat(admission.tryAcquire("unknown-" + System.nanoTime())).isEmpty();
+        assertThat(admission.tryAcquire("other-model:7b")).isPresent();
+        assertThat(meterRegistry.find("chat.admission.active").gauges()).hasSize(2);
+
+        running.release();
+        assertThat(admission.tryAcquire(MODEL)).isPresent();
+    }
+
+    private EgovGenerationAdmission admission(int permits, int maxQueue, Duration maxWait) {
+        return new EgovGenerationAdmission(meterRegistry, new EgovModelResolver(ollamaModelService, "test-model"),
+                permits, "", maxQueue, maxWait, Duration.ofSeconds(20));
+    }
+
+    private double active() {
+        return meterRegistry.get("chat.admission.active").tag("model", MODEL).gauge().value();
+    }
+
+    private double queued() {
+        return meterRegistry.get("chat.admission.queued").tag("model", MODEL).gauge().value();
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("chat.admission.rejected").tag("model", MODEL).tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.chat.config.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.chat.service.EgovOllamaModelService;
+import com.example.chat.service.EgovOllamaModelService.ModelCatalog;
+
+class EgovModelResolverTest {
+
+    private final EgovOllamaModelService ollamaModelService = mock(EgovOllamaModelService.class);
+    private final EgovModelResolver resolver = new EgovModelResolver(ollamaModelService, "qwen3:8b");
+
+    @Test
+    void 태그를_생략한_이름은_latest_로_정규화한다() {
+        assertThat(EgovModelResolver.normalize(" qwen3 ")).isEqualTo("qwen3:latest");
+        assertThat(EgovModelResolver.normalize("qwen3:8b")).isEqualTo("qwen3:8b");
+        assertThat(EgovModelResolver.normalize("hf.co/org/model")).isEqualTo("hf.co/org/model:latest");
+        assertThat(EgovModelResolver.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void 설치된_모델과_기본_모델만_허용한다() {
+        when(ollamaModelService.getModelCatalog())
+                .thenReturn(new ModelCatalog(true, List.of("qwen3:latest", "qwen3:8b"), 1L));
+
+        assertThat(resolver.resolve("qwen3")).isEqualTo("qwen3:latest");
+        assertThat(resolver.resolve("qwen3:8b")).isEqualTo("qwen3:8b");
+        assertThat(resolver.resolve(" ")).isNull();
+        assertThatThrownBy(() -> resolver.resolve("llama3"))
+                .isInstanceOf(EgovUnknownModelException.class);
+    }
+
+    @Test
+    void 확인되지_않은_이름은_기본_모델_또는_other_로_대체한다() {
+        when(ollamaModelService.getModelCatalog()).thenReturn(new ModelCatalog(false, List.of(), 1L));
+
+        assertThat(resolver.knownOrDefault("llama3")).isEqualTo("qwen3:8b");
+        assertThat(resolver.knownOrDefault(null)).isEqualTo("qwen3:8b");
+        assertThat(resolver.knownOrOther("llama3")).isEqualTo(EgovModelResolver.OTHER);
+        assertThat(resolver.knownOrOther(null)).isEqualTo("qwen3:8b");
+        // Ollama 목록을 조회할 수 없어도 기본 채팅 모델은 허용
+        assertThat(resolver.resolve("qwen3:8b")).isEqualTo("qwen3:8b");
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.chat.config.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.chat.config.admission.EgovModelResolver;
+import com.example.chat.service.EgovOllamaModelService;
+import com.example.chat.service.EgovOllamaModelService.ModelCatalog;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EgovChatMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EgovOllamaModelService ollamaModelService = mock(EgovOllamaModelService.class);
+    private final EgovChatMetrics chatMetrics =
+            new EgovChatMetrics(meterRegistry, new EgovModelResolver(ollamaModelService, "qwen3:8b"));
+
+    @Test
+    void 확인되지_않은_모델은_other_태그로_모은다() {
+        when(ollamaModelService.getModelCatalog())
+                .thenReturn(new ModelCatalog(true, List.of("qwen3:8b", "llama3:latest"), 1L));
+        long start = System.nanoTime();
+
+        chatMetrics.recordStage(EgovChatMetrics.TOTAL, "rag_stream", "llama3", start);
+        chatMetrics.recordStage(EgovChatMetrics.TOTAL, "rag_stream", null, start);
+        for (int i = 0; i < 5; i++) {
+            chatMetrics.recordStage(EgovChatMetrics.TOTAL, "rag_stream", "random-" + i, start);
+            chatMetrics.recordCancellation("rag_stream", "random-" + i, EgovChatMetrics.CLIENT_DISCONNECT);
+        }
+
+        assertThat(meterRegistry.find(EgovChatMetrics.STAGE_TIMER).timers())
+                .extracting(timer -> timer.getId().getTag("model"))
+                .containsExactlyInAnyOrder("llama3:latest", "qwen3:8b", EgovModelResolver.OTHER);
+        assertThat(meterRegistry.find(EgovChatMetrics.CANCELLED_REQUESTS).counters())
+                .extracting(Meter::getId)
+                .extracting(id -> id.getTag("model"))
+                .containsExactly(EgovModelResolver.OTHER);
+    }
+}
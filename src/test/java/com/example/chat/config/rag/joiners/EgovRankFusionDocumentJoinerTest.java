@@ -0,0 +1,61 @@
+package com.example.chat.config.rag.joiners;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+
+class EgovRankFusionDocumentJoinerTest {
+
+    private final EgovRankFusionDocumentJoiner joiner = new EgovRankFusionDocumentJoiner(60);
+
+    @Test
+    void 여러_하위_질문에서_상위에_나온_문서가_앞에_온다() {
+        Map<Query, List<List<Document>>> results = new LinkedHashMap<>();
+        results.put(new Query("원래 질문"), List.of(List.of(document("a"), document("b"), document("c"))));
+        results.put(new Query("바꿔 쓴 질문"), List.of(List.of(document("b"), document("c"))));
+
+        List<Document> fused = joiner.join(results);
+
+        assertThat(fused).extracting(Document::getId).containsExactly("b", "c", "a");
+        assertThat(fused.get(0).getScore()).isCloseTo(1.0 / 62 + 1.0 / 61, within(1e-12));
+        assertThat(fused.get(2).getScore()).isCloseTo(1.0 / 61, within(1e-12));
+    }
+
+    @Test
+    void 같은_ID는_하나로_합치고_점수를_메타데이터에_기록한다() {
+        Map<Query, List<List<Document>>> results = new LinkedHashMap<>();
+        results.put(new Query("질문 1"), List.of(List.of(document("a"))));
+        results.put(new Query("질문 2"), List.of(List.of(document("a"))));
+
+        List<Document> fused = joiner.join(results);
+
+        assertThat(fused).hasSize(1);
+        Document document = fused.get(0);
+        assertThat(document.getScore()).isCloseTo(2.0 / 61, within(1e-12));
+        assertThat(document.getMetadata().get(EgovRankFusionDocumentJoiner.RRF_SCORE_KEY))
+                .isEqualTo(document.getScore());
+        assertThat(document.getMetadata()).containsEntry("source", "a.pdf");
+    }
+
+    @Test
+    void 빈_결과는_빈_목록을_반환한다() {
+        assertThat(joiner.join(Map.of())).isEmpty();
+        assertThat(joiner.join(Map.of(new Query("질문"), List.of(List.of())))).isEmpty();
+    }
+
+    private static Document document(String id) {
+        return Document.builder()
+                .id(id)
+                .text(id + " 내용")
+                .metadata("source", id + ".pdf")
+                .score(0.5)
+                .build();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.chat.config.rag.postprocessors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+
+import com.example.chat.config.rag.joiners.EgovRankFusionDocumentJoiner;
+
+class EgovContextBudgetPostProcessorTest {
+
+    private static final Query QUERY = new Query("전자정부 프레임워크 설치 방법");
+
+    @Test
+    void 코사인_점수는_최고_점수와의_차이로_필터링한다() {
+        EgovContextBudgetPostProcessor processor = new EgovContextBudgetPostProcessor(1000, 0.2, 30, false);
+
+        List<Document> result = processor.process(QUERY, List.of(
+                document("a", "a.pdf", "첫 번째 문서입니다.", 0.9, Map.of()),
+                document("b", "b.pdf", "두 번째 문서입니다.", 0.75, Map.of()),
+                document("c", "c.pdf", "세 번째 문서입니다.", 0.5, Map.of())));
+
+        assertThat(result).extracting(Document::getId).containsExactly("a", "b");
+    }
+
+    @Test
+    void RRF_점수는_최고_점수_대비_비율로_필터링한다() {
+        EgovContextBudgetPostProcessor processor = new EgovContextBudgetPostProcessor(1000, 0.2, 30, false);
+        Map<String, Object> rrf = Map.of(EgovRankFusionDocumentJoiner.RRF_SCORE_KEY, true);
+
+        // 세 목록 모두 1위, 한 목록에서만 1위, 한 목록에서만 10위
+        List<Document> result = processor.process(QUERY, List.of(
+                document("a", "a.pdf", "첫 번째 문서입니다.", 3.0 / 61, rrf),
+                document("b", "b.pdf", "두 번째 문서입니다.", 1.0 / 61, rrf),
+                document("c", "c.pdf", "세 번째 문서입니다.", 1.0 / 70, rrf)));
+
+        // 절대값 차이(0.03 미만)로 비교했다면 모두 통과했을 문서들
+        assertThat(result).extracting(Document::getId).containsExactly("a");
+    }
+
+    @Test
+    void 재정렬_이후에는_RRF_메타데이터가_있어도_sigmoid_점수로_비교한다() {
+        EgovContextBudgetPostProcessor processor = new EgovContextBudgetPostProcessor(1000, 0.2, 30, false);
+        Map<String, Object> reranked = Map.of(
+                EgovRankFusionDocumentJoiner.RRF_SCORE_KEY, true,
+                EgovCrossEncoderReranker.RERANK_SCORE_KEY, true);
+
+        List<Document> result = processor.process(QUERY, List.of(
+                document("a", "a.pdf", "첫 번째 문서입니다.", 0.95, reranked),
+                document("b", "b.pdf", "두 번째 문서입니다.", 0.8, reranked),
+                document("c", "c.pdf", "세 번째 문서입니다.", 0.3, reranked)));
+
+        assertThat(result).extracting(Document::getId).containsExactly("a", "b");
+    }
+
+    @Test
+    void 겹치는_청크는_하나로_병합한다() {
+        EgovContextBudgetPostProcessor processor = new EgovContextBudgetPostProcessor(1000, 1.0, 10, false);
+        String overlap = "겹치는 부분의 문장입니다. ";
+
+        List<Document> result = processor.process(QUERY, List.of(
+                document("a", "guide.pdf", "앞쪽 청크의 내용입니다. " + overlap, 0.9, Map.of()),
+                document("b", "guide.pdf", overlap + "뒤쪽 청크의 내용입니다.", 0.8, Map.of())));
+
+        assertThat(result).hasSize(1);
+        Document merged = result.get(0);
+        assertThat(merged.getText()).isEqualTo("앞쪽 청크의 내용입니다. " + overlap + "뒤쪽 청크의 내용입니다.");
+        assertThat(merged.getScore()).isEqualTo(0.9);
+        assertThat(merged.getMetadata().get(EgovContextBudgetPostProcessor.MERGED_IDS_KEY))
+                .isEqualTo(List.of("a", "b"));
+    }
+
+    @Test
+    void 연속된_페이지는_병합하고_떨어진_페이지는_유지한다() {
+        EgovContextBudgetPostProcessor processor = new EgovContextBudgetPostProcessor(1000, 1.0, 30, false);
+
+        List<Document> result = processor.process(QUERY, List.of(
+                document("p1", "guide.pdf", "1페이지 내용입니다.", 0.9, Map.of("page_number", 1)),
+                document("p2", "guide.pdf", "2페이지 내용입니다.", 0.8, Map.of("page_number", 2)),
+                document("p9", "guide.pdf", "9페이지 내용입니다.", 0.7, Map.of("page_number", 9))));
+
+        assertThat(result).extracting(Document::getText)
+                .containsExactly("1페이지 내용입니다.\n2페이지 내용입니다.", "9페이지 내용입니다.");
+    }
+
+    @Test
+    void 입력_순서_유지_시_MMR_순서를_점수_순으로_바꾸지_않는다() {
+        EgovContextBudgetPostProcessor processor = new EgovContextBudgetPostProcessor(1000, 1.0, 30, true);
+
+        List<Document> result = processor.process(QUERY, List.of(
+                document("a", "a.pdf", "첫 번째 문서입니다.", 0.9, Map.of()),
+                document("b", "b.pdf", "두 번째 문서입니다.", 0.6, Map.of()),
+                document("c", "c.pdf", "세 번째 문서입니다.", 0.8, Map.of())));
+
+        assertThat(result).extracting(Document::getId).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void 점수_순_정렬_시_높은_점수부터_채운다() {
+        EgovContextBudgetPostProcessor processor = new EgovContextBudgetPostProcessor(1000, 1.0, 30, false);
+
+        List<Document> result = processor.process(QUERY, List.of(
+                document("a", "a.pdf", "첫 번째 문서입니다.", 0.9, Map.of()),
+                document("b", "b.pdf", "두 번째 문서입니다.", 0.6, Map.of()),
+                document("c", "c.pdf", "세 번째 문서입니다.", 0.8, Map.of())));
+
+        assertThat(result).extracting(Document::getId).containsExactly("a", "c", "b");
+    }
+
+    @Test
+    void 예산을_넘는_문서는_문장_경계에서_잘라낸다() {
+        String sentence = "전자정부 표준프레임워크는 공통 기반 기술을 제공하며 여러 기관에서 재사용할 수 있습니다. ";
+        String text = sentence.repeat(20).trim();
+        EgovContextBudgetPostProcessor processor = new EgovContextBudgetPostProcessor(100, 1.0, 30, false);
+
+        List<Document> result = processor.process(QUERY, List.of(
+                document("a", "a.pdf", text, 0.9, Map.of())));
+
+        assertThat(result).hasSize(1);
+        Document trimmed = result.get(0);
+        assertThat(trimmed.getMetadata()).containsEntry(EgovContextBudgetPostProcessor.TRIMMED_KEY, true);
+        assertThat(trimmed.getText()).isNotEmpty().endsWith("있습니다.");
+        assertThat(text).startsWith(trimmed.getText());
+        assertThat(trimmed.getText().length()).isLessThan(text.length());
+    }
+
+    @Test
+    void 남은_예산이_적으면_잘라서_넣지_않는다() {
+        // 영어 단어 하나가 한 토큰이므로 첫 문서 뒤 남는 예산은 약 20토큰 (최소 32토큰 미만)
+        EgovContextBudgetPostProcessor processor = new EgovContextBudgetPostProcessor(40, 1.0, 30, false);
+        String first = "word ".repeat(20).trim();
+        String second = "Another sentence. ".repeat(20).trim();
+
+        List<Document> result = processor.process(QUERY, List.of(
+                document("a", "a.pdf", first, 0.9, Map.of()),
+                document("b", "b.pdf", second, 0.8, Map.of())));
+
+        assertThat(result).extracting(Document::getId).containsExactly("a");
+    }
+
+    private static Document document(String id, String source, String text, double score, Map<String, Object> metadata) {
+        Map<String, Object> merged = new HashMap<>(metadata);
+        merged.put("source", source);
+        return Document.builder()
+                .id(id)
+                .text(text)
+                .metadata(merged)
+                .score(score)
+                .build();
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.chat.config.rag.retrievers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.rag.Query;
+
+import com.example.chat.benchmark.EgovMicroBenchmark;
+import com.example.chat.benchmark.EgovMicroBenchmark.Result;
+import com.example.chat.config.admission.EgovModelResolver;
+import com.example.chat.config.metrics.EgovChatMetrics;
+import com.example.chat.config.rag.transformers.EgovCompressionGate;
+import com.example.chat.config.rag.transformers.EgovCompressionQueryTransformer;
+import com.example.chat.service.EgovOllamaModelService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 후속 질문 처리 방식 오프라인 비교: 히스토리 혼합 검색 vs 질문 압축 (mvn test -Pbenchmark)
+ * 같은 질문 + 히스토리로 두 경로를 실행하여 검색된 문서 ID(기대 문서 적중, 경로 간 겹침)와 지연 시간을 비교
+ * - 임베딩: 문자 바이그램 해시 임베딩 (결정적, 외부 모델 없음)
+ * - 벡터 검색: 메모리 내 전수 코사인 검색
+ * - 질문 압축: 케이스별 기준 재작성 질문을 돌려주는 고정 LLM 응답,
+ *   지연은 -Dbenchmark.compression-latency-ms 로 지정 (운영 query_compression 단계 p50 값 사용 권장)
+ */
+@Tag("benchmark")
+class EgovHistoryBlendEvaluationTest {
+
+    private static final int DIMENSIONS = 256;
+    private static final int TOP_K = 2;
+    private static final String SESSION_ID = "evaluation-session";
+    private static final long COMPRESSION_LATENCY_MS = Long.getLong("benchmark.compression-latency-ms", 0L);
+
+    private static final List<Document> CORPUS = List.of(
+            document("dev-install", "전자정부 표준프레임워크 개발환경 설치 방법: 개발환경 압축 파일을 내려받아 해제 후 실행"),
+            document("dev-example", "전자정부 표준프레임워크 개발환경 설치 예시: 설치 경로와 워크스페이스 설정 예시"),
+            document("jdk", "JDK 설치 및 JAVA_HOME 환경 변수 설정"),
+            document("batch-env", "배치 작업 실행 환경 구성: Job 저장소와 실행기 설정"),
+            document("batch-scheduler", "배치 작업 스케줄링: 스케줄러로 배치 Job 주기 실행 설정"),
+            document("common-login", "공통 컴포넌트 로그인 기능 추가 방법: 일반 로그인과 인증서 로그인"),
+            document("mvc-tech", "화면 처리 레이어 기술: Spring MVC 와 Thymeleaf 사용"),
+            document("mvc-validation", "화면 처리 레이어 입력값 검증: Bean Validation 으로 입력값 검증 방법"));
+
+    /**
+     * 평가 케이스
+     *
+     * @param history 이전 대화 (사용자 질문/답변)
+     * @param question 후속 질문
+     * @param rewrite 질문 압축 LLM 이 만들어야 하는 기준 재작성 질문
+     * @param expectedId 정답 문서 ID
+     */
+    private record Case(List<Message> history, String question, String rewrite, String expectedId) {
+    }
+
+    private static final List<Case> CASES = List.of(
+            new Case(List.of(new UserMessage("전자정부 표준프레임워크 개발환경 설치 방법 알려줘"),
+                    new AssistantMessage("개발환경 압축 파일을 내려받아 해제하면 됩니다.")),
+                    "예시는?", "전자정부 표준프레임워크 개발환경 설치 예시", "dev-example"),
+            new Case(List.of(new UserMessage("배치 작업 실행 환경 구성 방법은?"),
+                    new AssistantMessage("Job 저장소와 실행기를 설정합니다.")),
+                    "주기적으로 실행하려면?", "배치 작업 스케줄링 주기 실행 설정 방법", "batch-scheduler"),
+            // 주제 전환: 히스토리를 섞으면 이전 주제로 끌려갈 수 있는 경우
+            new Case(List.of(new UserMessage("배치 작업 실행 환경 구성 방법은?"),
+                    new AssistantMessage("Job 저장소와 실행기를 설정합니다.")),
+                    "공통 컴포넌트 로그인 기능 추가 방법은?", "공통 컴포넌트 로그인 기능 추가 방법", "common-login"),
+            new Case(List.of(new UserMessage("화면 처리 레이어에서 사용하는 기술은?"),
+                    new AssistantMessage("Spring MVC 와 Thymeleaf 를 사용합니다.")),
+                    "검증은?", "화면 처리 레이어 입력값 검증 방법", "mvc-validation"));
+
+    private final ChatModel chatModel = mock(ChatModel.class, Answers.CALLS_REAL_METHODS);
+    private final EgovPgVectorDocumentRetriever vectorRetriever = mock(EgovPgVectorDocumentRetriever.class);
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    // 고정 LLM 응답이 돌려줄 현재 케이스의 재작성 질문
+    private volatile String currentRewrite;
+
+    @Test
+    void 히스토리_혼합_검색과_질문_압축의_검색_결과와_지연을_비교한다() {
+        stubVectorRetriever();
+        doAnswer(invocation -> {
+            if (COMPRESSION_LATENCY_MS > 0) {
+                Thread.sleep(COMPRESSION_LATENCY_MS);
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(currentRewrite))));
+        }).when(chatModel).call(any(Prompt.class));
+
+        EgovHistoryBlendDocumentRetriever blendRetriever = new EgovHistoryBlendDocumentRetriever(vectorRetriever, 2, 1.0, 0.5);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EgovCompressionQueryTransformer compressionTransformer = new EgovCompressionQueryTransformer(
+                mock(ChatMemory.class), ChatClient.create(chatModel),
+                // 게이트를 끄고 캐시를 바로 만료시켜 모든 후속 질문을 LLM 으로 압축
+                new EgovCompressionGate(mock(EmbeddingModel.class), meterRegistry, false, 0.6, 2),
+                new EgovChatMetrics(meterRegistry, new EgovModelResolver(mock(EgovOllamaModelService.class), "")),
+                "", 128, 1, Duration.ofNanos(1));
+
+        int blendHits = 0;
+        int compressionHits = 0;
+        double overlapSum = 0.0;
+        System.out.println("| 질문 | 정답 | 히스토리 혼합 | 질문 압축 | 겹침 |");
+        System.out.println("|------|------|---------------|-----------|------|");
+        for (Case evaluationCase : CASES) {
+            List<String> blendIds = ids(blendRetriever.retrieve(query(evaluationCase)));
+            List<String> compressionIds = ids(compress(compressionTransformer, evaluationCase));
+            double overlap = jaccard(blendIds, compressionIds);
+            blendHits += blendIds.contains(evaluationCase.expectedId()) ? 1 : 0;
+            compressionHits += compressionIds.contains(evaluationCase.expectedId()) ? 1 : 0;
+            overlapSum += overlap;
+            System.out.printf("| %s | %s | %s | %s | %.2f |%n", evaluationCase.question(), evaluationCase.expectedId(),
+                    blendIds, compressionIds, overlap);
+
+            assertThat(blendIds).isNotEmpty();
+            assertThat(compressionIds).isNotEmpty();
+        }
+        System.out.printf("적중률@%d - 히스토리 혼합: %d/%d, 질문 압축: %d/%d, 평균 겹침: %.2f%n", TOP_K,
+                blendHits, CASES.size(), compressionHits, CASES.size(), overlapSum / CASES.size());
+
+        // LLM 지연을 넣으면 호출당 수 ms 이상이므로 반복 횟수를 줄임
+        int warmup = COMPRESSION_LATENCY_MS > 0 ? 5 : 2_000;
+        int iterations = COMPRESSION_LATENCY_MS > 0 ? 50 : 20_000;
+        Result blend = EgovMicroBenchmark.measure("히스토리 혼합 검색", warmup, iterations,
+                () -> blendRetriever.retrieve(query(nextCase())));
+        Result compression = EgovMicroBenchmark.measure(
+                "질문 압축 (LLM 지연 " + COMPRESSION_LATENCY_MS + "ms)", warmup, iterations,
+                () -> compress(compressionTransformer, nextCase()));
+        System.out.printf("요청당 지연 차이 (압축 - 혼합): %.1f ns%n", compression.nanosPerOp() - blend.nanosPerOp());
+    }
+
+    /**
+     * 운영 구성과 같이 압축된 질문을 기본 검색기로 검색
+     */
+    private List<Document> compress(EgovCompressionQueryTransformer transformer, Case evaluationCase) {
+        currentRewrite = evaluationCase.rewrite();
+        return vectorRetriever.retrieve(transformer.transform(query(evaluationCase)));
+    }
+
+    private Query query(Case evaluationCase) {
+        return Query.builder()
+                .text(evaluationCase.question())
+                .history(evaluationCase.history())
+                .context(Map.of(ChatMemory.CONVERSATION_ID, SESSION_ID))
+                .build();
+    }
+
+    private Case nextCase() {
+        return CASES.get(Math.floorMod(sequence.getAndIncrement(), CASES.size()));
+    }
+
+    /**
+     * PgVector 검색기를 메모리 내 전수 검색으로 대체 (임베딩/검색 호출 경로는 운영과 동일)
+     */
+    private void stubVectorRetriever() {
+        when(vectorRetriever.getTopK()).thenReturn(TOP_K);
+        when(vectorRetriever.getSimilarityThreshold()).thenReturn(0.0);
+        when(vectorRetriever.embed(anyString(), anyMap()))
+                .thenAnswer(invocation -> embed(invocation.getArgument(0)));
+        when(vectorRetriever.embed(anyList(), anyMap()))
+                .thenAnswer(invocation -> invocation.<List<String>>getArgument(0).stream()
+                        .map(EgovHistoryBlendEvaluationTest::embed)
+                        .toList());
+        when(vectorRetriever.search(any(float[].class), anyInt(), anyDouble(), any()))
+                .thenAnswer(invocation -> search(invocation.getArgument(0), invocation.getArgument(1)));
+        when(vectorRetriever.retrieve(any(Query.class)))
+                .thenAnswer(invocation -> search(embed(invocation.<Query>getArgument(0).text()), TOP_K));
+    }
+
+    private static List<Document> search(float[] queryEmbedding, int limit) {
+        List<Document> scored = new ArrayList<>(CORPUS.size());
+        for (Document document : CORPUS) {
+            double similarity = EgovMaximalMarginalRelevance.cosineSimilarity(queryEmbedding, embed(document.getText()));
+            scored.add(document.mutate().score(similarity).build());
+        }
+        scored.sort(Comparator.comparing(Document::getScore).reversed());
+        return scored.subList(0, Math.min(limit, scored.size()));
+    }
+
+    /**
+     * 공백을 제외한 문자 바이그램을 해시하여 누적한 임베딩
+     */
+    private static float[] embed(String text) {
+        float[] embedding = new float[DIMENSIONS];
+        String compact = text.replaceAll("[\\s\\p{Punct}]", "");
+        for (int i = 0; i + 1 < compact.length(); i++) {
+            byte[] bigram = compact.substring(i, i + 2).getBytes(StandardCharsets.UTF_8);
+            embedding[Math.floorMod(Arrays.hashCode(bigram), DIMENSIONS)] += 1.0f;
+        }
+        return embedding;
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    private static double jaccard(List<String> left, List<String> right) {
+        Set<String> union = new HashSet<>(left);
+        union.addAll(right);
+        if (union.isEmpty()) {
+            return 1.0;
+        }
+        Set<String> intersection = new HashSet<>(left);
+        intersection.retainAll(right);
+        return (double) intersection.size() / union.size();
+    }
+
+    private static Document document(String id, String text) {
+        return Document.builder().id(id).text(text).build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.chat.config.rag.retrievers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import com.example.chat.config.rag.retrievers.EgovPgVectorDocumentRetriever.Candidate;
+
+class EgovMaximalMarginalRelevanceTest {
+
+    @Test
+    void 거의_같은_청크보다_다른_내용의_청크를_먼저_선택한다() {
+        List<Candidate> candidates = List.of(
+                candidate("a", 0.90, 1f, 0f),
+                candidate("a-neighbor", 0.89, 0.99f, 0.01f),
+                candidate("b", 0.80, 0f, 1f));
+
+        List<Document> selected = EgovMaximalMarginalRelevance.select(candidates, 2, 0.5);
+
+        assertThat(selected).extracting(Document::getId).containsExactly("a", "b");
+    }
+
+    @Test
+    void lambda가_1이면_질의_유사도_순서를_유지한다() {
+        List<Candidate> candidates = List.of(
+                candidate("b", 0.80, 0f, 1f),
+                candidate("a", 0.90, 1f, 0f),
+                candidate("a-neighbor", 0.89, 0.99f, 0.01f));
+
+        List<Document> selected = EgovMaximalMarginalRelevance.select(candidates, 3, 1.0);
+
+        assertThat(selected).extracting(Document::getId).containsExactly("a", "a-neighbor", "b");
+    }
+
+    @Test
+    void 후보보다_많이_요청하면_모든_후보를_반환한다() {
+        List<Candidate> candidates = List.of(
+                candidate("a", 0.9, 1f, 0f),
+                candidate("b", 0.8, 0f, 1f));
+
+        assertThat(EgovMaximalMarginalRelevance.select(candidates, 5, 0.7)).hasSize(2);
+        assertThat(EgovMaximalMarginalRelevance.select(List.of(), 5, 0.7)).isEmpty();
+    }
+
+    @Test
+    void 코사인_유사도를_계산한다() {
+        assertThat(EgovMaximalMarginalRelevance.cosineSimilarity(new float[] {1f, 0f}, new float[] {2f, 0f}))
+                .isCloseTo(1.0, within(1e-9));
+        assertThat(EgovMaximalMarginalRelevance.cosineSimilarity(new float[] {1f, 0f}, new float[] {0f, 3f}))
+                .isCloseTo(0.0, within(1e-9));
+        assertThat(EgovMaximalMarginalRelevance.cosineSimilarity(new float[] {1f, 1f}, new float[] {-1f, -1f}))
+                .isCloseTo(-1.0, within(1e-9));
+    }
+
+    @Test
+    void 영벡터와의_유사도는_0이다() {
+        assertThat(EgovMaximalMarginalRelevance.cosineSimilarity(new float[] {0f, 0f}, new float[] {1f, 0f}))
+                .isZero();
+    }
+
+    private static Candidate candidate(String id, double score, float... embedding) {
+        Document document = Document.builder().id(id).text(id).score(score).build();
+        return new Candidate(document, embedding);
+    }
+}
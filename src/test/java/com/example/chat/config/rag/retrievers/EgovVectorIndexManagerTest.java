@@ -0,0 +1,20 @@
+package com.example.chat.config.rag.retrievers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class EgovVectorIndexManagerTest {
+
+    @Test
+    void pgvector_0_8_이상에서만_반복_스캔을_지원한다() {
+        assertThat(EgovVectorIndexManager.isIterativeScanSupported("0.8.0")).isTrue();
+        assertThat(EgovVectorIndexManager.isIterativeScanSupported("0.10.1")).isTrue();
+        assertThat(EgovVectorIndexManager.isIterativeScanSupported("1.0.0")).isTrue();
+
+        assertThat(EgovVectorIndexManager.isIterativeScanSupported("0.7.4")).isFalse();
+        assertThat(EgovVectorIndexManager.isIterativeScanSupported("0.5")).isFalse();
+        assertThat(EgovVectorIndexManager.isIterativeScanSupported(null)).isFalse();
+        assertThat(EgovVectorIndexManager.isIterativeScanSupported("unknown")).isFalse();
+    }
+}
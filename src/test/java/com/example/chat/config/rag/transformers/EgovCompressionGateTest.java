@@ -0,0 +1,76 @@
+package com.example.chat.config.rag.transformers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EgovCompressionGateTest {
+
+    private static final List<Message> HISTORY = List.of(
+            new UserMessage("전자정부 표준프레임워크 설치 방법 알려줘"),
+            new AssistantMessage("개발환경을 내려받아 압축을 해제하면 됩니다."));
+
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+    private final EgovCompressionGate gate =
+            new EgovCompressionGate(embeddingModel, new SimpleMeterRegistry(), true, 0.6, 2);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "그거 윈도우에서도 돼?",
+            "이건 어떤 버전부터 지원해?",
+            "그 설정은 어디에 있어?",
+            "위의 방법이 안 되면?",
+            "그럼 리눅스는?",
+            "예시는?",
+            "다른 방법은?",
+            "Does it work on Linux?",
+            "What about Linux?",
+            "That sounds good. How about Linux?",
+            "more detail"})
+    void 앞_대화를_가리키는_질문은_임베딩_없이_압축한다(String query) {
+        assertThat(gate.shouldCompress(query, HISTORY)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "해당 기관의 공통컴포넌트 목록은?",
+            "이전 버전과 4.2 버전의 차이는?",
+            "여기서 말하는 표준프레임워크 라이선스는?",
+            "검색 범위의 기본값은 얼마인가요?",
+            "배치 작업 그런데 재시작은 어떻게 하나요?",
+            "Is there a batch module in this framework?",
+            "Which modules also support their own logging?",
+            "Is the same config used in production?"})
+    void 흔한_일반_표현은_마커로_보지_않고_임베딩_유사도로_판단한다(String query) {
+        when(embeddingModel.embed(anyList())).thenReturn(List.of(new float[] {1f, 0f}, new float[] {0f, 1f}));
+
+        assertThat(gate.shouldCompress(query, HISTORY)).isFalse();
+    }
+
+    @Test
+    void 마커가_없어도_이전_질문과_유사하면_압축한다() {
+        when(embeddingModel.embed(anyList())).thenReturn(List.of(new float[] {1f, 0f}, new float[] {0.9f, 0.1f}));
+
+        assertThat(gate.shouldCompress("공통컴포넌트 설치 순서는?", HISTORY)).isTrue();
+    }
+
+    @Test
+    void 이전_질문이_없으면_압축하지_않는다() {
+        String query = "그거 윈도우에서도 돼?";
+
+        assertThat(gate.shouldCompress(query, List.of(new UserMessage(query)))).isFalse();
+    }
+}
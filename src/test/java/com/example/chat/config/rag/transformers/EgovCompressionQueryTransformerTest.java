@@ -0,0 +1,78 @@
+package com.example.chat.config.rag.transformers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.rag.Query;
+
+import com.example.chat.config.admission.EgovModelResolver;
+import com.example.chat.config.metrics.EgovChatMetrics;
+import com.example.chat.service.EgovOllamaModelService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EgovCompressionQueryTransformerTest {
+
+    private static final String SESSION_ID = "session-1";
+    private static final String COMPRESSED = "전자정부 표준프레임워크 설치 예시";
+    private static final List<Message> HISTORY = List.of(
+            new UserMessage("전자정부 표준프레임워크 설치 방법 알려줘"),
+            new AssistantMessage("개발환경을 내려받아 압축을 해제하면 됩니다."));
+
+    // 기본 메서드(getDefaultOptions 등)는 실제 구현을 사용하고 call(Prompt)만 대체
+    private final ChatModel chatModel = mock(ChatModel.class, Answers.CALLS_REAL_METHODS);
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+    private final ChatMemory chatMemory = mock(ChatMemory.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final EgovCompressionQueryTransformer transformer = new EgovCompressionQueryTransformer(
+            chatMemory, ChatClient.create(chatModel),
+            new EgovCompressionGate(embeddingModel, meterRegistry, true, 0.6, 2),
+            new EgovChatMetrics(meterRegistry, new EgovModelResolver(mock(EgovOllamaModelService.class), "test-model")),
+            "", 128, 100, Duration.ofMinutes(30));
+
+    @Test
+    void 히스토리가_있으면_짧은_생략형_질문도_압축한다() {
+        doReturn(new ChatResponse(List.of(new Generation(new AssistantMessage(COMPRESSED)))))
+                .when(chatModel).call(any(Prompt.class));
+
+        Query result = transformer.transformWithSessionId(
+                Query.builder().text("예시는?").history(HISTORY).build(), SESSION_ID);
+
+        assertThat(result.text()).isEqualTo(COMPRESSED);
+        assertThat(result.history()).isEqualTo(HISTORY);
+        // 생략형 질문은 임베딩 유사도 없이 게이트에서 바로 압축 결정
+        verifyNoInteractions(embeddingModel);
+    }
+
+    @Test
+    void 히스토리가_없으면_짧은_질문을_그대로_검색한다() {
+        doReturn(List.of()).when(chatMemory).get(SESSION_ID);
+
+        Query query = Query.builder().text("예시는?").build();
+        Query result = transformer.transformWithSessionId(query, SESSION_ID);
+
+        assertThat(result).isSameAs(query);
+        verify(chatModel, never()).call(any(Prompt.class));
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.chat.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.stubbing.Answer;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+class EgovAppendOnlyChatMemoryRepositoryTest {
+
+    private static final String CONVERSATION_ID = "session-1";
+    private static final String INSERT_SQL =
+            "INSERT INTO spring_ai_chat_memory (conversation_id, content, type, \"timestamp\") VALUES (?, ?, ?, ?)";
+    private static final String SELECT_OLDER_SQL =
+            "SELECT content, type, \"timestamp\", token_count FROM spring_ai_chat_memory WHERE conversation_id = ? "
+                    + "AND type IN ('USER', 'ASSISTANT') AND \"timestamp\" < ? ORDER BY \"timestamp\" DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    // 저장소가 배치 실행 후 목록을 비우므로 호출 시점의 INSERT 인자를 복사해 둠
+    private final List<List<Object[]>> insertedBatches = new ArrayList<>();
+    private final Answer<int[]> recordBatch = invocation -> {
+        List<Object[]> rows = invocation.getArgument(1);
+        insertedBatches.add(List.copyOf(rows));
+        return new int[rows.size()];
+    };
+    private EgovAppendOnlyChatMemoryRepository repository;
+
+    private final Message u1 = new UserMessage("질문 1");
+    private final Message a1 = new AssistantMessage("답변 1");
+    private final Message u2 = new UserMessage("질문 2");
+    private final Message a2 = new AssistantMessage("답변 2");
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(recordBatch).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.shutdown();
+        }
+    }
+
+    @Test
+    void 이전_윈도우와_비교하여_새_메시지만_INSERT_한다() {
+        repository = writeBehind(10, 10, false, 5, null);
+
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+        repository.flush();
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1, u2, a2));
+        repository.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(INSERT_SQL), anyList());
+        assertThat(insertedBatches).hasSize(2);
+        assertThat(insertedBatches.get(0)).extracting(row -> row[1]).containsExactly("질문 1", "답변 1");
+        assertThat(insertedBatches.get(1)).extracting(row -> row[1]).containsExactly("질문 2", "답변 2");
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).containsExactly(u1, a1, u2, a2);
+    }
+
+    @Test
+    void 반영_전에는_DB에_쓰지_않고_캐시에서_조회한다() {
+        repository = writeBehind(10, 10, false, 5, null);
+
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).containsExactly(u1, a1);
+    }
+
+    @Test
+    void 윈도우_밖_행이_정리_여유를_넘으면_INSERT_후_한_번에_삭제한다() {
+        repository = writeBehind(2, 0, false, 5, null);
+
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+        repository.saveAll(CONVERSATION_ID, List.of(a1, u2));
+        repository.flush();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).batchUpdate(eq(INSERT_SQL), anyList());
+        order.verify(jdbcTemplate).update(argThat((String sql) -> sql.contains("\"timestamp\" <")),
+                eq(CONVERSATION_ID), any(Timestamp.class));
+    }
+
+    @Test
+    void 이력_보존_시_윈도우_밖_행을_삭제하지_않는다() {
+        repository = writeBehind(2, 0, true, 5, null);
+
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+        repository.saveAll(CONVERSATION_ID, List.of(a1, u2));
+        repository.flush();
+
+        verify(jdbcTemplate).batchUpdate(eq(INSERT_SQL), anyList());
+        verify(jdbcTemplate, never()).update(anyString(), any(), any());
+    }
+
+    @Test
+    void 반영에_실패한_작업은_다음_flush_에서_다시_시도한다() {
+        repository = writeBehind(10, 10, false, 5, null);
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .doAnswer(recordBatch)
+                .when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+        repository.flush();
+        repository.flush();
+        repository.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(INSERT_SQL), anyList());
+        assertThat(insertedBatches).hasSize(1);
+        assertThat(insertedBatches.get(0)).extracting(row -> row[1]).containsExactly("질문 1", "답변 1");
+    }
+
+    @Test
+    void 재시도_횟수를_넘기면_작업을_버리고_캐시를_무효화한다() {
+        repository = writeBehind(10, 10, false, 2, null);
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+        repository.flush();
+        repository.flush();
+        repository.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        // 캐시가 무효화되어 DB(빈 결과)에서 다시 읽음
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).isEmpty();
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), eq(CONVERSATION_ID), eq(10));
+    }
+
+    @Test
+    void 다른_대화_적재_중_반영을_포기해도_캐시를_재귀_갱신하지_않는다() {
+        repository = writeBehind(10, 10, false, 1, null);
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+        // 캐시에 없는 대화 적재 전에 반영이 실패하여 session-1 캐시를 무효화
+        assertThat(repository.findByConversationId("session-2")).isEmpty();
+
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).isEmpty();
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), eq(CONVERSATION_ID), eq(10));
+    }
+
+    @Test
+    void DB_오류가_아닌_예외로_실패한_작업도_다시_시도한다() {
+        repository = writeBehind(10, 10, false, 5, null);
+        doThrow(new IllegalStateException("unexpected"))
+                .doAnswer(recordBatch)
+                .when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+        repository.flush();
+        repository.flush();
+
+        assertThat(insertedBatches).hasSize(1);
+        assertThat(insertedBatches.get(0)).extracting(row -> row[1]).containsExactly("질문 1", "답변 1");
+    }
+
+    @Test
+    void 삭제된_대화의_대기_작업은_반영하지_않는다() {
+        repository = writeBehind(10, 10, false, 5, null);
+
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+        repository.deleteByConversationId(CONVERSATION_ID);
+        repository.flush();
+
+        verify(jdbcTemplate).update("DELETE FROM spring_ai_chat_memory WHERE conversation_id = ?", CONVERSATION_ID);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void 삭제_전에_읽은_윈도우로_만든_작업은_삭제_후에도_반영하지_않는다() {
+        TokenCountEstimator estimator = mock(TokenCountEstimator.class);
+        repository = writeBehind(10, 10, false, 5, estimator);
+        // 저장 도중(토큰 수 계산 시점) 다른 요청이 대화를 삭제하는 상황
+        when(estimator.estimate(anyString())).thenAnswer(invocation -> {
+            if ("질문 2".equals(invocation.getArgument(0))) {
+                repository.purgeConversations(Set.of(CONVERSATION_ID), () -> 1);
+            }
+            return 3;
+        });
+
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+        repository.flush();
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1, u2));
+        repository.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+
+        // 삭제 이후 새로 읽은 윈도우의 저장은 정상 반영
+        repository.saveAll(CONVERSATION_ID, List.of(a2));
+        repository.flush();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void 만료_메시지_삭제_전에_대기_작업을_반영하고_삭제된_메시지의_윈도우를_무효화한다() {
+        repository = writeBehind(10, 10, false, 5, null);
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1));
+        repository.saveAll("session-2", List.of(u2));
+
+        long cutoff = System.currentTimeMillis() + Duration.ofHours(1).toMillis();
+        int deleted = repository.purgeMessagesBefore(cutoff, () -> {
+            verify(jdbcTemplate).batchUpdate(eq(INSERT_SQL), anyList());
+            return 3;
+        });
+
+        assertThat(deleted).isEqualTo(3);
+        assertThat(insertedBatches.get(0)).extracting(row -> row[1]).containsExactly("질문 1", "답변 1", "질문 2");
+        // 삭제 기준 이전 메시지를 가진 윈도우는 DB 에서 다시 읽음
+        assertThat(repository.findByConversationId(CONVERSATION_ID)).isEmpty();
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), eq(CONVERSATION_ID), eq(10));
+    }
+
+    @Test
+    void 토큰_예산_안의_최근_메시지만_조회한다() {
+        repository = writeBehind(10, 10, false, 5, wordCountEstimator());
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1, u2, a2));
+
+        // 질문 2 + 답변 2 = 4토큰, 답변 1 까지 포함하면 6토큰
+        assertThat(repository.findByConversationIdWithinBudget(CONVERSATION_ID, 5)).containsExactly(u2, a2);
+        // 사용자 질문 없이 남는 답변 1 은 제외
+        assertThat(repository.findByConversationIdWithinBudget(CONVERSATION_ID, 7)).containsExactly(u2, a2);
+    }
+
+    @Test
+    void 이력_보존_시_윈도우가_예산보다_작으면_이전_보존_이력으로_예산을_채운다() {
+        repository = new EgovAppendOnlyChatMemoryRepository(jdbcTemplate, 2, 10, true, wordCountEstimator(),
+                100, Duration.ofMinutes(30), true, Duration.ofHours(1), 5);
+        repository.saveAll(CONVERSATION_ID, List.of(u2, a2));
+        // 윈도우 이전 보존 행 (최신순, 토큰 수 2), 두 번째 페이지(1L 이전)는 없음
+        List<Object[]> olderRows = List.of(new Object[] {a1, 2L, 2}, new Object[] {u1, 1L, 2});
+        when(jdbcTemplate.query(eq(SELECT_OLDER_SQL), any(RowMapper.class), eq(CONVERSATION_ID),
+                any(Timestamp.class), eq(2)))
+                .thenAnswer(invocation -> invocation.<Timestamp>getArgument(3).getTime() > 1L ? olderRows : List.of());
+
+        assertThat(repository.findByConversationIdWithinBudget(CONVERSATION_ID, 8, true))
+                .containsExactly(u1, a1, u2, a2);
+        // 질문 1 이 예산을 넘으면 사용자 질문 없이 남는 답변 1 은 제외
+        assertThat(repository.findByConversationIdWithinBudget(CONVERSATION_ID, 7, true))
+                .containsExactly(u2, a2);
+        // 윈도우만 사용하는 조회는 이전 이력을 읽지 않음
+        assertThat(repository.findByConversationIdWithinBudget(CONVERSATION_ID, 8)).containsExactly(u2, a2);
+    }
+
+    @Test
+    void 최신_메시지가_예산을_넘으면_마지막_턴을_잘라서_유지한다() {
+        repository = writeBehind(10, 10, false, 5, wordCountEstimator());
+        repository.saveAll(CONVERSATION_ID, List.of(u1, a1,
+                new UserMessage("설치 방법 알려줘"), new AssistantMessage("첫째 둘째 셋째 넷째 다섯째 여섯째")));
+
+        List<Message> history = repository.findByConversationIdWithinBudget(CONVERSATION_ID, 6);
+
+        assertThat(history).extracting(Message::getText).containsExactly("설치 방법 알려줘", "첫째 둘째 셋째");
+        assertThat(history).extracting(Message::getMessageType)
+                .containsExactly(MessageType.USER, MessageType.ASSISTANT);
+        assertThat(repository.findByConversationIdWithinBudget(CONVERSATION_ID, 0)).isEmpty();
+    }
+
+    /**
+     * 공백으로 구분한 단어 수를 토큰 수로 사용
+     */
+    private static TokenCountEstimator wordCountEstimator() {
+        TokenCountEstimator estimator = mock(TokenCountEstimator.class);
+        when(estimator.estimate(anyString())).thenAnswer(invocation -> {
+            String text = invocation.getArgument(0);
+            return text.isBlank() ? 0 : text.trim().split("\\s+").length;
+        });
+        return estimator;
+    }
+
+    private EgovAppendOnlyChatMemoryRepository writeBehind(int maxMessages, int trimSlack, boolean retainHistory,
+                                                           int maxFlushAttempts, TokenCountEstimator estimator) {
+        // 주기 반영은 테스트 중 실행되지 않도록 길게 두고 flush()를 직접 호출
+        return new EgovAppendOnlyChatMemoryRepository(jdbcTemplate, maxMessages, trimSlack, retainHistory, estimator,
+                100, Duration.ofMinutes(30), true, Duration.ofHours(1), maxFlushAttempts);
+    }
+}